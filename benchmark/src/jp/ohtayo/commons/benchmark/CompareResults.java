@@ -0,0 +1,162 @@
+package jp.ohtayo.commons.benchmark;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JMHの結果CSV(-rf csv)を2つ比較し、性能が悪化したベンチマークを表示するツールです。<br>
+ * ベンチマーク名とパラメータが同じ行同士のスコアを比べます。<br>
+ * スループット(thrpt)は大きいほど、それ以外のモードは小さいほど良いとみなします。<br>
+ * 悪化率がしきい値を超え、かつ両者の誤差範囲が重ならない場合を悪化と判定します。<br>
+ * 例：<br>
+ * 		java -cp build/benchmark jp.ohtayo.commons.benchmark.CompareResults base.csv new.csv 0.10<br>
+ * 悪化が1つでもあれば終了コード1で終了します。<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+public class CompareResults {
+
+	/** 悪化と判定する既定のしきい値(10%)	*/	private static final double DEFAULT_THRESHOLD = 0.10;
+
+	/**
+	 * 結果CSVの1行です。
+	 */
+	private static class Result {
+		String mode;
+		double score;
+		double error;
+		String unit;
+	}
+
+	/**
+	 * 2つの結果CSVを比較します。
+	 * @param args 基準の結果CSV、比較する結果CSV、(省略可)しきい値
+	 * @throws IOException ファイルが読めない場合
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if(args.length < 2){
+			System.err.println("usage: CompareResults base.csv current.csv [threshold]");
+			System.exit(2);
+		}
+		double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+		Map<String, Result> base = read(args[0]);
+		Map<String, Result> current = read(args[1]);
+
+		int regressions = 0;
+		System.out.println(String.format("%-80s %14s %14s %8s", "benchmark", "base", "current", "change"));
+		for(Map.Entry<String, Result> entry : current.entrySet())
+		{
+			Result now = entry.getValue();
+			Result before = base.get(entry.getKey());
+			if(before == null){
+				System.out.println(String.format("%-80s %14s %14.3f %8s", entry.getKey(), "-", now.score, "new"));
+				continue;
+			}
+			//悪化の割合(正なら悪化)
+			boolean higherIsBetter = now.mode.equals("thrpt");
+			double change = (now.score - before.score) / before.score;
+			double worse = higherIsBetter ? -change : change;
+			boolean overlap = higherIsBetter
+					? now.score + now.error >= before.score - before.error
+					: now.score - now.error <= before.score + before.error;
+			String mark = "";
+			if(worse > threshold && !overlap){
+				mark = "  REGRESSION";
+				regressions++;
+			}
+			System.out.println(String.format("%-80s %14.3f %14.3f %+7.1f%% %s%s",
+					entry.getKey(), before.score, now.score, change*100, now.unit, mark));
+		}
+		System.out.println(regressions + " regression(s) over " + Math.round(threshold*100) + "%");
+		System.exit(regressions > 0 ? 1 : 0);
+	}
+
+	/**
+	 * JMHの結果CSVを読み込みます。<br>
+	 * キーは「ベンチマーク名 パラメータ名=値 ...」です。<br>
+	 * @param fileName 結果CSVファイル名
+	 * @return キーと結果の対応
+	 * @throws IOException ファイルが読めない場合
+	 */
+	private static Map<String, Result> read(String fileName) throws IOException
+	{
+		Map<String, Result> results = new LinkedHashMap<String, Result>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(fileName), "UTF-8"));
+		try{
+			List<String> header = split(reader.readLine());
+			String line;
+			while((line = reader.readLine()) != null)
+			{
+				if(line.trim().isEmpty())	continue;
+				List<String> cell = split(line);
+				StringBuilder key = new StringBuilder(cell.get(header.indexOf("Benchmark")));
+				for(int i=0; i<header.size() && i<cell.size(); i++){
+					if(header.get(i).startsWith("Param: "))
+						key.append(' ').append(header.get(i).substring(7)).append('=').append(cell.get(i));
+				}
+				Result result = new Result();
+				result.mode = cell.get(header.indexOf("Mode"));
+				result.score = parse(cell.get(header.indexOf("Score")));
+				result.error = parse(cell.get(header.indexOf("Score Error (99.9%)")));
+				result.unit = cell.get(header.indexOf("Unit"));
+				results.put(key.toString(), result);
+			}
+		}finally{
+			reader.close();
+		}
+		return results;
+	}
+
+	/**
+	 * 数値を読み取ります。NaNや空欄は0とします。
+	 */
+	private static double parse(String value)
+	{
+		try{
+			double result = Double.parseDouble(value);
+			return Double.isNaN(result) ? 0 : result;
+		}catch(NumberFormatException e){
+			return 0;
+		}
+	}
+
+	/**
+	 * ダブルクォートで囲まれたセルを含むCSVの1行を分割します。
+	 */
+	private static List<String> split(String line)
+	{
+		List<String> cells = new ArrayList<String>();
+		StringBuilder cell = new StringBuilder();
+		boolean quoted = false;
+		for(int i=0; i<line.length(); i++)
+		{
+			char c = line.charAt(i);
+			if(quoted){
+				if(c == '"' && i+1 < line.length() && line.charAt(i+1) == '"'){
+					cell.append('"');
+					i++;
+				}else if(c == '"'){
+					quoted = false;
+				}else{
+					cell.append(c);
+				}
+			}else if(c == '"'){
+				quoted = true;
+			}else if(c == ','){
+				cells.add(cell.toString());
+				cell.setLength(0);
+			}else{
+				cell.append(c);
+			}
+		}
+		cells.add(cell.toString());
+		return cells;
+	}
+}
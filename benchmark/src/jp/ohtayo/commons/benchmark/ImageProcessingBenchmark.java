@@ -0,0 +1,115 @@
+package jp.ohtayo.commons.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jp.ohtayo.commons.image.ImageProcessing;
+import jp.ohtayo.commons.random.Random;
+
+/**
+ * ImageProcessingの画像比較とネガポジ反転の各実装のベンチマークです。<br>
+ * 画像の一辺の画素数sizeと、BufferedImageの形式typeを変えて計測します。<br>
+ * ネガポジ反転は画像を書き換えるため、計測のたびに反転を繰り返します。<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@SuppressWarnings("deprecation")
+public class ImageProcessingBenchmark {
+
+	/** 画像の一辺の画素数	*/
+	@Param({"256", "1024"})
+	public int size;
+
+	/** BufferedImageの形式	*/
+	@Param({"INT_RGB", "3BYTE_BGR"})
+	public String type;
+
+	private ImageProcessing image;
+	private BufferedImage target;
+
+	@Setup
+	public void setup()
+	{
+		int imageType = type.equals("3BYTE_BGR") ? BufferedImage.TYPE_3BYTE_BGR : BufferedImage.TYPE_INT_RGB;
+		Random random = new Random(1);
+		BufferedImage source = new BufferedImage(size, size, imageType);
+		target = new BufferedImage(size, size, imageType);
+		for(int h=0; h<size; h++){
+			for(int w=0; w<size; w++){
+				source.setRGB(w, h, random.nextInt());
+				target.setRGB(w, h, random.nextInt());
+			}
+		}
+		image = new ImageProcessing(source);
+	}
+
+	@Benchmark
+	public double compare()
+	{
+		return image.compare(target);
+	}
+
+	@Benchmark
+	public double compareUsingIntArray()
+	{
+		return image.compareUsingIntArray(target);
+	}
+
+	@Benchmark
+	public double compareUsingByteArray()
+	{
+		return image.compareUsingByteArray(target);
+	}
+
+	@Benchmark
+	public double compareUsingGetRGB()
+	{
+		return image.compareUsingGetRGB(target);
+	}
+
+	@Benchmark
+	public BufferedImage negaposi()
+	{
+		image.negaposi();
+		return image.get();
+	}
+
+	@Benchmark
+	public BufferedImage negaposiUsingArray()
+	{
+		image.negaposiUsingArray();
+		return image.get();
+	}
+
+	@Benchmark
+	public BufferedImage negaposiUsingBufferedImagePixelArray()
+	{
+		image.negaposiUsingBufferedImagePixelArray();
+		return image.get();
+	}
+
+	@Benchmark
+	public BufferedImage negaposiUsingBufferedImageEach()
+	{
+		image.negaposiUsingBufferedImageEach();
+		return image.get();
+	}
+}
@@ -0,0 +1,159 @@
+package jp.ohtayo.commons.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jp.ohtayo.commons.io.Csv;
+import jp.ohtayo.commons.io.TimeSeries;
+import jp.ohtayo.commons.random.Random;
+
+/**
+ * CsvとTimeSeriesの読み書き・補間のベンチマークです。<br>
+ * データの行数rowsを変えて計測します。読み書きするファイルは一時ディレクトリに作成します。<br>
+ * 補間は補間方法methodごとに計測します。<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IoBenchmark {
+
+	/** データの列数	*/				private static final int COLUMNS = 10;
+	/** 時刻のフォーマット	*/			private static final String FORMAT = "yyyy/MM/dd HH:mm:ss";
+	/** 粗いデータの間引き間隔	*/		private static final int THIN = 10;
+
+	/**
+	 * 読み書きするCSVファイルです。
+	 */
+	@State(Scope.Benchmark)
+	public static class Files {
+		/** データの行数	*/
+		@Param({"1000", "10000"})
+		public int rows;
+
+		File directory;
+		String csvFile;
+		String timeSeriesFile;
+		String writeFile;
+		double[][] matrix;
+
+		@Setup
+		public void setup() throws IOException
+		{
+			directory = File.createTempFile("commons-benchmark", "");
+			directory.delete();
+			directory.mkdir();
+			csvFile = new File(directory, "matrix.csv").getPath();
+			timeSeriesFile = new File(directory, "timeseries.csv").getPath();
+			writeFile = new File(directory, "write.csv").getPath();
+
+			Random random = new Random(1);
+			matrix = random.matrix(rows, COLUMNS);
+			Csv.write(csvFile, matrix);
+
+			StringBuilder header = new StringBuilder("time");
+			for(int j=1; j<COLUMNS; j++)
+				header.append(",value").append(j);
+			timeSeries(random, rows).write(timeSeriesFile, header.toString());
+		}
+
+		@TearDown
+		public void tearDown()
+		{
+			for(File file : directory.listFiles())
+				file.delete();
+			directory.delete();
+		}
+	}
+
+	/**
+	 * 1秒ごとの時系列データと、THIN秒ごとに間引いた時系列データです。
+	 */
+	@State(Scope.Benchmark)
+	public static class Interpolation {
+		/** データの行数	*/
+		@Param({"1000", "10000"})
+		public int rows;
+
+		/** TimeSeries.interpolateの補間方法	*/
+		@Param({"PREVIOUS_HOLD", "NEAREST_HOLD", "LINEAR_INTERPOLATE"})
+		public String method;
+
+		TimeSeries fine;
+		TimeSeries rough;
+		String interpolateMethod;
+
+		@Setup
+		public void setup()
+		{
+			fine = timeSeries(new Random(1), rows);
+			double[][] roughData = new double[(rows-2)/THIN+2][];
+			for(int i=0; i<rows-1; i+=THIN)
+				roughData[i/THIN] = fine.getRow(i).get();
+			//終了時刻をそろえる
+			roughData[roughData.length-1] = fine.getRow(rows-1).get();
+			rough = new TimeSeries(roughData);
+
+			if(method.equals("NEAREST_HOLD"))				interpolateMethod = TimeSeries.NEAREST_HOLD;
+			else if(method.equals("LINEAR_INTERPOLATE"))	interpolateMethod = TimeSeries.LINEAR_INTERPOLATE;
+			else											interpolateMethod = TimeSeries.PREVIOUS_HOLD;
+		}
+	}
+
+	/**
+	 * 1500000000秒(Unix時間)から1秒ごとの時刻を持つ時系列データを生成します。
+	 * @param random 値の乱数生成器
+	 * @param rows 行数
+	 * @return 時系列データ
+	 */
+	static TimeSeries timeSeries(Random random, int rows)
+	{
+		double[][] data = random.matrix(rows, COLUMNS);
+		for(int i=0; i<rows; i++)
+			data[i][0] = 1500000000 + i;
+		TimeSeries result = new TimeSeries(data);
+		result.setFormat(FORMAT);
+		return result;
+	}
+
+	@Benchmark
+	public double[][] csvRead(Files state)
+	{
+		return Csv.read(state.csvFile);
+	}
+
+	@Benchmark
+	public int csvWrite(Files state)
+	{
+		return Csv.write(state.writeFile, state.matrix);
+	}
+
+	@Benchmark
+	public TimeSeries timeSeriesRead(Files state)
+	{
+		return new TimeSeries(state.timeSeriesFile, 1, FORMAT);
+	}
+
+	@Benchmark
+	public TimeSeries timeSeriesInterpolate(Interpolation state)
+	{
+		return state.fine.interpolate(state.rough, state.interpolateMethod);
+	}
+}
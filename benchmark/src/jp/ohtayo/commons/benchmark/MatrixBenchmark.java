@@ -0,0 +1,66 @@
+package jp.ohtayo.commons.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jp.ohtayo.commons.math.Matrix;
+import jp.ohtayo.commons.random.Random;
+
+/**
+ * Matrixの行列積・行列式・逆行列のベンチマークです。<br>
+ * 正方行列の次数sizeを変えて計測します。<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatrixBenchmark {
+
+	/** 行列の次数	*/
+	@Param({"16", "128", "512"})
+	public int size;
+
+	private Matrix a;
+	private Matrix b;
+
+	@Setup
+	public void setup()
+	{
+		Random random = new Random(1);
+		a = new Matrix(random.matrix(size, size));
+		b = new Matrix(random.matrix(size, size));
+	}
+
+	@Benchmark
+	public Matrix multiply()
+	{
+		return a.multiply(b);
+	}
+
+	@Benchmark
+	public double determinant()
+	{
+		return a.determinant();
+	}
+
+	@Benchmark
+	public Matrix inverse()
+	{
+		return a.inverse();
+	}
+}
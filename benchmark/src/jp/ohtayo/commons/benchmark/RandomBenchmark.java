@@ -0,0 +1,153 @@
+package jp.ohtayo.commons.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jp.ohtayo.commons.random.Random;
+
+/**
+ * Randomの各メソッドのベンチマークです。<br>
+ * 乱数生成手法generator(SFMT, XOR, LCG)ごとに計測します。<br>
+ * 1つずつ値を返すメソッドはGeneratorを、配列・行列を返すメソッドは長さlengthを持つBulkを使います。<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RandomBenchmark {
+
+	/**
+	 * 乱数生成手法を指定した乱数生成器です。
+	 */
+	@State(Scope.Thread)
+	public static class Generator {
+		/** 乱数生成手法	*/
+		@Param({"SFMT", "XOR", "LCG"})
+		public String generator;
+
+		Random random;
+
+		@Setup
+		public void setup()
+		{
+			if(generator.equals("XOR"))			random = new Random(Random.XOR, 1);
+			else if(generator.equals("LCG"))	random = new Random(Random.LCG, 1);
+			else								random = new Random(Random.SFMT, 1);
+		}
+	}
+
+	/**
+	 * 配列・行列を生成するメソッド用の乱数生成器です。
+	 */
+	@State(Scope.Thread)
+	public static class Bulk extends Generator {
+		/** 生成する配列の長さ(行列は length/100 行×100列)	*/
+		@Param({"1000", "100000"})
+		public int length;
+
+		byte[] bytes;
+		double[] array;
+
+		@Setup
+		public void allocate()
+		{
+			bytes = new byte[length];
+			array = new double[length];
+			for(int i=0; i<length; i++)
+				array[i] = i;
+		}
+	}
+
+	@Benchmark
+	public double nextDouble(Generator state)
+	{
+		return state.random.nextDouble();
+	}
+
+	@Benchmark
+	public float nextFloat(Generator state)
+	{
+		return state.random.nextFloat();
+	}
+
+	@Benchmark
+	public int nextInt(Generator state)
+	{
+		return state.random.nextInt();
+	}
+
+	@Benchmark
+	public int nextIntBounded(Generator state)
+	{
+		return state.random.nextInt(1000);
+	}
+
+	@Benchmark
+	public boolean nextBoolean(Generator state)
+	{
+		return state.random.nextBoolean();
+	}
+
+	@Benchmark
+	public double randn(Generator state)
+	{
+		return state.random.randn();
+	}
+
+	@Benchmark
+	public String string(Generator state)
+	{
+		return state.random.string(16);
+	}
+
+	@Benchmark
+	public byte[] nextBytes(Bulk state)
+	{
+		state.random.nextBytes(state.bytes);
+		return state.bytes;
+	}
+
+	@Benchmark
+	public double[] array(Bulk state)
+	{
+		return state.random.array(state.length);
+	}
+
+	@Benchmark
+	public double[][] matrix(Bulk state)
+	{
+		return state.random.matrix(state.length/100, 100);
+	}
+
+	@Benchmark
+	public double[] arrayNormal(Bulk state)
+	{
+		return state.random.arrayNormal(state.length);
+	}
+
+	@Benchmark
+	public double[][] matrixNormal(Bulk state)
+	{
+		return state.random.matrixNormal(state.length/100, 100);
+	}
+
+	@Benchmark
+	public double[] shuffle(Bulk state)
+	{
+		return state.random.shuffle(state.array);
+	}
+}
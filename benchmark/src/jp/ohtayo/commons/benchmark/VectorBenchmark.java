@@ -0,0 +1,132 @@
+package jp.ohtayo.commons.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jp.ohtayo.commons.math.Vector;
+import jp.ohtayo.commons.random.Random;
+
+/**
+ * Vectorの統計量計算のベンチマークです。<br>
+ * ベクトルの長さlengthを変えて計測します。<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorBenchmark {
+
+	/** ベクトルの長さ	*/
+	@Param({"1000", "100000", "1000000"})
+	public int length;
+
+	private Vector vector;
+	private Vector other;
+
+	@Setup
+	public void setup()
+	{
+		Random random = new Random(1);
+		vector = new Vector(random.array(length));
+		other = new Vector(random.array(length));
+	}
+
+	@Benchmark
+	public double sum()
+	{
+		return vector.sum();
+	}
+
+	@Benchmark
+	public double mean()
+	{
+		return vector.mean();
+	}
+
+	@Benchmark
+	public double max()
+	{
+		return vector.max();
+	}
+
+	@Benchmark
+	public double min()
+	{
+		return vector.min();
+	}
+
+	@Benchmark
+	public double norm()
+	{
+		return vector.norm();
+	}
+
+	@Benchmark
+	public double innerProduct()
+	{
+		return vector.innerProduct(other);
+	}
+
+	@Benchmark
+	public double median()
+	{
+		return vector.median();
+	}
+
+	@Benchmark
+	public double variance()
+	{
+		return vector.variance();
+	}
+
+	@Benchmark
+	public double standardDeviation()
+	{
+		return vector.standardDeviation();
+	}
+
+	@Benchmark
+	public double unbiasedVariance()
+	{
+		return vector.unbiasedVariance();
+	}
+
+	@Benchmark
+	public Vector standardize()
+	{
+		return vector.standardize();
+	}
+
+	@Benchmark
+	public Vector normalize()
+	{
+		return vector.normalize();
+	}
+
+	@Benchmark
+	public int[] sort()
+	{
+		return new Vector(vector).sort();
+	}
+
+	@Benchmark
+	public int[] argsort()
+	{
+		return vector.argsort();
+	}
+}
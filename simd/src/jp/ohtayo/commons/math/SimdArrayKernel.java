@@ -0,0 +1,140 @@
+package jp.ohtayo.commons.math;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * jdk.incubator.vectorのDoubleVectorで計算する配列カーネルです。<br>
+ * CPUが対応する最大のSIMD幅(AVX2なら4要素、AVX-512なら8要素)で計算し、端数は1要素ずつ計算します。<br>
+ * 和と内積は2本のSIMDアキュムレータに分けて加算するため、ArrayKernelとは加算の順序が異なります。<br>
+ * コンパイル・実行には--add-modules jdk.incubator.vectorが必要です。
+ * このクラスが読み込めない場合はArrayKernelが使われます。<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+final class SimdArrayKernel extends ArrayKernel {
+
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+	/**
+	 * SIMDカーネルを生成します。
+	 * @throws UnsupportedOperationException SIMD幅が1要素でSIMD化の効果がない場合
+	 */
+	SimdArrayKernel()
+	{
+		if(SPECIES.length() < 2)
+			throw new UnsupportedOperationException("no SIMD support for double");
+	}
+
+	@Override
+	String name()
+	{
+		return "simd(" + SPECIES.length() + ")";
+	}
+
+	@Override
+	void plus(double[] a, int ia, double[] b, int ib, double[] o, int io, int length)
+	{
+		int i = 0;
+		for(int bound=SPECIES.loopBound(length); i<bound; i+=SPECIES.length())
+			DoubleVector.fromArray(SPECIES, a, ia+i).add(DoubleVector.fromArray(SPECIES, b, ib+i)).intoArray(o, io+i);
+		for(; i<length; i++)
+			o[io+i] = a[ia+i]+b[ib+i];
+	}
+	@Override
+	void minus(double[] a, int ia, double[] b, int ib, double[] o, int io, int length)
+	{
+		int i = 0;
+		for(int bound=SPECIES.loopBound(length); i<bound; i+=SPECIES.length())
+			DoubleVector.fromArray(SPECIES, a, ia+i).sub(DoubleVector.fromArray(SPECIES, b, ib+i)).intoArray(o, io+i);
+		for(; i<length; i++)
+			o[io+i] = a[ia+i]-b[ib+i];
+	}
+	@Override
+	void multiply(double[] a, int ia, double[] b, int ib, double[] o, int io, int length)
+	{
+		int i = 0;
+		for(int bound=SPECIES.loopBound(length); i<bound; i+=SPECIES.length())
+			DoubleVector.fromArray(SPECIES, a, ia+i).mul(DoubleVector.fromArray(SPECIES, b, ib+i)).intoArray(o, io+i);
+		for(; i<length; i++)
+			o[io+i] = a[ia+i]*b[ib+i];
+	}
+	@Override
+	void division(double[] a, int ia, double[] b, int ib, double[] o, int io, int length)
+	{
+		int i = 0;
+		for(int bound=SPECIES.loopBound(length); i<bound; i+=SPECIES.length())
+			DoubleVector.fromArray(SPECIES, a, ia+i).div(DoubleVector.fromArray(SPECIES, b, ib+i)).intoArray(o, io+i);
+		for(; i<length; i++)
+			o[io+i] = a[ia+i]/b[ib+i];
+	}
+	@Override
+	void plus(double[] a, int ia, double value, double[] o, int io, int length)
+	{
+		int i = 0;
+		for(int bound=SPECIES.loopBound(length); i<bound; i+=SPECIES.length())
+			DoubleVector.fromArray(SPECIES, a, ia+i).add(value).intoArray(o, io+i);
+		for(; i<length; i++)
+			o[io+i] = a[ia+i]+value;
+	}
+	@Override
+	void minus(double[] a, int ia, double value, double[] o, int io, int length)
+	{
+		int i = 0;
+		for(int bound=SPECIES.loopBound(length); i<bound; i+=SPECIES.length())
+			DoubleVector.fromArray(SPECIES, a, ia+i).sub(value).intoArray(o, io+i);
+		for(; i<length; i++)
+			o[io+i] = a[ia+i]-value;
+	}
+	@Override
+	void multiply(double[] a, int ia, double value, double[] o, int io, int length)
+	{
+		int i = 0;
+		for(int bound=SPECIES.loopBound(length); i<bound; i+=SPECIES.length())
+			DoubleVector.fromArray(SPECIES, a, ia+i).mul(value).intoArray(o, io+i);
+		for(; i<length; i++)
+			o[io+i] = a[ia+i]*value;
+	}
+	@Override
+	void division(double[] a, int ia, double value, double[] o, int io, int length)
+	{
+		int i = 0;
+		for(int bound=SPECIES.loopBound(length); i<bound; i+=SPECIES.length())
+			DoubleVector.fromArray(SPECIES, a, ia+i).div(value).intoArray(o, io+i);
+		for(; i<length; i++)
+			o[io+i] = a[ia+i]/value;
+	}
+
+	@Override
+	double sum(double[] a, int ia, int length)
+	{
+		int step = 2*SPECIES.length();
+		DoubleVector sum0 = DoubleVector.zero(SPECIES), sum1 = DoubleVector.zero(SPECIES);
+		int i = 0;
+		for(int bound=length-length%step; i<bound; i+=step){
+			sum0 = sum0.add(DoubleVector.fromArray(SPECIES, a, ia+i));
+			sum1 = sum1.add(DoubleVector.fromArray(SPECIES, a, ia+i+SPECIES.length()));
+		}
+		double sum = sum0.add(sum1).reduceLanes(VectorOperators.ADD);
+		for(; i<length; i++)
+			sum += a[ia+i];
+		return sum;
+	}
+	@Override
+	double dot(double[] a, int ia, double[] b, int ib, int length)
+	{
+		int step = 2*SPECIES.length();
+		DoubleVector sum0 = DoubleVector.zero(SPECIES), sum1 = DoubleVector.zero(SPECIES);
+		int i = 0;
+		for(int bound=length-length%step; i<bound; i+=step){
+			sum0 = sum0.add(DoubleVector.fromArray(SPECIES, a, ia+i).mul(DoubleVector.fromArray(SPECIES, b, ib+i)));
+			sum1 = sum1.add(DoubleVector.fromArray(SPECIES, a, ia+i+SPECIES.length())
+					.mul(DoubleVector.fromArray(SPECIES, b, ib+i+SPECIES.length())));
+		}
+		double sum = sum0.add(sum1).reduceLanes(VectorOperators.ADD);
+		for(; i<length; i++)
+			sum += a[ia+i]*b[ib+i];
+		return sum;
+	}
+}
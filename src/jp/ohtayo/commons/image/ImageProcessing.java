@@ -18,9 +18,9 @@ import java.util.ArrayList;
 
 import jp.ohtayo.commons.util.Cast;
 import jp.ohtayo.commons.log.Logging;
+import jp.ohtayo.commons.math.FloatMatrix;
 import jp.ohtayo.commons.math.Matrix;
 import jp.ohtayo.commons.math.Numeric;
-import jp.ohtayo.commons.math.Vector;
 
 import javax.imageio.ImageIO;
 
@@ -175,13 +175,20 @@ public class ImageProcessing {
 	 */
 	public BufferedImage convolution( Matrix operator,int type)
 	{
-		//オペレータをfloat[]に変換する準備をする
-		Vector temp = new Vector(0);
-		int size = operator.length();
-		for(int i=0; i<size; i++) temp = temp.add(operator.getRow(i));
+		//オペレータを単精度に変換して畳み込む
+		return convolution(new FloatMatrix(operator), type);
+	}
 
+	/**
+	 * BufferedImageの画像を単精度のオペレータで畳み込みする
+	 * @param operator 畳み込みオペレータ
+	 * @param type エッジ処理 0：処理しない、1:周辺は強制的にゼロ(黒)
+	 * @return 畳み込まれた画像
+	 */
+	public BufferedImage convolution( FloatMatrix operator,int type)
+	{
 		//畳み込む
-		Kernel kernel=new Kernel(size,size,Cast.doubleToFloat(temp.get()));
+		Kernel kernel=new Kernel(operator.columnLength(),operator.length(),operator.toArray());
 		ConvolveOp convolveOp;
 		if(type==1) {
 			convolveOp=new ConvolveOp(kernel,ConvolveOp.EDGE_ZERO_FILL,null);
@@ -352,7 +359,7 @@ public class ImageProcessing {
 		//画像サイズが違ったらNaNを返す
 		if(!isSameSize(target))	return Double.NaN;
 
-		//画像をint配列に変換42222,42317
+		//画像をint配列に変換
 		int[] buf1 = convertIntARGB();
 		int[] buf2 = new ImageProcessing(target).convertIntARGB();
 
@@ -389,7 +396,7 @@ public class ImageProcessing {
 		//画像サイズが違ったらNaNを返す
 		if(!isSameSize(target))	return Double.NaN;
 
-		//画像をbyte配列に変換38255,34165,ImageUtility.convert(
+		//画像をbyte配列に変換
 		byte[] buf1 = convertByteARGB();
 		byte[] buf2 = new ImageProcessing(target).convertByteARGB();
 
@@ -425,7 +432,7 @@ public class ImageProcessing {
 		//画像サイズが違ったらNaNを返す
 		if(!isSameSize(target))	return Double.NaN;
 
-		//画像をbyte配列に変換45773,57137
+		//画像をbyte配列に変換
 		DataBufferByte buf1 = convertARGB();
 		DataBufferByte buf2 = new ImageProcessing(target).convertARGB();
 
@@ -0,0 +1,439 @@
+package jp.ohtayo.commons.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import jp.ohtayo.commons.log.Logging;
+import jp.ohtayo.commons.math.Matrix;
+import jp.ohtayo.commons.math.Vector;
+import jp.ohtayo.commons.util.DirectBuffers;
+
+/**
+ * 行列をバイナリ形式で読み書きするクラスです。<br>
+ * ファイルは32バイトのヘッダと、行優先に並べたリトルエンディアンのdoubleからなります。<br>
+ * ヘッダ：マジック"OMTX"(4バイト)、バージョン(int)、行数(long)、列数(int)、予約(12バイト)。整数もリトルエンディアンです。<br>
+ * 書込み中のファイルの行数は-1で、正常に閉じたときに実際の行数を書き込むため、書込みが途中で止まったファイルはopen()で開けません。<br>
+ * open()はファイルをFileChannel.mapでメモリマップするだけなので、ファイルの大きさによらずすぐに開け、
+ * 要素は読み出したページだけがOSによって読み込まれます。<br>
+ * 範囲外の行・列へのアクセスはIndexOutOfBoundsExceptionになります。<br>
+ * 書込みはWriterで1行ずつ(またはMatrixの1行ずつ)ファイルに流すため、全体のコピーをメモリに作りません。
+ * TimeSeriesもMatrixとして書き込めます(時刻の列はUnixTimeのまま保存されます)。<br>
+ * 例：<br>
+ * 		MatrixFile.write("data.omtx", matrix);<br>
+ * 		MatrixFile file = MatrixFile.open("data.omtx");<br>
+ * 		Vector row = file.getRow(123456789L);<br>
+ * 		file.close();<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+public class MatrixFile implements AutoCloseable {
+
+	/** マジック("OMTX"をリトルエンディアンのintとして読んだ値)	*/	static final int MAGIC = 0x58544D4F;
+	/** 形式のバージョン								*/	static final int VERSION = 1;
+	/** ヘッダのバイト数								*/	static final int HEADER = 32;
+	/** 1回にマップする要素数の2の対数(1GiB)				*/	static final int CHUNK_SHIFT = 27;
+	/** 1回にマップする要素数							*/	static final int CHUNK = 1 << CHUNK_SHIFT;
+
+	/** 行数				*/	private final long rows;
+	/** 列数				*/	private final int columns;
+	/** ファイル				*/	private FileChannel channel;
+	/** マップしたバッファ	*/	private MappedByteBuffer[] buffers;
+	/** マップした要素		*/	private DoubleBuffer[] chunks;
+
+	/**
+	 * ファイルの要素をマップします。
+	 */
+	private MatrixFile(FileChannel channel, long rows, int columns) throws IOException
+	{
+		this.channel = channel;
+		this.rows = rows;
+		this.columns = columns;
+		long length = rows*columns;
+		int count = (int)((length + CHUNK - 1) >>> CHUNK_SHIFT);
+		buffers = new MappedByteBuffer[count];
+		chunks = new DoubleBuffer[count];
+		for(int c=0; c<count; c++){
+			long from = (long)c << CHUNK_SHIFT;
+			long size = Math.min(CHUNK, length-from);
+			buffers[c] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER + from*8, size*8);
+			chunks[c] = buffers[c].order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+		}
+	}
+
+	//------------------------------------------------------------------------//
+	// 読込                                                                   //
+	//------------------------------------------------------------------------//
+	/**
+	 * バイナリ行列ファイルをメモリマップして開きます。<br>
+	 * 要素はアクセスしたときに読み込まれます。使い終わったらclose()します。<br>
+	 * @param fileName ファイル名
+	 * @return 開いたファイル。形式が異なる、または読めない場合はnull
+	 */
+	public static MatrixFile open(String fileName)
+	{
+		FileChannel channel = null;
+		try{
+			channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+			ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+			while(header.hasRemaining() && channel.read(header) >= 0);
+			header.flip();
+			if(header.remaining() < HEADER || header.getInt() != MAGIC || header.getInt() != VERSION){
+				Logging.logger.severe("not a matrix file: " + fileName);
+				channel.close();
+				return null;
+			}
+			long rows = header.getLong();
+			int columns = header.getInt();
+			if(rows < 0 || columns < 0 || channel.size() < size(rows, columns)){
+				Logging.logger.severe("matrix file is truncated: " + fileName);
+				channel.close();
+				return null;
+			}
+			return new MatrixFile(channel, rows, columns);
+		}catch(IOException e){
+			Logging.logger.severe(e.toString());
+			try{
+				if(channel != null)	channel.close();
+			}catch(IOException ignored){
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * 行数・列数からファイルのバイト数を求めます。
+	 * @return バイト数。longで表せない場合はLong.MAX_VALUE(どのファイルよりも大きい)
+	 */
+	private static long size(long rows, int columns)
+	{
+		try{
+			return Math.addExact(HEADER, Math.multiplyExact(Math.multiplyExact(rows, (long)columns), 8L));
+		}catch(ArithmeticException e){
+			return Long.MAX_VALUE;
+		}
+	}
+
+	/**
+	 * バイナリ行列ファイルを読み込み、Matrixで返します。
+	 * @param fileName ファイル名
+	 * @return 行列。読めない場合や要素数が配列の上限を超える場合はnull
+	 */
+	public static Matrix read(String fileName)
+	{
+		MatrixFile file = open(fileName);
+		if(file == null)	return null;
+		Matrix result = file.toMatrix();
+		file.close();
+		return result;
+	}
+
+	/**
+	 * 行数を返します。
+	 * @return 行数
+	 */
+	public long length()
+	{
+		return rows;
+	}
+	/**
+	 * 列数を返します。
+	 * @return 列数
+	 */
+	public int columnLength()
+	{
+		return columns;
+	}
+	/**
+	 * 要素を返します。
+	 * @param row 行番号
+	 * @param column 列番号
+	 * @return 要素の値
+	 */
+	public double get(long row, int column)
+	{
+		checkRow(row);
+		checkColumn(column);
+		long index = row*columns + column;
+		return chunks()[(int)(index >>> CHUNK_SHIFT)].get((int)(index & (CHUNK-1)));
+	}
+	/**
+	 * 指定行をVectorとして読み込みます。
+	 * @param row 行番号
+	 * @return 行のベクトル
+	 */
+	public Vector getRow(long row)
+	{
+		checkRow(row);
+		double[] result = new double[columns];
+		read(row*columns, result, 0, columns);
+		return new Vector(result);
+	}
+	/**
+	 * 行fromから連続するcount行をMatrixとして読み込みます。
+	 * @param from 開始行
+	 * @param count 行数
+	 * @return 行のブロック
+	 */
+	public Matrix getRows(long from, int count)
+	{
+		checkRows(from, count);
+		double[][] result = new double[count][columns];
+		for(int i=0; i<count; i++)
+			read((from+i)*columns, result[i], 0, columns);
+		return new Matrix(result);
+	}
+	/**
+	 * ファイル全体をMatrixとして読み込みます。
+	 * @return 行列。要素数が配列の上限を超える場合はnull
+	 */
+	public Matrix toMatrix()
+	{
+		if(rows > Integer.MAX_VALUE - 8 || rows*columns > Integer.MAX_VALUE - 8){
+			Logging.logger.severe("matrix is too large for a java array");
+			return null;
+		}
+		return getRows(0, (int)rows);
+	}
+
+	/**
+	 * [from, from+count)の要素をdestination[position..]に読み込みます。
+	 */
+	private void read(long from, double[] destination, int position, int count)
+	{
+		DoubleBuffer[] chunks = chunks();
+		while(count > 0){
+			DoubleBuffer chunk = chunks[(int)(from >>> CHUNK_SHIFT)].duplicate();
+			int start = (int)(from & (CHUNK-1));
+			int n = Math.min(count, chunk.capacity()-start);
+			if(n <= 0)	throw new IndexOutOfBoundsException("element " + from + " out of bounds for length " + rows*columns);
+			chunk.position(start);
+			chunk.get(destination, position, n);
+			from += n;
+			position += n;
+			count -= n;
+		}
+	}
+
+	/**
+	 * 行番号が[0, rows)の範囲にあるか確認します。
+	 */
+	private void checkRow(long row)
+	{
+		if(row < 0 || row >= rows)
+			throw new IndexOutOfBoundsException("row " + row + " out of bounds for length " + rows);
+	}
+	/**
+	 * 列番号が[0, columns)の範囲にあるか確認します。
+	 */
+	private void checkColumn(int column)
+	{
+		if(column < 0 || column >= columns)
+			throw new IndexOutOfBoundsException("column " + column + " out of bounds for length " + columns);
+	}
+	/**
+	 * 行fromから連続するcount行が[0, rows)の範囲にあるか確認します。
+	 */
+	private void checkRows(long from, long count)
+	{
+		if(from < 0 || count < 0 || from > rows - count)
+			throw new IndexOutOfBoundsException("rows [" + from + ", " + from + " + " + count + ") out of bounds for length " + rows);
+	}
+
+	private DoubleBuffer[] chunks()
+	{
+		if(chunks == null)	throw new IllegalStateException("matrix file is already closed");
+		return chunks;
+	}
+
+	/**
+	 * ファイルを閉じ、マップしたメモリを直ちに解放します。<br>
+	 * 解放後はファイルを上書き・削除できます。解放できないJavaではGCで回収されたときに解放されます。<br>
+	 * close()と並行して他のスレッドから読み込まないでください。<br>
+	 */
+	@Override
+	public void close()
+	{
+		MappedByteBuffer[] released = buffers;
+		chunks = null;
+		buffers = null;
+		if(released != null){
+			for(MappedByteBuffer buffer : released){
+				if(!DirectBuffers.release(buffer))	break;	//解放できない場合はGCに任せる
+			}
+		}
+		try{
+			if(channel != null)	channel.close();
+		}catch(IOException e){
+			Logging.logger.severe(e.toString());
+		}
+		channel = null;
+	}
+
+	//------------------------------------------------------------------------//
+	// 書込                                                                   //
+	//------------------------------------------------------------------------//
+	/**
+	 * 行列をバイナリ行列ファイルに書き込みます。<br>
+	 * 1行ずつファイルに書き出すため、行列全体のコピーは作りません。TimeSeriesも書き込めます。<br>
+	 * @param fileName ファイル名
+	 * @param matrix 書き込む行列
+	 * @return 成功：0、失敗：-1
+	 */
+	public static int write(String fileName, Matrix matrix)
+	{
+		Writer writer = null;
+		try{
+			writer = new Writer(fileName, matrix.columnLength());
+			writer.writeRows(matrix);
+			writer.close();
+			return 0;
+		}catch(IOException e){
+			Logging.logger.severe(e.toString());
+			if(writer != null)	writer.abort();
+			return -1;
+		}
+	}
+
+	/**
+	 * バイナリ行列ファイルに行を順に書き込むクラスです。<br>
+	 * 行数はclose()でヘッダに書き込むため、書き込む行数を事前に知る必要はありません。<br>
+	 * 書込みに失敗した場合はclose()ではなくabort()を呼ぶと、書きかけのファイルを削除します。<br>
+	 */
+	public static class Writer implements AutoCloseable {
+
+		/** 書込みバッファのバイト数	*/	private static final int BUFFER = 1 << 20;
+
+		/** ファイル名		*/	private final Path path;
+		/** 列数			*/	private final int columns;
+		/** 書き込んだ行数	*/	private long rows;
+		/** ファイル			*/	private FileChannel channel;
+		/** 書込みバッファ	*/	private final ByteBuffer buffer;
+
+		/**
+		 * ファイルを作成して書込みを開始します。既存のファイルは上書きします。
+		 * @param fileName ファイル名
+		 * @param columns 列数
+		 * @throws IOException ファイルを作成できない場合
+		 */
+		public Writer(String fileName, int columns) throws IOException
+		{
+			this.path = Paths.get(fileName);
+			this.columns = columns;
+			buffer = ByteBuffer.allocateDirect(Math.max(BUFFER, columns*8)).order(ByteOrder.LITTLE_ENDIAN);
+			channel = FileChannel.open(path,
+					StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+			try{
+				writeHeader(-1);
+				channel.position(HEADER);
+			}catch(IOException e){
+				abort();
+				throw e;
+			}
+		}
+
+		/**
+		 * 1行を書き込みます。
+		 * @param row 行の値(長さは列数と同じ)
+		 * @throws IOException 書き込めない場合
+		 */
+		public void writeRow(double[] row) throws IOException
+		{
+			if(row.length != columns)	throw new IllegalArgumentException("row length " + row.length + " != columns " + columns);
+			if(buffer.remaining() < columns*8)	flush();
+			buffer.asDoubleBuffer().put(row);
+			buffer.position(buffer.position() + columns*8);
+			rows++;
+		}
+		/**
+		 * 1行を書き込みます。
+		 * @param row 行の値(長さは列数と同じ)
+		 * @throws IOException 書き込めない場合
+		 */
+		public void writeRow(Vector row) throws IOException
+		{
+			writeRow(row.get());
+		}
+		/**
+		 * 行列の全ての行を順に書き込みます。
+		 * @param matrix 行列(列数が同じ)
+		 * @throws IOException 書き込めない場合
+		 */
+		public void writeRows(Matrix matrix) throws IOException
+		{
+			for(int i=0; i<matrix.length(); i++)
+				writeRow(matrix.getRow(i).get());
+		}
+
+		/**
+		 * これまでに書き込んだ行数を返します。
+		 * @return 行数
+		 */
+		public long length()
+		{
+			return rows;
+		}
+
+		private void flush() throws IOException
+		{
+			buffer.flip();
+			while(buffer.hasRemaining())
+				channel.write(buffer);
+			buffer.clear();
+		}
+		/**
+		 * ヘッダを書き込みます。書込み中は行数を-1にしておきます。
+		 */
+		private void writeHeader(long rows) throws IOException
+		{
+			ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putLong(rows).putInt(columns);
+			header.clear();
+			long position = 0;
+			while(header.hasRemaining())
+				position += channel.write(header, position);
+		}
+
+		/**
+		 * 残りのデータと行数を書き込んでファイルを閉じます。
+		 * @throws IOException 書き込めない場合
+		 */
+		@Override
+		public void close() throws IOException
+		{
+			if(channel == null)	return;
+			try{
+				flush();
+				writeHeader(rows);
+			}finally{
+				channel.close();
+				channel = null;
+			}
+		}
+		/**
+		 * 書込みを中止し、ヘッダを書かずにファイルを閉じて削除します。<br>
+		 * close()が失敗した後に呼んでも、書きかけのファイルを削除します。<br>
+		 */
+		public void abort()
+		{
+			try{
+				if(channel != null)	channel.close();
+			}catch(IOException e){
+				Logging.logger.severe(e.toString());
+			}
+			channel = null;
+			try{
+				Files.deleteIfExists(path);
+			}catch(IOException e){
+				Logging.logger.severe(e.toString());
+			}
+		}
+	}
+}
@@ -7,6 +7,7 @@ import java.util.Date;
 
 import jp.ohtayo.commons.math.Matrix;
 import jp.ohtayo.commons.math.Vector;
+import jp.ohtayo.commons.math.VectorBuilder;
 import jp.ohtayo.commons.util.Cast;
 import jp.ohtayo.commons.log.Logging;
 
@@ -56,9 +57,7 @@ public class TimeSeries extends Matrix {
 	 */
 	public TimeSeries(TimeSeries time)
 	{
-		super(1,1);
-		matrix = time.get();
-		
+		super(time);
 	}
 	
 	/**
@@ -102,7 +101,7 @@ public class TimeSeries extends Matrix {
 	public void readOld(String fileName, int header, String format)
 	{
 		String[][] string = Csv.readString(fileName, header, 0);
-		matrix = new Matrix(string.length, string[0].length).get();
+		allocate(string.length, string[0].length);
 		
 		for(int i=0; i<string.length; i++)
 		{
@@ -131,7 +130,7 @@ public class TimeSeries extends Matrix {
 	{
 		this.format = format;
 		String[][] string = Csv.readString(fileName, header, 0);
-		matrix = new Matrix(string.length, string[0].length).get();
+		allocate(string.length, string[0].length);
 		
 		for(int i=0; i<string.length; i++)
 		{
@@ -215,7 +214,7 @@ public class TimeSeries extends Matrix {
 		int halfPoint = Math.round(point/2);
 		
 		double[] result = new double[this.length()];
-		Matrix resultMatrix = new Matrix(this.get());
+		Matrix resultMatrix = new Matrix(this);
 		
 		//前端数処理
 		for(int i=0; i<halfPoint; i++)
@@ -384,17 +383,17 @@ public class TimeSeries extends Matrix {
 		
 		//直近値ホールドの場合
 		if( method == NEAREST_HOLD ){
-			return new TimeSeries(nearestHoldInterpolation( new Matrix(this.get()), new Matrix(rough.get()) ));
+			return new TimeSeries(nearestHoldInterpolation( this, rough ));
 		}
 		//前回値ホールド
 		else if( method == PREVIOUS_HOLD )
 		{
-			return new TimeSeries(previousHoldInterpolation( new Matrix(this.get()), new Matrix(rough.get()) ));
+			return new TimeSeries(previousHoldInterpolation( this, rough ));
 		}
 		//線形ホールド
 		else if(method == LINEAR_INTERPOLATE )
 		{
-			return new TimeSeries(linearInterpolation( new Matrix(this.get()), new Matrix(rough.get()) ));
+			return new TimeSeries(linearInterpolation( this, rough ));
 		}
 		else {
 			Logging.logger.severe("method is abnormal");
@@ -408,7 +407,7 @@ public class TimeSeries extends Matrix {
 		Matrix fineRough = new Matrix(fine.length(), rough.columnLength());		//補間したデータ用意
 		int[] minIndex = new int[1];	//直近時刻のインデックス
 		minIndex[0] = 0;
-		Vector roughDataIndex = new Vector(0);
+		VectorBuilder roughDataIndexBuilder = new VectorBuilder(rough.length());
 		Vector fineTime = fine.getColumn(0);	//粗いデータの時刻リスト
 
 		//時刻はセットしておく
@@ -423,8 +422,9 @@ public class TimeSeries extends Matrix {
 				fineRough.set(minIndex[0], j, rough.get(i, j));
 			//データがあったインデックスを保存
 			//roughDataIndex = Vector.add(roughDataIndex, Cast.intToDouble(minIndex));
-			roughDataIndex = roughDataIndex.add(new Vector(Cast.intToDouble(minIndex)));
+			roughDataIndexBuilder.add(minIndex[0]);
 		}
+		Vector roughDataIndex = roughDataIndexBuilder.toVector();
 		
 		//サンプルの存在しないところを、存在するデータから線形補間する
 		for(int i=0; i<roughDataIndex.length(); i++)
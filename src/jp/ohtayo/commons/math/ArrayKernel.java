@@ -0,0 +1,134 @@
+package jp.ohtayo.commons.math;
+
+/**
+ * VectorとMatrixの要素ごとの演算と集計を行う配列カーネルです。<br>
+ * このクラスは単純なループで計算します。<br>
+ * simd/srcのSimdArrayKernel(jdk.incubator.vectorを使用)がクラスパスにあり、
+ * 実行時に--add-modules jdk.incubator.vectorが指定されていれば、INSTANCEにはそちらが選ばれます。<br>
+ * システムプロパティjp.ohtayo.commons.simd=falseを指定すると常にこのクラスを使います。<br>
+ * 要素ごとの演算は各要素を1回だけ丸めるので、SIMDでも結果は完全に一致します。<br>
+ * 和と内積は加算の順序が変わるため一致せず、SIMDとこのクラスの差はおおよそ
+ * TOLERANCE×要素数×Σ|a_i|(内積ではΣ|a_i×b_i|)以下です。<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+class ArrayKernel {
+
+	/** 和・内積の1要素あたりの許容誤差(倍精度の丸め誤差2^-53の2倍)	*/	static final double TOLERANCE = 0x1p-52;
+
+	/** 実行時に選択したカーネル	*/	static final ArrayKernel INSTANCE = load();
+
+	/**
+	 * 使用するカーネルを選択します。<br>
+	 * SIMDカーネルが読み込めない場合(クラスがない、モジュールがない、SIMD幅が1)はこのクラスを使います。<br>
+	 */
+	private static ArrayKernel load()
+	{
+		if(!Boolean.parseBoolean(System.getProperty("jp.ohtayo.commons.simd", "true")))
+			return new ArrayKernel();
+		try{
+			return (ArrayKernel)Class.forName("jp.ohtayo.commons.math.SimdArrayKernel").getDeclaredConstructor().newInstance();
+		}catch(ReflectiveOperationException e){
+			return new ArrayKernel();
+		}catch(LinkageError e){
+			return new ArrayKernel();
+		}catch(RuntimeException e){
+			return new ArrayKernel();
+		}
+	}
+
+	/**
+	 * カーネルの名前を返します。
+	 * @return 名前
+	 */
+	String name()
+	{
+		return "scalar";
+	}
+
+	/**
+	 * o[io+i] = a[ia+i]+b[ib+i] (i=0..length-1)を計算します。
+	 */
+	void plus(double[] a, int ia, double[] b, int ib, double[] o, int io, int length)
+	{
+		for(int i=0; i<length; i++)
+			o[io+i] = a[ia+i]+b[ib+i];
+	}
+	/**
+	 * o[io+i] = a[ia+i]-b[ib+i] (i=0..length-1)を計算します。
+	 */
+	void minus(double[] a, int ia, double[] b, int ib, double[] o, int io, int length)
+	{
+		for(int i=0; i<length; i++)
+			o[io+i] = a[ia+i]-b[ib+i];
+	}
+	/**
+	 * o[io+i] = a[ia+i]*b[ib+i] (i=0..length-1)を計算します。
+	 */
+	void multiply(double[] a, int ia, double[] b, int ib, double[] o, int io, int length)
+	{
+		for(int i=0; i<length; i++)
+			o[io+i] = a[ia+i]*b[ib+i];
+	}
+	/**
+	 * o[io+i] = a[ia+i]/b[ib+i] (i=0..length-1)を計算します。
+	 */
+	void division(double[] a, int ia, double[] b, int ib, double[] o, int io, int length)
+	{
+		for(int i=0; i<length; i++)
+			o[io+i] = a[ia+i]/b[ib+i];
+	}
+	/**
+	 * o[io+i] = a[ia+i]+value (i=0..length-1)を計算します。
+	 */
+	void plus(double[] a, int ia, double value, double[] o, int io, int length)
+	{
+		for(int i=0; i<length; i++)
+			o[io+i] = a[ia+i]+value;
+	}
+	/**
+	 * o[io+i] = a[ia+i]-value (i=0..length-1)を計算します。
+	 */
+	void minus(double[] a, int ia, double value, double[] o, int io, int length)
+	{
+		for(int i=0; i<length; i++)
+			o[io+i] = a[ia+i]-value;
+	}
+	/**
+	 * o[io+i] = a[ia+i]*value (i=0..length-1)を計算します。
+	 */
+	void multiply(double[] a, int ia, double value, double[] o, int io, int length)
+	{
+		for(int i=0; i<length; i++)
+			o[io+i] = a[ia+i]*value;
+	}
+	/**
+	 * o[io+i] = a[ia+i]/value (i=0..length-1)を計算します。
+	 */
+	void division(double[] a, int ia, double value, double[] o, int io, int length)
+	{
+		for(int i=0; i<length; i++)
+			o[io+i] = a[ia+i]/value;
+	}
+
+	/**
+	 * a[ia..ia+length-1]の和を返します。
+	 */
+	double sum(double[] a, int ia, int length)
+	{
+		double sum = 0;
+		for(int i=0; i<length; i++)
+			sum += a[ia+i];
+		return sum;
+	}
+	/**
+	 * a[ia..ia+length-1]とb[ib..ib+length-1]の内積を返します。
+	 */
+	double dot(double[] a, int ia, double[] b, int ib, int length)
+	{
+		double sum = 0;
+		for(int i=0; i<length; i++)
+			sum += a[ia+i]*b[ib+i];
+		return sum;
+	}
+}
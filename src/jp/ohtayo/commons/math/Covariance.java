@@ -0,0 +1,263 @@
+package jp.ohtayo.commons.math;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * データ行列(行がサンプル、列が変数)の共分散行列・相関行列を計算するカーネルです。<br>
+ * 各列を一度だけ中心化し、Gram行列X^T Xを行列積カーネル(Gemm)のブロック単位で計算します。<br>
+ * 対称な結果は上三角のブロックだけを計算して下三角に写します。<br>
+ * 演算量が大きい場合はブロックをForkJoinPoolで並列に計算します。並列・逐次で結果は一致します。<br>
+ * NaNを含む列の扱いは、そのままNaNを伝播させるか、組ごとに両方の値がある行だけを使う(pairwise-complete)かを選べます。<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+final class Covariance {
+
+	/** Gram行列を分割するブロックの大きさ	*/	static final int TILE = Gemm.MC;
+
+	private Covariance(){}
+
+	/**
+	 * 共分散行列を計算します。<br>
+	 * 共分散はサンプル数で割った値(Cov(X,Y) = E[(X-E[X])(Y-E[Y])])です。<br>
+	 * @param data データ行列
+	 * @param pairwise trueなら組ごとに両方の値がNaNでない行だけを使う
+	 * @return 列数×列数の共分散行列
+	 */
+	static Matrix covariance(Matrix data, boolean pairwise)
+	{
+		if(pairwise && hasNaN(data))
+			return pairwise(data, false);
+
+		Matrix gram = centeredGram(data);
+		double n = data.rows;
+		double[] g = gram.data;
+		for(int i=0; i<g.length; i++)
+			g[i] /= n;
+		return gram;
+	}
+
+	/**
+	 * 相関行列を計算します。
+	 * @param data データ行列
+	 * @param pairwise trueなら組ごとに両方の値がNaNでない行だけを使う
+	 * @return 列数×列数の相関行列
+	 */
+	static Matrix correlation(Matrix data, boolean pairwise)
+	{
+		if(pairwise && hasNaN(data))
+			return pairwise(data, true);
+
+		Matrix gram = centeredGram(data);
+		int c = gram.rows;
+		double[] g = gram.data;
+		double[] variance = new double[c];
+		for(int i=0; i<c; i++)
+			variance[i] = g[i*c+i];
+		for(int i=0; i<c; i++)
+			for(int j=0; j<c; j++)
+				g[i*c+j] /= Math.sqrt(variance[i]*variance[j]);
+		return gram;
+	}
+
+	/**
+	 * 各列を平均で中心化したデータ行列Xについて、X^T Xを計算します。
+	 * @param data データ行列
+	 * @return 列数×列数のGram行列
+	 */
+	private static Matrix centeredGram(Matrix data)
+	{
+		int n = data.rows, c = data.columns;
+		double[] mean = new double[c];
+		for(int r=0; r<n; r++){
+			int from = data.index(r, 0);
+			for(int j=0; j<c; j++, from+=data.columnStride)
+				mean[j] += data.data[from];
+		}
+		for(int j=0; j<c; j++)
+			mean[j] /= n;
+
+		Matrix x = new Matrix(n, c);
+		for(int r=0; r<n; r++){
+			int from = data.index(r, 0);
+			for(int j=0; j<c; j++, from+=data.columnStride)
+				x.data[r*c+j] = data.data[from] - mean[j];
+		}
+		return gram(x, x, true);
+	}
+
+	/**
+	 * NaNを含むデータについて、組ごとに両方の値がある行だけを使って共分散行列または相関行列を計算します。<br>
+	 * 値がある位置を1とするマスクMと、NaNを0に置き換えた中心化データZから、
+	 * 組ごとの行数M^T M、和Z^T M、積和Z^T Z、二乗和(Z∘Z)^T Mを求めます。<br>
+	 * 組ごとの平均はこれらの和から補正するため、データの走査は中心化の1回だけです。<br>
+	 * @param data データ行列
+	 * @param correlation trueなら相関行列、falseなら共分散行列を返す
+	 * @return 列数×列数の行列。共通する行がない組はNaN
+	 */
+	private static Matrix pairwise(Matrix data, boolean correlation)
+	{
+		int n = data.rows, c = data.columns;
+
+		//値がある行だけで各列の平均を求め、中心化する
+		double[] mean = new double[c];
+		int[] count = new int[c];
+		for(int r=0; r<n; r++){
+			int from = data.index(r, 0);
+			for(int j=0; j<c; j++, from+=data.columnStride){
+				double value = data.data[from];
+				if(Double.isNaN(value))	continue;
+				mean[j] += value;
+				count[j]++;
+			}
+		}
+		for(int j=0; j<c; j++)
+			mean[j] /= count[j];
+
+		Matrix mask = new Matrix(n, c);
+		Matrix z = new Matrix(n, c);
+		Matrix z2 = new Matrix(n, c);
+		for(int r=0; r<n; r++){
+			int from = data.index(r, 0);
+			for(int j=0; j<c; j++, from+=data.columnStride){
+				double value = data.data[from];
+				if(Double.isNaN(value))	continue;
+				double centered = value - mean[j];
+				mask.data[r*c+j] = 1;
+				z.data[r*c+j] = centered;
+				z2.data[r*c+j] = centered*centered;
+			}
+		}
+
+		double[] pairs = gram(mask, mask, true).data;
+		double[] sum = gram(z, mask, false).data;		//sum[i*c+j]: 列jに値がある行での列iの和
+		double[] product = gram(z, z, true).data;
+		double[] square = gram(z2, mask, false).data;
+
+		Matrix result = new Matrix(c, c);
+		for(int i=0; i<c; i++){
+			for(int j=0; j<c; j++){
+				int ij = i*c+j, ji = j*c+i;
+				double m = pairs[ij];
+				if(m == 0){
+					result.data[ij] = Double.NaN;
+					continue;
+				}
+				double covariance = (product[ij] - sum[ij]*sum[ji]/m) / m;
+				if(correlation){
+					double varianceI = (square[ij] - sum[ij]*sum[ij]/m) / m;
+					double varianceJ = (square[ji] - sum[ji]*sum[ji]/m) / m;
+					result.data[ij] = covariance / Math.sqrt(varianceI*varianceJ);
+				}else{
+					result.data[ij] = covariance;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 行列にNaNが含まれるかを返します。
+	 * @param data 行列
+	 * @return NaNがあればtrue
+	 */
+	private static boolean hasNaN(Matrix data)
+	{
+		for(int r=0; r<data.rows; r++){
+			int from = data.index(r, 0);
+			for(int j=0; j<data.columns; j++, from+=data.columnStride)
+				if(Double.isNaN(data.data[from]))	return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 同じ行数の行列a, bについてa^T bを計算します。<br>
+	 * 結果をTILE×TILEのブロックに分け、symmetricがtrueなら上三角のブロックだけを計算して下三角に写します。<br>
+	 * @param a 左側の行列(転置して使う)
+	 * @param b 右側の行列
+	 * @param symmetric a^T bが対称(a==b)ならtrue
+	 * @return aの列数×bの列数の行列
+	 */
+	static Matrix gram(Matrix a, Matrix b, boolean symmetric)
+	{
+		Matrix at = a.transposeView();
+		int m = a.columns, n = b.columns, k = a.rows;
+		Matrix result = new Matrix(m, n);
+		if(m == 0 || n == 0 || k == 0)	return result;
+
+		int rowTiles = (m+TILE-1)/TILE, columnTiles = (n+TILE-1)/TILE;
+		int[] tileRow = new int[rowTiles*columnTiles], tileColumn = new int[tileRow.length];
+		int tiles = 0;
+		for(int i=0; i<rowTiles; i++){
+			for(int j=symmetric ? i : 0; j<columnTiles; j++){
+				tileRow[tiles] = i;
+				tileColumn[tiles] = j;
+				tiles++;
+			}
+		}
+
+		if(Gemm.isParallel(m, n, k)){
+			ForkJoinPool.commonPool().invoke(new TileTask(at, b, result, tileRow, tileColumn, 0, tiles));
+		}else{
+			double[] aPack = new double[TILE * Math.min(k, Gemm.KC)];
+			double[] bPack = new double[TILE * Math.min(k, Gemm.KC)];
+			for(int t=0; t<tiles; t++)
+				multiplyTile(at, b, result, tileRow[t], tileColumn[t], aPack, bPack);
+		}
+
+		if(symmetric){
+			double[] g = result.data;
+			for(int i=1; i<m; i++)
+				for(int j=0; j<i; j++)
+					g[i*n+j] = g[j*n+i];
+		}
+		return result;
+	}
+
+	/**
+	 * 結果行列の1ブロックを計算します。
+	 */
+	private static void multiplyTile(Matrix at, Matrix b, Matrix result, int tileRow, int tileColumn, double[] aPack, double[] bPack)
+	{
+		int rowFrom = tileRow*TILE, columnFrom = tileColumn*TILE;
+		Gemm.multiplyBlock(at, b, result,
+				rowFrom, Math.min(rowFrom+TILE, result.rows),
+				columnFrom, Math.min(columnFrom+TILE, result.columns),
+				aPack, bPack);
+	}
+
+	/**
+	 * ブロックの範囲[from, to)を計算するタスクです。<br>
+	 * ブロックが1つになるまで範囲を半分に分割します。<br>
+	 */
+	private static final class TileTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Matrix at, b, result;
+		private final int[] tileRow, tileColumn;
+		private final int from, to;
+
+		TileTask(Matrix at, Matrix b, Matrix result, int[] tileRow, int[] tileColumn, int from, int to)
+		{
+			this.at = at; this.b = b; this.result = result;
+			this.tileRow = tileRow; this.tileColumn = tileColumn;
+			this.from = from; this.to = to;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if(to-from > 1){
+				int middle = (from+to)/2;
+				invokeAll(new TileTask(at, b, result, tileRow, tileColumn, from, middle),
+						new TileTask(at, b, result, tileRow, tileColumn, middle, to));
+			}else{
+				int k = at.columns;
+				double[] aPack = new double[TILE * Math.min(k, Gemm.KC)];
+				double[] bPack = new double[TILE * Math.min(k, Gemm.KC)];
+				multiplyTile(at, b, result, tileRow[from], tileColumn[from], aPack, bPack);
+			}
+		}
+	}
+}
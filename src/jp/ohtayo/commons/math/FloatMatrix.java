@@ -0,0 +1,1321 @@
+package jp.ohtayo.commons.math;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import jp.ohtayo.commons.log.Logging;
+import jp.ohtayo.commons.random.Random;
+
+/**
+ * 単精度の行列クラスです。<br>
+ * Matrixと同じ名前の演算メソッドを持ち、内部行列は行優先の1次元配列float[]です。<br>
+ * メモリ使用量と転送量がMatrixの半分になるため、画像の畳み込みオペレータやセンサデータのように単精度で足りる行列に使用します。<br>
+ * 要素ごとの演算と行列積はfloatで計算し、和などの集計はdoubleで累積してdoubleで返します。<br>
+ * Matrixとの相互変換はFloatMatrix(Matrix)とtoMatrix()で行います。<br>
+ * LU分解・行列式・逆行列・共分散・相関・回帰などの単精度の専用実装を持たないメソッドは、toMatrix()で倍精度に変換して計算します。<br>
+ * 内部配列は常に連続しているため、Matrixの～Viewメソッド(subMatrixView, rowView, columnView, transposeView, rotateView, invertView)は持ちません。
+ * 同じ結果はgetSubMatrix, getRow, getColumn, transpose, rotate, invertで要素をコピーして得られます。<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+public class FloatMatrix {
+
+	/** 行列の要素(行優先の1次元配列)	*/	float[] data;
+	/** 行数						*/	int rows;
+	/** 列数						*/	int columns;
+
+	/**
+	 * 行数と列数を指定して行列を生成します。
+	 * @param row 行数
+	 * @param column 列数
+	 */
+	public FloatMatrix(int row, int column)
+	{
+		rows = row;
+		columns = column;
+		data = new float[row*column];
+	}
+	/**
+	 * 行数と列数が等しい行列を生成します。
+	 * @param dimension 行数と列数
+	 */
+	public FloatMatrix(int dimension)
+	{
+		this(dimension, dimension);
+	}
+	/**
+	 * 全ての要素がvalueの行列を生成します。
+	 * @param row 行数
+	 * @param column 列数
+	 * @param value 値
+	 */
+	public FloatMatrix(int row, int column, float value)
+	{
+		this(row, column);
+		Arrays.fill(data, value);
+	}
+	/**
+	 * 値を指定して行列を生成します。
+	 * @param target 行列の初期値
+	 */
+	public FloatMatrix(float[][] target)
+	{
+		set(target);
+	}
+	/**
+	 * 値を指定して行列を生成します。1行n列もしくはn行1列の行列を作成します．
+	 * @param target 行列の初期値
+	 * @param direction 行or列どちらを作成するか
+	 */
+	public FloatMatrix(float[] target, String direction)
+	{
+		this(direction == DIRECTION_COLUMN ? target.length : 1, direction == DIRECTION_COLUMN ? 1 : target.length);
+		System.arraycopy(target, 0, data, 0, target.length);
+	}
+	public static final String CONSTRUCT_RANDOM = Matrix.CONSTRUCT_RANDOM;
+	public static final String CONSTRUCT_IDENTITY = Matrix.CONSTRUCT_IDENTITY;
+	/**
+	 * ランダムな行列もしくは単位行列を生成します。
+	 * @param row 行数
+	 * @param column 列数
+	 * @param string CONSTRUCT_RANDOM or CONSTRUCT_IDENTITY
+	 */
+	public FloatMatrix(int row, int column, String string)
+	{
+		this(row, column);
+		if(string == CONSTRUCT_RANDOM)
+		{
+			double[] random = new Random().array(data.length);
+			for(int i=0; i<data.length; i++)
+				data[i] = (float)random[i];
+		}
+		else if(string == CONSTRUCT_IDENTITY)
+		{
+			for(int i=0; i<Math.min(row, column); i++)
+				data[i*columns+i] = 1;
+		}
+	}
+	/**
+	 * 入力の行列と全く同じ行列をメモリの別の場所にコピーします。
+	 * @param target 入力行列
+	 */
+	public FloatMatrix(FloatMatrix target)
+	{
+		rows = target.rows;
+		columns = target.columns;
+		data = target.data.clone();
+	}
+	/**
+	 * 倍精度の行列を単精度に変換して生成します。<br>
+	 * 各要素はfloatに丸められます。<br>
+	 * @param target 倍精度の行列
+	 */
+	public FloatMatrix(Matrix target)
+	{
+		this(target.length(), target.columnLength());
+		for(int i=0; i<rows; i++)
+			for(int j=0; j<columns; j++)
+				data[i*columns+j] = (float)target.get(i, j);
+	}
+
+	/**
+	 * 倍精度の行列に変換します。<br>
+	 * floatからdoubleへの変換は誤差なく行われます。<br>
+	 * @return 倍精度の行列
+	 */
+	public Matrix toMatrix()
+	{
+		Matrix result = new Matrix(rows, columns);
+		for(int i=0; i<rows; i++)
+			for(int j=0; j<columns; j++)
+				result.set(i, j, data[i*columns+j]);
+		return result;
+	}
+
+	//------------------------------------------------------------------------//
+	// 行列の操作関数群                                                       //
+	//------------------------------------------------------------------------//
+	/**
+	* 行列を文字列として返します。
+	* @return 変換した文字列
+	*/
+	public String toString()
+	{
+		StringBuilder str = new StringBuilder();
+		for(int i=0; i<rows; i++ ){
+			str.append("  ");
+			for(int j=0; j<columns; j++ )
+				str.append(data[i*columns+j]).append(' ');
+			str.append("\r\n");
+		}
+		return str.toString();
+	}
+	/**
+	 * 行列の行数を返します。
+	 * @return 行数
+	 */
+	public int length()
+	{
+		return rows;
+	}
+	/**
+	 * 行列の列数を返します。
+	 * @return 列数
+	 */
+	public int columnLength()
+	{
+		return columns;
+	}
+	/**
+	 * 行列の行数と列数を返します。
+	 * @return {行数, 列数}
+	 */
+	public int[] size()
+	{
+		return new int[]{rows, columns};
+	}
+	/**
+	 * 行列の要素を返します。
+	 * @param row 行番号
+	 * @param column 列番号
+	 * @return 要素の値
+	 */
+	public float get(int row, int column)
+	{
+		return data[row*columns+column];
+	}
+	/**
+	 * 行列の要素に値をセットします。
+	 * @param row 行番号
+	 * @param column 列番号
+	 * @param value 値
+	 */
+	public void set(int row, int column, float value)
+	{
+		data[row*columns+column] = value;
+	}
+	/**
+	 * 行列の中身をfloat[][]にコピーして返します。
+	 * @return 行列の中身
+	 */
+	public float[][] get()
+	{
+		float[][] result = new float[rows][columns];
+		for(int i=0; i<rows; i++)
+			System.arraycopy(data, i*columns, result[i], 0, columns);
+		return result;
+	}
+	/**
+	 * 行列の値をセットします。
+	 * @param target セットする値
+	 */
+	public void set(float[][] target)
+	{
+		rows = target.length;
+		columns = rows == 0 ? 0 : target[0].length;
+		data = new float[rows*columns];
+		for(int i=0; i<rows; i++)
+			System.arraycopy(target[i], 0, data, i*columns, columns);
+	}
+	/**
+	 * 行列の中身を行優先の1次元配列にコピーして返します。<br>
+	 * java.awt.image.Kernelのように行優先のfloat[]を受け取るAPIに渡す場合に使用します。<br>
+	 * @return 行優先の1次元配列
+	 */
+	public float[] toArray()
+	{
+		return data.clone();
+	}
+	/**
+	 * 指定行をFloatVectorとして返します。
+	 * @param row 行番号
+	 * @return 行のベクトル
+	 */
+	public FloatVector getRow(int row)
+	{
+		FloatVector result = new FloatVector(columns);
+		System.arraycopy(data, row*columns, result.vector, 0, columns);
+		return result;
+	}
+	/**
+	 * 指定行に値をセットします。
+	 * @param row 行番号
+	 * @param target セットするベクトル
+	 */
+	public void setRow(int row, FloatVector target)
+	{
+		System.arraycopy(target.vector, 0, data, row*columns, columns);
+	}
+	/**
+	 * 指定列をFloatVectorとして返します。
+	 * @param column 列番号
+	 * @return 列のベクトル
+	 */
+	public FloatVector getColumn(int column)
+	{
+		FloatVector result = new FloatVector(rows);
+		for(int i=0; i<rows; i++)
+			result.vector[i] = data[i*columns+column];
+		return result;
+	}
+	/**
+	 * 指定列に値をセットします。
+	 * @param column 列番号
+	 * @param target セットするベクトル
+	 */
+	public void setColumn(int column, FloatVector target)
+	{
+		for(int i=0; i<rows; i++)
+			data[i*columns+column] = target.vector[i];
+	}
+	/**
+	 * 行列の指定行を抽出します。
+	 * @param rows 抽出する行番号の配列
+	 * @return 取り出した行列
+	 */
+	public FloatMatrix getRows(int[] rows)
+	{
+		FloatMatrix result = new FloatMatrix(rows.length, columns);
+		for(int r=0; r<rows.length; r++)
+			System.arraycopy(data, rows[r]*columns, result.data, r*columns, columns);
+		return result;
+	}
+	/**
+	 * 行列の指定列を抽出します。
+	 * @param columns 抽出する列番号の配列
+	 * @return 取り出した行列
+	 */
+	public FloatMatrix getColumns(int[] columns)
+	{
+		FloatMatrix result = new FloatMatrix(rows, columns.length);
+		for(int i=0; i<rows; i++)
+			for(int c=0; c<columns.length; c++)
+				result.data[i*columns.length+c] = data[i*this.columns+columns[c]];
+		return result;
+	}
+	/**
+	 * 行列の一部を返す。
+	 * @param row 欲しい行列の最初の行番号
+	 * @param rowLength 行の長さ
+	 * @param column 欲しい行列の最初の列番号
+	 * @param columnLength 列の長さ
+	 * @return 抽出した行列
+	 */
+	public FloatMatrix getSubMatrix(int row, int rowLength, int column, int columnLength)
+	{
+		FloatMatrix result = new FloatMatrix(rowLength, columnLength);
+		for(int i=0; i<rowLength; i++)
+			System.arraycopy(data, (row+i)*columns+column, result.data, i*columnLength, columnLength);
+		return result;
+	}
+	/**
+	 * 行列の一部を抜き出して返す。
+	 * @param rows 欲しい行列の行番号配列
+	 * @param columns 欲しい行列の列番号配列
+	 * @return 抽出した行列
+	 */
+	public FloatMatrix getSubMatrix(int[] rows, int[] columns)
+	{
+		return this.getColumns(columns).getRows(rows);
+	}
+	/**
+	 * 内部配列を共有しない、同じ値の行列を返します。
+	 * @return コピーした行列
+	 */
+	public FloatMatrix copy()
+	{
+		return new FloatMatrix(this);
+	}
+	/**
+	 * 行列の一部を別の行列の値に設定する。
+	 * @param row 挿入先の最初の行番号
+	 * @param rowLength 行長さ
+	 * @param column 挿入先の最初の列番号
+	 * @param columnLength 列長さ
+	 * @param target 挿入する値を持つ行列
+	 */
+	public void setSubMatrix(int row, int rowLength, int column, int columnLength, FloatMatrix target)
+	{
+		for(int i=0; i<rowLength; i++)
+			System.arraycopy(target.data, i*target.columns, data, (row+i)*columns+column, columnLength);
+	}
+	/**
+	* 行番号を指定すると、その番号の行を排除した行列を返します。
+	* @param number 排除したい行
+	* @return 排除した行列
+	*/
+	public FloatMatrix drop(int number)
+	{
+		FloatMatrix result = new FloatMatrix(rows-1, columns);
+		System.arraycopy(data, 0, result.data, 0, number*columns);
+		System.arraycopy(data, (number+1)*columns, result.data, number*columns, (rows-number-1)*columns);
+		return result;
+	}
+	/**
+	 * 行番号か列番号と方向を指定すると、その番号の行or列を削除した行列を返します。
+	 * @param number 行番号or列番号
+	 * @param direction 行or列
+	 * @return 削除した行列
+	 */
+	public FloatMatrix drop(int number, String direction)
+	{
+		if(direction == DIRECTION_ROW) {
+			return drop(number);
+		}
+		else if(direction == DIRECTION_COLUMN) {
+			return transpose().drop(number).T();
+		}
+		else {
+			return null;
+		}
+	}
+	/**
+	* 行列の要素を指定すると、その行・列を排除した行列を返します。
+	* @param row 排除したい行
+	* @param column 排除したい列
+	* @return 排除した行列
+	*/
+	public FloatMatrix splitMatrix(int row, int column)
+	{
+		FloatMatrix result = new FloatMatrix(rows-1, columns-1);
+		int m = 0;
+		for(int i=0; i<rows; i++ ){
+			if(i!=row){
+				for(int j=0; j<columns; j++ ){
+					if(j!=column){
+						result.data[m++] = data[i*columns+j];
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	public static final String DIRECTION_ADD_BOTTOM = Matrix.DIRECTION_ADD_BOTTOM;
+	public static final String DIRECTION_ADD_RIGHT = Matrix.DIRECTION_ADD_RIGHT;
+
+	/**
+	* 行列を連結します<br>
+	* @param target 連結する行列
+	* @param direction 連結方向
+	* @return 連結した行列。連結方向が不正な場合はnull
+	*/
+	public FloatMatrix add(FloatMatrix target, String direction)
+	{
+		FloatMatrix result = null;
+		if(direction == DIRECTION_ADD_BOTTOM)
+		{
+			result = new FloatMatrix(rows+target.rows, columns);
+			System.arraycopy(data, 0, result.data, 0, data.length);
+			System.arraycopy(target.data, 0, result.data, data.length, target.data.length);
+		}
+		else if(direction == DIRECTION_ADD_RIGHT)
+		{
+			result = new FloatMatrix(rows, columns+target.columns);
+			for(int i=0; i<rows; i++ ){
+				System.arraycopy(data, i*columns, result.data, i*result.columns, columns);
+				System.arraycopy(target.data, i*target.columns, result.data, i*result.columns+columns, target.columns);
+			}
+		}
+		return result;
+	}
+	/**
+	* 90, 180, 270°に回転した行列を返します。
+	* @param angle 回転角度
+	* @return 回転した行列。角度が90, 180, 270以外の場合はnull
+	*/
+	public FloatMatrix rotate(int angle)
+	{
+		FloatMatrix result;
+		if(angle == 90){
+			result = new FloatMatrix(columns, rows);
+			for(int i=0; i<rows; i++)
+				for(int j=0; j<columns; j++)
+					result.data[j*rows+(rows-1-i)] = data[i*columns+j];
+		}else if(angle == 180){
+			result = new FloatMatrix(rows, columns);
+			for(int i=0; i<data.length; i++)
+				result.data[data.length-1-i] = data[i];
+		}else if(angle == 270){
+			result = new FloatMatrix(columns, rows);
+			for(int i=0; i<rows; i++)
+				for(int j=0; j<columns; j++)
+					result.data[(columns-1-j)*rows+i] = data[i*columns+j];
+		}else{
+			return null;
+		}
+		return result;
+	}
+
+	public static final String INVERT_UPPER_BOTTOM = Matrix.INVERT_UPPER_BOTTOM;
+	public static final String INVERT_LEFT_RIGHT = Matrix.INVERT_LEFT_RIGHT;
+	/**
+	* 上下もしくは左右に反転した行列を返します。
+	* @param string 反転方向 INVERT_UPPER_BOTTOM or INVERT_LEFT_RIGHT
+	* @return 反転した行列。反転方向が不正な場合は0の行列
+	*/
+	public FloatMatrix invert(String string)
+	{
+		FloatMatrix result = new FloatMatrix(rows, columns);
+		if(string == INVERT_UPPER_BOTTOM){
+			for(int i=0; i<rows; i++)
+				System.arraycopy(data, (rows-1-i)*columns, result.data, i*columns, columns);
+		}else if(string == INVERT_LEFT_RIGHT){
+			for(int i=0; i<rows; i++)
+				for(int j=0; j<columns; j++)
+					result.data[i*columns+j] = data[i*columns+columns-1-j];
+		}else{
+			Logging.logger.severe("invalid invert direction");
+		}
+		return result;
+	}
+	/**
+	 * 全ての要素をvalueにします。
+	 * @param value 値
+	 * @return this
+	 */
+	public FloatMatrix fill(float value)
+	{
+		Arrays.fill(data, value);
+		return this;
+	}
+	/**
+	* 行列の全要素をtargetの値で書き換えます。
+	* @param target コピー元の行列(thisと同じサイズ)
+	* @return this。サイズが異なる場合はnull
+	*/
+	public FloatMatrix copyFrom(FloatMatrix target)
+	{
+		if(!isSameSize(target))	return null;
+		System.arraycopy(target.data, 0, data, 0, data.length);
+		return this;
+	}
+	/**
+	 * 行列のサイズが同じか判定します。
+	 * @param target 比較する行列
+	 * @return サイズが同じならtrue
+	 */
+	private boolean isSameSize(FloatMatrix target)
+	{
+		if(rows != target.rows || columns != target.columns){
+			Logging.logger.severe("different matrix size");
+			return false;
+		}
+		return true;
+	}
+
+	//------------------------------------------------------------------------//
+	// 行列の演算関数群                                                       //
+	//------------------------------------------------------------------------//
+	// Matrixと同様に、新しい行列を返すもの・結果をoutに書き込むもの(～Into)・
+	// 自分自身を書き換えるもの(～InPlace)があります。
+
+	/**
+	* 行列の各要素の加算結果を返します。
+	* @param target 行列
+	* @return 加算された行列。サイズが異なる場合はnull
+	*/
+	public FloatMatrix plus(FloatMatrix target)
+	{
+		return plusInto(target, new FloatMatrix(rows, columns));
+	}
+	/**
+	* 行列の各要素の加算結果をoutに格納します。
+	* @param target 行列
+	* @param out 結果を格納する行列(thisやtargetも指定可)
+	* @return out。サイズが異なる場合はnull
+	*/
+	public FloatMatrix plusInto(FloatMatrix target, FloatMatrix out)
+	{
+		if(!isSameSize(target) || !isSameSize(out))	return null;
+		for(int i=0; i<data.length; i++)
+			out.data[i] = data[i]+target.data[i];
+		return out;
+	}
+	/**
+	* 行列の各要素にtargetの要素を加算して書き換えます。
+	* @param target 行列
+	* @return this
+	*/
+	public FloatMatrix plusInPlace(FloatMatrix target)
+	{
+		return plusInto(target, this);
+	}
+	/**
+	* 行列の各要素に定数を加算します。
+	* @param target 定数
+	* @return 加算された行列
+	*/
+	public FloatMatrix plus(float target)
+	{
+		return plusInto(target, new FloatMatrix(rows, columns));
+	}
+	/**
+	* 行列の各要素に定数を加算した結果をoutに格納します。
+	* @param target 定数
+	* @param out 結果を格納する行列(thisも指定可)
+	* @return out。サイズが異なる場合はnull
+	*/
+	public FloatMatrix plusInto(float target, FloatMatrix out)
+	{
+		if(!isSameSize(out))	return null;
+		for(int i=0; i<data.length; i++)
+			out.data[i] = data[i]+target;
+		return out;
+	}
+	/**
+	* 行列の各要素に定数を加算して書き換えます。
+	* @param target 定数
+	* @return this
+	*/
+	public FloatMatrix plusInPlace(float target)
+	{
+		return plusInto(target, this);
+	}
+	/**
+	* 行列の各要素を減算します。
+	* @param target 引く行列
+	* @return 減算された行列。サイズが異なる場合はnull
+	*/
+	public FloatMatrix minus(FloatMatrix target)
+	{
+		return minusInto(target, new FloatMatrix(rows, columns));
+	}
+	/**
+	* 行列の各要素の減算結果をoutに格納します。
+	* @param target 引く行列
+	* @param out 結果を格納する行列(thisやtargetも指定可)
+	* @return out。サイズが異なる場合はnull
+	*/
+	public FloatMatrix minusInto(FloatMatrix target, FloatMatrix out)
+	{
+		if(!isSameSize(target) || !isSameSize(out))	return null;
+		for(int i=0; i<data.length; i++)
+			out.data[i] = data[i]-target.data[i];
+		return out;
+	}
+	/**
+	* 行列の各要素からtargetの要素を引いて書き換えます。
+	* @param target 引く行列
+	* @return this
+	*/
+	public FloatMatrix minusInPlace(FloatMatrix target)
+	{
+		return minusInto(target, this);
+	}
+	/**
+	* 行列の各要素から定数を引きます。
+	* @param target 定数
+	* @return 減算された行列
+	*/
+	public FloatMatrix minus(float target)
+	{
+		return minusInto(target, new FloatMatrix(rows, columns));
+	}
+	/**
+	* 行列の各要素から定数を引いた結果をoutに格納します。
+	* @param target 定数
+	* @param out 結果を格納する行列(thisも指定可)
+	* @return out。サイズが異なる場合はnull
+	*/
+	public FloatMatrix minusInto(float target, FloatMatrix out)
+	{
+		if(!isSameSize(out))	return null;
+		for(int i=0; i<data.length; i++)
+			out.data[i] = data[i]-target;
+		return out;
+	}
+	/**
+	* 行列の各要素から定数を引いて書き換えます。
+	* @param target 定数
+	* @return this
+	*/
+	public FloatMatrix minusInPlace(float target)
+	{
+		return minusInto(target, this);
+	}
+	/**
+	* 行列の積を計算します。<br>
+	* i-k-jの順のループで、結果の各行を連続したメモリに累積します。<br>
+	* 演算量が大きい場合は結果の行ごとに並列で計算します。<br>
+	* @param target 行列
+	* @return 積の行列。自分の列数とtargetの行数が異なる場合はnull
+	*/
+	public FloatMatrix multiply(FloatMatrix target)
+	{
+		return multiply(target, Gemm.isParallel(rows, target.columns, columns));
+	}
+	/**
+	* 並列計算するかを指定して行列の積を計算します。<br>
+	* 並列計算では結果の行ごとにForkJoinPoolで計算します。並列・逐次のどちらでも計算結果は一致します。<br>
+	* @param target 行列
+	* @param parallel trueなら並列、falseなら逐次で計算する
+	* @return 積の行列。自分の列数とtargetの行数が異なる場合はnull
+	*/
+	public FloatMatrix multiply(FloatMatrix target, boolean parallel)
+	{
+		if(columns != target.rows){
+			Logging.logger.severe("different matrix size");
+			return null;
+		}
+		FloatMatrix result = new FloatMatrix(rows, target.columns);
+		if(parallel)	IntStream.range(0, rows).parallel().forEach(i -> multiplyRow(i, target, result));
+		else			for(int i=0; i<rows; i++)	multiplyRow(i, target, result);
+		return result;
+	}
+	/**
+	* 積の結果のi行目を計算します。
+	*/
+	private void multiplyRow(int i, FloatMatrix target, FloatMatrix result)
+	{
+		int n = target.columns;
+		float[] a = data, b = target.data, c = result.data;
+		int ic = i*n;
+		for(int k=0; k<columns; k++){
+			float aik = a[i*columns+k];
+			int kb = k*n;
+			for(int j=0; j<n; j++)
+				c[ic+j] += aik*b[kb+j];
+		}
+	}
+	/**
+	* 疎行列との積を計算します。<br>
+	* 倍精度に変換して疎行列の非ゼロ要素だけを使って計算し、結果を単精度に変換します。<br>
+	* @param target 疎行列
+	* @return 積の行列。サイズが合わない場合はnull
+	*/
+	public FloatMatrix multiply(SparseMatrix target)
+	{
+		Matrix result = toMatrix().multiply(target);
+		return result == null ? null : new FloatMatrix(result);
+	}
+	/**
+	* 行列の積を計算し、outに格納します。<br>
+	* outがthisやtargetと同じ行列の場合は、一時行列で計算してからコピーします。<br>
+	* @param target 行列
+	* @param out 結果を格納する行列(行数はthis、列数はtargetと同じ)
+	* @return out。サイズが合わない場合はnull
+	*/
+	public FloatMatrix multiplyInto(FloatMatrix target, FloatMatrix out)
+	{
+		if(columns != target.rows || out.rows != rows || out.columns != target.columns){
+			Logging.logger.severe("different matrix size");
+			return null;
+		}
+		if(out.data == data || out.data == target.data){
+			return out.copyFrom(multiply(target));
+		}
+		out.fill(0);
+		for(int i=0; i<rows; i++)
+			multiplyRow(i, target, out);
+		return out;
+	}
+	/**
+	* 行列を定数倍します。
+	* @param target 定数
+	* @return 定数倍の行列
+	*/
+	public FloatMatrix multiply(float target)
+	{
+		return multiplyInto(target, new FloatMatrix(rows, columns));
+	}
+	/**
+	* 行列を定数倍した結果をoutに格納します。
+	* @param target 定数
+	* @param out 結果を格納する行列(thisも指定可)
+	* @return out。サイズが異なる場合はnull
+	*/
+	public FloatMatrix multiplyInto(float target, FloatMatrix out)
+	{
+		if(!isSameSize(out))	return null;
+		for(int i=0; i<data.length; i++)
+			out.data[i] = data[i]*target;
+		return out;
+	}
+	/**
+	* 行列を定数倍して書き換えます。
+	* @param target 定数
+	* @return this
+	*/
+	public FloatMatrix multiplyInPlace(float target)
+	{
+		return multiplyInto(target, this);
+	}
+	/**
+	* 行列の各要素ごとに積を計算します。
+	* @param target かけられる行列
+	* @return 計算した積の行列。サイズが異なる場合はnull
+	*/
+	public FloatMatrix multiplyEach(FloatMatrix target)
+	{
+		return multiplyEachInto(target, new FloatMatrix(rows, columns));
+	}
+	/**
+	* 行列の各要素ごとの積をoutに格納します。
+	* @param target かけられる行列
+	* @param out 結果を格納する行列(thisやtargetも指定可)
+	* @return out。サイズが異なる場合はnull
+	*/
+	public FloatMatrix multiplyEachInto(FloatMatrix target, FloatMatrix out)
+	{
+		if(!isSameSize(target) || !isSameSize(out))	return null;
+		for(int i=0; i<data.length; i++)
+			out.data[i] = data[i]*target.data[i];
+		return out;
+	}
+	/**
+	* 行列の各要素にtargetの要素をかけて書き換えます。
+	* @param target かけられる行列
+	* @return this
+	*/
+	public FloatMatrix multiplyEachInPlace(FloatMatrix target)
+	{
+		return multiplyEachInto(target, this);
+	}
+	/**
+	* 転置行列を返します。
+	* @return 転置した行列
+	*/
+	public FloatMatrix transpose()
+	{
+		return transposeInto(new FloatMatrix(columns, rows));
+	}
+	/**
+	* 転置行列をoutに格納します。<br>
+	* outがthisと同じ行列の場合は、一時行列で計算してからコピーします。<br>
+	* @param out 結果を格納する行列(行数・列数がthisの列数・行数と同じ)
+	* @return out。サイズが合わない場合はnull
+	*/
+	public FloatMatrix transposeInto(FloatMatrix out)
+	{
+		if(out.rows != columns || out.columns != rows){
+			Logging.logger.severe("different matrix size");
+			return null;
+		}
+		if(out.data == data){
+			return out.copyFrom(transpose());
+		}
+		for(int i=0; i<rows; i++)
+			for(int j=0; j<columns; j++)
+				out.data[j*rows+i] = data[i*columns+j];
+		return out;
+	}
+	/**
+	* 行列を転置して書き換えます。<br>
+	* 内部配列は常に行優先で連続しているため、正方行列以外は新しい配列に並べ替えます。<br>
+	* @return this
+	*/
+	public FloatMatrix transposeInPlace()
+	{
+		if(rows == columns){
+			for(int i=0; i<rows; i++)
+				for(int j=i+1; j<columns; j++){
+					float temp = data[i*columns+j];
+					data[i*columns+j] = data[j*columns+i];
+					data[j*columns+i] = temp;
+				}
+			return this;
+		}
+		data = transpose().data;
+		int temp = rows;	rows = columns;	columns = temp;
+		return this;
+	}
+	/**
+	* 転置行列を返します。transpose()と同じです。
+	* @return 転置した行列
+	*/
+	public FloatMatrix T()
+	{
+		return transpose();
+	}
+
+	/**
+	* 行列のLU分解を倍精度で返します。
+	* @return LU分解。正方行列でない場合はnull
+	*/
+	public LUDecomposition lu()
+	{
+		return toMatrix().lu();
+	}
+	/**
+	* 行列の行列式を倍精度で計算して返します。
+	* @return 行列式。正方行列でない場合はNaN
+	*/
+	public double determinant()
+	{
+		return toMatrix().determinant();
+	}
+	public double det() {
+		return determinant();
+	}
+	/**
+	* 行列の逆行列を返します。<br>
+	* 倍精度のLU分解で計算し、結果を単精度に変換します。<br>
+	* @return 逆行列。正方行列でないか特異行列の場合はnull
+	*/
+	public FloatMatrix inverse()
+	{
+		Matrix result = toMatrix().inverse();
+		return result == null ? null : new FloatMatrix(result);
+	}
+
+	/**
+	* 行列の要素を四捨五入して返します。
+	* @return 四捨五入した行列
+	*/
+	public FloatMatrix round()
+	{
+		return roundInto(new FloatMatrix(rows, columns));
+	}
+	/**
+	* 行列の要素を四捨五入した結果をoutに格納します。
+	* @param out 結果を格納する行列(thisも指定可)
+	* @return out。サイズが異なる場合はnull
+	*/
+	public FloatMatrix roundInto(FloatMatrix out)
+	{
+		if(!isSameSize(out))	return null;
+		for(int i=0; i<data.length; i++)
+			out.data[i] = Math.round(data[i]);
+		return out;
+	}
+	/**
+	* 行列の要素を四捨五入して書き換えます。
+	* @return this
+	*/
+	public FloatMatrix roundInPlace()
+	{
+		return roundInto(this);
+	}
+	/**
+	* 行列の各要素の絶対値を返します。
+	* @return 絶対値の行列
+	*/
+	public FloatMatrix abs()
+	{
+		return absInto(new FloatMatrix(rows, columns));
+	}
+	/**
+	* 行列の絶対値をoutに格納します。
+	* @param out 結果を格納する行列(thisも指定可)
+	* @return out。サイズが異なる場合はnull
+	*/
+	public FloatMatrix absInto(FloatMatrix out)
+	{
+		if(!isSameSize(out))	return null;
+		for(int i=0; i<data.length; i++)
+			out.data[i] = Math.abs(data[i]);
+		return out;
+	}
+	/**
+	* 行列の要素を絶対値に書き換えます。
+	* @return this
+	*/
+	public FloatMatrix absInPlace()
+	{
+		return absInto(this);
+	}
+	/**
+	* 行列の各要素の平方根を返します。
+	* @return 平方根の行列
+	*/
+	public FloatMatrix sqrt()
+	{
+		return sqrtInto(new FloatMatrix(rows, columns));
+	}
+	/**
+	* 行列の平方根をoutに格納します。
+	* @param out 結果を格納する行列(thisも指定可)
+	* @return out。サイズが異なる場合はnull
+	*/
+	public FloatMatrix sqrtInto(FloatMatrix out)
+	{
+		if(!isSameSize(out))	return null;
+		for(int i=0; i<data.length; i++)
+			out.data[i] = (float)Math.sqrt(data[i]);
+		return out;
+	}
+	/**
+	* 行列の要素を平方根に書き換えます。
+	* @return this
+	*/
+	public FloatMatrix sqrtInPlace()
+	{
+		return sqrtInto(this);
+	}
+	/**
+	* 行列の二乗(行列積)を返します。
+	* @return 二乗値
+	*/
+	public FloatMatrix square()
+	{
+		return multiply(this);
+	}
+	/**
+	* 行列の二乗(行列積)をoutに格納します。
+	* @param out 結果を格納する行列
+	* @return out。サイズが合わない場合はnull
+	*/
+	public FloatMatrix squareInto(FloatMatrix out)
+	{
+		return multiplyInto(this, out);
+	}
+	/**
+	* 行列の各要素の二乗を返します。
+	* @return 二乗の行列
+	*/
+	public FloatMatrix squareEach()
+	{
+		return multiplyEach(this);
+	}
+	/**
+	* 行列の個々の要素の二乗をoutに格納します。
+	* @param out 結果を格納する行列(thisも指定可)
+	* @return out。サイズが異なる場合はnull
+	*/
+	public FloatMatrix squareEachInto(FloatMatrix out)
+	{
+		return multiplyEachInto(this, out);
+	}
+	/**
+	* 行列の個々の要素を二乗して書き換えます。
+	* @return this
+	*/
+	public FloatMatrix squareEachInPlace()
+	{
+		return multiplyEachInto(this, this);
+	}
+
+	//------------------------------------------------------------------------//
+	// 行列の統計量                                                           //
+	//------------------------------------------------------------------------//
+	public static final String DIRECTION_ROW = Matrix.DIRECTION_ROW;
+	public static final String DIRECTION_COLUMN = Matrix.DIRECTION_COLUMN;
+
+	/**
+	* 行列の各列もしくは各行を、方向に応じたベクトルの配列で返します。
+	*/
+	private FloatVector[] lines(String direction)
+	{
+		FloatVector[] lines = null;
+		if(direction == DIRECTION_ROW){
+			lines = new FloatVector[rows];
+			for(int i=0; i<rows; i++)	lines[i] = getRow(i);
+		}else if(direction == DIRECTION_COLUMN){
+			lines = new FloatVector[columns];
+			for(int i=0; i<columns; i++)	lines[i] = getColumn(i);
+		}
+		return lines;
+	}
+	/**
+	* 行列の各列もしくは各行ごとの最大値を返します。
+	* @param direction 最大値を求める方向(DIRECTION_ROWもしくはDIRECTION_COLUMN)
+	* @return 最大値配列
+	*/
+	public FloatVector max(String direction)
+	{
+		return max(direction, null);
+	}
+	/**
+	* 行列の各列もしくは各行ごとの最大値とその位置を返します。
+	* @param direction 最大値を求める方向(DIRECTION_ROWもしくはDIRECTION_COLUMN)
+	* @param index 最大値の位置配列(output)。nullなら位置を返さない
+	* @return 最大値配列
+	*/
+	public FloatVector max(String direction, int[] index)
+	{
+		FloatVector[] lines = lines(direction);
+		if(lines == null)	return null;
+		FloatVector max = new FloatVector(lines.length);
+		int[] idx = new int[1];
+		for(int i=0; i<lines.length; i++){
+			max.vector[i] = lines[i].max(idx);
+			if(index != null)	index[i] = idx[0];
+		}
+		return max;
+	}
+	/**
+	* 行列の全要素の最大値とその位置を返します。
+	* @param index 最大値の位置配列(長さ2のint)
+	* @return 最大値
+	*/
+	public float max(int[] index)
+	{
+		int[] idx = new int[rows];
+		float result = max(DIRECTION_ROW, idx).max(index);
+		index[1] = idx[index[0]];
+		return result;
+	}
+	/**
+	* 行列の各列もしくは各行ごとの最小値を返します。
+	* @param direction 最小値を求める方向(DIRECTION_ROWもしくはDIRECTION_COLUMN)
+	* @return 最小値配列
+	*/
+	public FloatVector min(String direction)
+	{
+		return min(direction, null);
+	}
+	/**
+	* 行列の各列もしくは各行ごとの最小値とその位置を返します。
+	* @param direction 最小値を求める方向(DIRECTION_ROWもしくはDIRECTION_COLUMN)
+	* @param index 最小値の位置配列(output)。nullなら位置を返さない
+	* @return 最小値配列
+	*/
+	public FloatVector min(String direction, int[] index)
+	{
+		FloatVector[] lines = lines(direction);
+		if(lines == null)	return null;
+		FloatVector min = new FloatVector(lines.length);
+		int[] idx = new int[1];
+		for(int i=0; i<lines.length; i++){
+			min.vector[i] = lines[i].min(idx);
+			if(index != null)	index[i] = idx[0];
+		}
+		return min;
+	}
+	/**
+	* 行列の全要素の最小値とその位置を返します。
+	* @param index 最小値の位置配列(長さ2のint)
+	* @return 最小値
+	*/
+	public float min(int[] index)
+	{
+		int[] idx = new int[rows];
+		float result = min(DIRECTION_ROW, idx).min(index);
+		index[1] = idx[index[0]];
+		return result;
+	}
+	/**
+	* 行列の各列もしくは各行ごとの和をdoubleで累積して返します。
+	* @param direction 和を求める方向(DIRECTION_ROWもしくはDIRECTION_COLUMN)
+	* @return 和の配列
+	*/
+	public Vector sum(String direction)
+	{
+		FloatVector[] lines = lines(direction);
+		if(lines == null)	return null;
+		Vector sum = new Vector(lines.length);
+		for(int i=0; i<lines.length; i++)
+			sum.set(i, lines[i].sum());
+		return sum;
+	}
+	/**
+	* 行列の各列もしくは各行ごとの平均値を返します。
+	* @param direction 平均値を求める方向(DIRECTION_ROWもしくはDIRECTION_COLUMN)
+	* @return 平均値配列
+	*/
+	public Vector mean(String direction)
+	{
+		FloatVector[] lines = lines(direction);
+		if(lines == null)	return null;
+		Vector mean = new Vector(lines.length);
+		for(int i=0; i<lines.length; i++)
+			mean.set(i, lines[i].mean());
+		return mean;
+	}
+	/**
+	 * 行列の各要素の和をdoubleで累積して返します。
+	 * @return 和
+	 */
+	public double sum()
+	{
+		double sum = 0;
+		for(int i=0; i<data.length; i++)
+			sum += data[i];
+		return sum;
+	}
+	/**
+	 * 行列の全要素の平均値を返します。
+	 * @return 平均値
+	 */
+	public double mean()
+	{
+		return sum()/data.length;
+	}
+	/**
+	 * 行列の最大値を返します。
+	 * @return 最大値
+	 */
+	public float max()
+	{
+		float max = data[0];
+		for(int i=1; i<data.length; i++)
+			if(max < data[i])	max = data[i];
+		return max;
+	}
+	/**
+	 * 行列の最小値を返します。
+	 * @return 最小値
+	 */
+	public float min()
+	{
+		float min = data[0];
+		for(int i=1; i<data.length; i++)
+			if(min > data[i])	min = data[i];
+		return min;
+	}
+
+	/**
+	* 行列を各列ごとに正規化して返します。<br>
+	* 各列ごとに最大値を1, 最小値を0として変換します。最大値配列・最小値配列の長さは行列の列数と等しい必要があります。<br>
+	* @param maxValue 正規化の最大値配列
+	* @param minValue 正規化の最小値配列
+	* @return 正規化された行列
+	*/
+	public FloatMatrix normalize(double[] maxValue, double[] minValue)
+	{
+		FloatMatrix result = new FloatMatrix(rows, columns);
+		for(int i=0; i<columns; i++)
+			result.setColumn(i, getColumn(i).normalize(maxValue[i], minValue[i]));
+		return result;
+	}
+	/**
+	* 行列を各列ごとに正規化して返します。<br>
+	* 最大値・最小値は各列のデータから計算します。<br>
+	* @return 正規化された行列
+	*/
+	public FloatMatrix normalize()
+	{
+		FloatMatrix result = new FloatMatrix(rows, columns);
+		for(int i=0; i<columns; i++)
+			result.setColumn(i, getColumn(i).normalize());
+		return result;
+	}
+	/**
+	 * 行列を各列ごとに非正規化して返します。<br>
+	 * 0～1の行列を、各列ごとに最大値～最小値までに変換します。最大値配列・最小値配列の長さは行列の列数と等しい必要があります。<br>
+	 * @param maxValue 正規化の最大値配列
+	 * @param minValue 正規化の最小値配列
+	 * @return 非正規化された行列
+	 */
+	public FloatMatrix denormalize(double[] maxValue, double[] minValue)
+	{
+		FloatMatrix result = new FloatMatrix(rows, columns);
+		for(int i=0; i<columns; i++)
+			result.setColumn(i, getColumn(i).denormalize(maxValue[i], minValue[i]));
+		return result;
+	}
+
+	//------------------------------------------------------------------------//
+	// 行列の統計解析処理                                                     //
+	//------------------------------------------------------------------------//
+	// 統計解析は倍精度で計算するため、toMatrix()で変換したMatrixに委譲します。
+
+	public static final String NAN_PROPAGATE = Matrix.NAN_PROPAGATE;
+	public static final String NAN_PAIRWISE = Matrix.NAN_PAIRWISE;
+
+	/**
+	 * x列目とy列目のデータの共分散Cxyを求めます。
+	 * @param x 列番号
+	 * @param y 列番号
+	 * @return 共分散
+	 */
+	public double covariance(int y, int x)
+	{
+		return toMatrix().covariance(y, x);
+	}
+	/**
+	 * x列目とy列目のデータの相関係数r_xyを求めます
+	 * @param x 列番号
+	 * @param y 列番号
+	 * @return 相関係数
+	 */
+	public double correlation(int y, int x)
+	{
+		return toMatrix().correlation(y, x);
+	}
+	/**
+	 * データ列同士の相関行列を求めます。
+	 * @return 相関行列
+	 */
+	public Matrix correlation()
+	{
+		return correlation(NAN_PROPAGATE);
+	}
+	/**
+	 * NaNの扱いを指定して、データ列同士の相関行列を求めます。
+	 * @param nan NAN_PROPAGATE or NAN_PAIRWISE
+	 * @return 相関行列
+	 */
+	public Matrix correlation(String nan)
+	{
+		return toMatrix().correlation(nan);
+	}
+	/**
+	 * データ列同士の共分散行列を求めます。
+	 * @return 共分散行列
+	 */
+	public Matrix covariance()
+	{
+		return covariance(NAN_PROPAGATE);
+	}
+	/**
+	 * NaNの扱いを指定して、データ列同士の共分散行列を求めます。
+	 * @param nan NAN_PROPAGATE or NAN_PAIRWISE
+	 * @return 共分散行列
+	 */
+	public Matrix covariance(String nan)
+	{
+		return toMatrix().covariance(nan);
+	}
+	/**
+	 * 単回帰式の決定係数を求めます。
+	 * @param x 列番号
+	 * @param y 列番号
+	 * @return 決定係数
+	 */
+	public double determination(int y, int x)
+	{
+		return toMatrix().determination(y, x);
+	}
+	/**
+	 * 単回帰式y=a+bxの係数a, bを求める。
+	 * @param x 被説明変数の列番号
+	 * @param y 説明変数の列番号
+	 * @return 係数([0]がb, [1]がa)
+	 */
+	public Vector singleRegression(int y, int x)
+	{
+		return toMatrix().singleRegression(y, x);
+	}
+	/**
+	 * 重回帰式y=b0+ b1*x1+ b2*x2+ ...を当てはめる。
+	 * @param y 被説明変数の列番号
+	 * @param x 説明変数の列番号配列
+	 * @return 重回帰の結果
+	 */
+	public LinearRegression linearRegression(int y, int... x)
+	{
+		return toMatrix().linearRegression(y, x);
+	}
+	/**
+	 * 重回帰式y=b0+ b1*x1+ b2*x2+ ...の係数bを求める。
+	 * @param y 被説明変数の列番号
+	 * @param x 説明変数の列番号配列
+	 * @return 係数配列
+	 */
+	public Vector multipleRegression(int y, int... x)
+	{
+		return linearRegression(y, x).getCoefficient();
+	}
+	/**
+	 * 回帰値(重回帰式で推定した値y)を求める
+	 * @param y 被説明変数の列番号
+	 * @param x 説明変数の列番号配列
+	 * @return 回帰値
+	 */
+	public Vector regression(int y, int... x)
+	{
+		return linearRegression(y, x).getRegression();
+	}
+	/**
+	 * 重回帰の決定係数η^2を求める。
+	 * @param y 被説明変数の列番号
+	 * @param x 説明変数の列番号配列
+	 * @return 決定係数
+	 */
+	public double determination(int y, int... x)
+	{
+		return linearRegression(y, x).getDetermination();
+	}
+}
@@ -0,0 +1,812 @@
+package jp.ohtayo.commons.math;
+
+import java.util.Arrays;
+
+import jp.ohtayo.commons.log.Logging;
+import jp.ohtayo.commons.random.Random;
+
+/**
+ * 単精度の配列クラスです。<br>
+ * Vectorと同じ名前の演算メソッドを持ち、内部配列はfloat[]です。<br>
+ * メモリ使用量と転送量がVectorの半分になるため、画像やセンサデータのように単精度で足りる大きな配列に使用します。<br>
+ * 要素ごとの演算はfloatで計算し、和や内積などの集計はdoubleで累積してdoubleで返します。<br>
+ * Vectorとの相互変換はFloatVector(Vector)とtoVector()で行います。<br>
+ * 分位数や遅延評価など、単精度の専用実装を持たないメソッドはtoVector()で倍精度に変換して計算します。<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+public class FloatVector {
+
+	/** 集計時にdoubleに変換するブロックの大きさ	*/	private static final int BLOCK = 1024;
+
+	float[] vector;
+
+	/**
+	 * ある長さの配列を作成します。
+	 * @param length ベクトル長さ
+	 */
+	public FloatVector(int length)
+	{
+		vector = new float[length];
+	}
+	/**
+	 * 配列の値を指定して作成します。
+	 * @param target 配列の値
+	 */
+	public FloatVector(float[] target)
+	{
+		vector = target.clone();
+	}
+	/**
+	* 要素が全てvalueの配列を作成します。<br>
+	* @param length 配列の長さ
+	* @param value 各配列要素の値
+	*/
+	public FloatVector(int length, float value)
+	{
+		vector = new float[length];
+		for(int i=0; i<length; i++)
+			vector[i] = value;
+	}
+	/**
+	 * 初期値・差分・終了値を与えて等差数列を作成します。
+	 * @param start 初期値
+	 * @param difference 差分
+	 * @param end 終了値
+	 */
+	public FloatVector(float start, float difference, float end)
+	{
+		vector = new float[(int)Math.floor( Math.abs(end-start)/difference )+1];
+		for (int i=0; i<vector.length; i++)
+			vector[i] = start + difference*i;
+	}
+	/**
+	 * ランダムな配列を作成します。
+	 * @param length 配列長さ
+	 * @param string "random"。あるとランダム配列作成。
+	 */
+	public FloatVector(int length, String string)
+	{
+		double[] random = new Random().array(length);
+		vector = new float[length];
+		for(int i=0; i<length; i++)
+			vector[i] = (float)random[i];
+	}
+	/**
+	 * 入力のベクトルと全く同じベクトルをメモリの別の場所にコピーします。
+	 * @param value 入力ベクトル
+	 */
+	public FloatVector(FloatVector value)
+	{
+		vector = value.vector.clone();
+	}
+	/**
+	 * 倍精度のベクトルを単精度に変換して作成します。<br>
+	 * 各要素はfloatに丸められます。<br>
+	 * @param value 倍精度のベクトル
+	 */
+	public FloatVector(Vector value)
+	{
+		double[] source = value.vector;
+		vector = new float[source.length];
+		for(int i=0; i<source.length; i++)
+			vector[i] = (float)source[i];
+	}
+
+	/**
+	 * 倍精度のベクトルに変換します。<br>
+	 * floatからdoubleへの変換は誤差なく行われます。<br>
+	 * @return 倍精度のベクトル
+	 */
+	public Vector toVector()
+	{
+		Vector result = new Vector(vector.length);
+		for(int i=0; i<vector.length; i++)
+			result.vector[i] = vector[i];
+		return result;
+	}
+
+	//------------------------------------------------------------------------//
+	// 配列の操作関数                                                         //
+	//------------------------------------------------------------------------//
+	public static final String DIRECTION_COLUMN = Vector.DIRECTION_COLUMN;
+	public static final String DIRECTION_ROW = Vector.DIRECTION_ROW;
+	/**
+	* 配列を文字列として返します。<br>
+	* @return 変換した文字列
+	*/
+	public String toString()
+	{
+		StringBuilder str = new StringBuilder();
+		for(int i=0; i<length(); i++ ){
+			str.append("  ").append(vector[i]).append(" \r\n");
+		}
+		return str.toString();
+	}
+	/**
+	* 配列を文字列として返します。<br>
+	* @param direction 方向("column"(縦方向)もしくは"row"(横方向))
+	* @return 変換した文字列
+	*/
+	public String toString(String direction)
+	{
+		if(direction.equals(DIRECTION_COLUMN))	return toString();
+		StringBuilder str = new StringBuilder();
+		if(direction.equals(DIRECTION_ROW)){
+			str.append("  ");
+			for(int i=0; i<length(); i++ )
+				str.append(vector[i]).append(", ");
+			str.append("\r\n");
+		}
+		return str.toString();
+	}
+	/**
+	 * ベクトルの長さを返します。
+	 * @return ベクトル長さ
+	 */
+	public int length()
+	{
+		return vector.length;
+	}
+	/**
+	 * ベクトルの中身を返します。
+	 * @return ベクトルの中身float[]
+	 */
+	public float[] get()
+	{
+		return vector;
+	}
+	/**
+	 * ベクトルの要素を返します。
+	 * @param index 要素番号
+	 * @return ベクトルの要素
+	 */
+	public float get(int index)
+	{
+		return vector[index];
+	}
+	/**
+	* 配列の一部を抽出して返します。<br>
+	* @param offset 抽出開始点
+	* @param length 抽出長さ
+	* @return 抽出した配列
+	*/
+	public FloatVector get(int offset, int length)
+	{
+		FloatVector result = new FloatVector(length);
+		System.arraycopy(vector, offset, result.vector, 0, length);
+		return result;
+	}
+	/**
+	* インデックス配列で指定した要素を抽出して返します。<br>
+	* @param index インデックス配列
+	* @return 抽出した配列
+	*/
+	public FloatVector get(int[] index)
+	{
+		FloatVector result = new FloatVector(index.length);
+		for(int i=0; i<index.length; i++)
+			result.vector[i] = vector[index[i]];
+		return result;
+	}
+	/**
+	 * ベクトルの値をセットします。
+	 * @param target セットする配列
+	 */
+	public void set(float[] target)
+	{
+		vector = target.clone();
+	}
+	/**
+	 * ベクトルの要素をセットします。
+	 * @param index 要素番号
+	 * @param target セットする値
+	 */
+	public void set(int index, float target)
+	{
+		vector[index] = target;
+	}
+	/**
+	 * index番目の要素からベクトルの値をセットします。
+	 * @param index 要素番号
+	 * @param target セットするベクトル
+	 */
+	public void set(int index, FloatVector target)
+	{
+		System.arraycopy(target.vector, 0, vector, index, target.length());
+	}
+	/**
+	* 配列の末尾に配列を追加します。<br>
+	* @param target 追加する配列
+	* @return 追加した配列
+	*/
+	public FloatVector add(FloatVector target)
+	{
+		FloatVector result = new FloatVector(length()+target.length());
+		System.arraycopy(vector, 0, result.vector, 0, length());
+		System.arraycopy(target.vector, 0, result.vector, length(), target.length());
+		return result;
+	}
+	/**
+	* 配列の一部を削除します。<br>
+	* @param offset 削除開始点
+	* @param length 削除長さ
+	* @return 削除後の配列
+	*/
+	public FloatVector delete(int offset, int length)
+	{
+		FloatVector result = new FloatVector(length()-length);
+		System.arraycopy(vector, 0, result.vector, 0, offset);
+		System.arraycopy(vector, offset+length, result.vector, offset, length()-offset-length);
+		return result;
+	}
+	/**
+	 * 配列をランダムに並び替えます。<br>
+	 * Vector.shuffle()と同様に、この配列自体を並び替えてそのコピーを返します。<br>
+	 * @return 並び替えられた配列
+	 */
+	public FloatVector shuffle()
+	{
+		Random random = new Random();
+		for (int i=vector.length-1; i>0; i--){
+			int j = (int) Math.floor(random.nextDouble() * (i+1));
+			float tmp = vector[i];
+			vector[i] = vector[j];
+			vector[j] = tmp;
+		}
+		return new FloatVector(this);
+	}
+	/**
+	* 配列の順番を逆にします。<br>
+	* @return 逆にした配列
+	*/
+	public FloatVector invert()
+	{
+		FloatVector result = new FloatVector(length());
+		for(int i=0; i<length(); i++)
+			result.vector[i] = vector[length()-1-i];
+		return result;
+	}
+
+	//------------------------------------------------------------------------//
+	// 配列の演算関数                                                         //
+	//------------------------------------------------------------------------//
+	/**
+	* 配列の各要素ごとの和を計算します。
+	* @param target 加算する配列
+	* @return 和の配列
+	*/
+	public FloatVector plus(FloatVector target)
+	{
+		if(length() != target.length()){
+			Logging.logger.severe("different vector length");
+			return	null;	//長さが異なったらnull返し
+		}
+		float[] a = vector, b = target.vector, result = new float[length()];
+		for(int i=0; i<result.length; i++)
+			result[i] = a[i]+b[i];
+		return wrap(result);
+	}
+	/**
+	* 配列の各要素に定数を加算します。
+	* @param target 加算される定数
+	* @return 加算した配列
+	*/
+	public FloatVector plus(float target)
+	{
+		float[] a = vector, result = new float[length()];
+		for(int i=0; i<result.length; i++)
+			result[i] = a[i]+target;
+		return wrap(result);
+	}
+	/**
+	* 配列の各要素ごとの差を計算します。
+	* @param target 引く配列
+	* @return 差の配列
+	*/
+	public FloatVector minus(FloatVector target)
+	{
+		if(length() != target.length()){
+			Logging.logger.severe("different vector length");
+			return	null;	//長さが異なったらnull返し
+		}
+		float[] a = vector, b = target.vector, result = new float[length()];
+		for(int i=0; i<result.length; i++)
+			result[i] = a[i]-b[i];
+		return wrap(result);
+	}
+	/**
+	* 配列の各要素から定数を減算します。
+	* @param target 引く定数
+	* @return 減算した配列
+	*/
+	public FloatVector minus(float target)
+	{
+		float[] a = vector, result = new float[length()];
+		for(int i=0; i<result.length; i++)
+			result[i] = a[i]-target;
+		return wrap(result);
+	}
+	/**
+	* 2つの配列の各要素ごとの積を計算します。
+	* @param target 配列2
+	* @return 積の配列
+	*/
+	public FloatVector multiply(FloatVector target)
+	{
+		if(length() != target.length()){
+			Logging.logger.severe("different vector length");
+			return	null;	//長さが異なったらnull返し
+		}
+		float[] a = vector, b = target.vector, result = new float[length()];
+		for(int i=0; i<result.length; i++)
+			result[i] = a[i]*b[i];
+		return wrap(result);
+	}
+	/**
+	* 配列を定数倍します。
+	* @param target 定数
+	* @return 定数倍された配列
+	*/
+	public FloatVector multiply(float target)
+	{
+		float[] a = vector, result = new float[length()];
+		for(int i=0; i<result.length; i++)
+			result[i] = a[i]*target;
+		return wrap(result);
+	}
+	/**
+	* 配列の各要素ごとに割り算します。
+	* @param target 割る配列
+	* @return 除算された配列
+	*/
+	public FloatVector division(FloatVector target)
+	{
+		if(length() != target.length()){
+			Logging.logger.severe("different vector length");
+			return	null;	//長さが異なったらnull返し
+		}
+		float[] a = vector, b = target.vector, result = new float[length()];
+		for(int i=0; i<result.length; i++)
+			result[i] = a[i]/b[i];
+		return wrap(result);
+	}
+	/**
+	* 配列の1/定数を計算します。
+	* @param target 定数
+	* @return 1/定数にした配列
+	*/
+	public FloatVector division(float target)
+	{
+		float[] a = vector, result = new float[length()];
+		for(int i=0; i<result.length; i++)
+			result[i] = a[i]/target;
+		return wrap(result);
+	}
+	/**
+	* 配列の要素ごとの演算を遅延評価する式を返します。<br>
+	* 倍精度に変換したベクトルの式になるため、eval()の結果はVectorです。<br>
+	* @return この配列を倍精度にした値の式
+	*/
+	public VectorExpression lazy()
+	{
+		return toVector().lazy();
+	}
+	/**
+	* 配列の各要素を四捨五入した配列を返します。<br>
+	* @return 四捨五入した配列
+	*/
+	public FloatVector round()
+	{
+		float[] a = vector, result = new float[length()];
+		for(int i=0; i<result.length; i++)
+			result[i] = Math.round(a[i]);
+		return wrap(result);
+	}
+	/**
+	* 配列の各要素の絶対値を返します。<br>
+	* @return 絶対値の配列
+	*/
+	public FloatVector abs()
+	{
+		float[] a = vector, result = new float[length()];
+		for(int i=0; i<result.length; i++)
+			result[i] = Math.abs(a[i]);
+		return wrap(result);
+	}
+	/**
+	* 配列の各要素の平方根を返します。<br>
+	* @return 平方根の配列
+	*/
+	public FloatVector sqrt()
+	{
+		float[] a = vector, result = new float[length()];
+		for(int i=0; i<result.length; i++)
+			result[i] = (float)Math.sqrt(a[i]);
+		return wrap(result);
+	}
+	/**
+	* 配列の各要素の二乗を返します。<br>
+	* @return 二乗の配列
+	*/
+	public FloatVector square()
+	{
+		return multiply(this);
+	}
+
+	//------------------------------------------------------------------------//
+	// 配列の統計量                                                           //
+	//------------------------------------------------------------------------//
+	/**
+	* 配列の最大値を返します。<br>
+	* @return 最大値
+	*/
+	public float max()
+	{
+		float max = vector[0];
+		for(int i=1; i<length(); i++)
+			if(max < vector[i])	max = vector[i];
+		return max;
+	}
+	/**
+	* 配列の最大値と、そのインデックスを返します。<br>
+	* @param index 最大値のインデックス(index[0]に格納)
+	* @return 最大値
+	*/
+	public float max(int[] index)
+	{
+		float max = vector[0];
+		index[0] = 0;
+		for(int i=1; i<length(); i++){
+			if(max < vector[i]){
+				max = vector[i];
+				index[0] = i;
+			}
+		}
+		return max;
+	}
+	/**
+	* 配列の最小値を返します。<br>
+	* @return 最小値
+	*/
+	public float min()
+	{
+		float min = vector[0];
+		for(int i=1; i<length(); i++)
+			if(min > vector[i])	min = vector[i];
+		return min;
+	}
+	/**
+	* 配列の最小値と、そのインデックスを返します。<br>
+	* @param index 最小値のインデックス(index[0]に格納)
+	* @return 最小値
+	*/
+	public float min(int[] index)
+	{
+		float min = vector[0];
+		index[0] = 0;
+		for(int i=1; i<length(); i++){
+			if(min > vector[i]){
+				min = vector[i];
+				index[0] = i;
+			}
+		}
+		return min;
+	}
+	/**
+	* 配列の和をdoubleで累積して返します。<br>
+	* 要素数が大きい場合は並列で計算します。<br>
+	* @return 配列の和
+	*/
+	public double sum()
+	{
+		return sum(Reduction.isParallel(length()));
+	}
+	/**
+	* 並列計算の有無を指定して配列の和を返します。<br>
+	* BLOCK要素ごとの和をdoubleでペアワイズ加算し、ブロックの和同士もペアワイズ加算します。
+	* ブロックの分け方は要素数だけで決まるため、並列・逐次で結果は一致します。<br>
+	* @param parallel trueならForkJoinPoolで並列に計算する
+	* @return 配列の和
+	*/
+	public double sum(boolean parallel)
+	{
+		return reduce(null, parallel);
+	}
+	/**
+	* 配列の算術平均値(mean)を返します。<br>
+	* @return 平均値
+	*/
+	public double mean()
+	{
+		return sum()/length();
+	}
+	/**
+	 * 2つのベクトルの内積(各要素ごとの積の和)をdoubleで累積して返します。
+	 * @param target 内積を計算したい対象のベクトル
+	 * @return 自分とtargetの内積。長さが異なる場合はNaN
+	 */
+	public double innerProduct(FloatVector target)
+	{
+		return innerProduct(target, Reduction.isParallel(length()));
+	}
+	/**
+	 * 2つのベクトルの内積を、並列計算の有無を指定して返します。<br>
+	 * 並列・逐次で結果は一致します。<br>
+	 * @param target 内積を計算したい対象のベクトル
+	 * @param parallel trueならForkJoinPoolで並列に計算する
+	 * @return 自分とtargetの内積。長さが異なる場合はNaN
+	 */
+	public double innerProduct(FloatVector target, boolean parallel)
+	{
+		if(length() != target.length()){
+			Logging.logger.severe("different vector length");
+			return Double.NaN;
+		}
+		return reduce(target, parallel);
+	}
+
+	/**
+	 * ブロックごとの和(targetがnullの場合)または内積をdoubleで求め、ブロックの結果をペアワイズ加算します。
+	 */
+	private double reduce(FloatVector target, boolean parallel)
+	{
+		int blocks = (length() + BLOCK - 1) / BLOCK;
+		double[] partial = new double[blocks];
+		if(parallel)	Arrays.parallelSetAll(partial, k -> reduceBlock(target, k));
+		else			Arrays.setAll(partial, k -> reduceBlock(target, k));
+		return Reduction.sum(partial, 0, blocks, false);
+	}
+	/**
+	 * k番目のブロックの和または内積を返します。
+	 */
+	private double reduceBlock(FloatVector target, int k)
+	{
+		int from = k*BLOCK, count = Math.min(BLOCK, length()-from);
+		double[] a = new double[count];
+		for(int i=0; i<count; i++)
+			a[i] = vector[from+i];
+		if(target == null)	return Reduction.sum(a, 0, count, false);
+		double[] b = target == this ? a : new double[count];
+		if(b != a)
+			for(int i=0; i<count; i++)
+				b[i] = target.vector[from+i];
+		return Reduction.dot(a, b, 0, count, false);
+	}
+	/**
+	 * ベクトルのノルム(√a0^2+a1^2+a2^2+...)を計算します。
+	 * @return ノルム値
+	 */
+	public double norm()
+	{
+		return Math.sqrt(innerProduct(this));
+	}
+	/**
+	 * ベクトルのRMS(Root Mean Square、二乗平均平方根)を求めます。
+	 * @return RMS値
+	 */
+	public double rootMeanSquare()
+	{
+		return Math.sqrt(innerProduct(this)/length());
+	}
+	/**
+	 * 配列の中央値(median)を返します。<br>
+	 * 要素数が偶数の場合は、小さい方の中央値を返します。<br>
+	 * @return 中央値。空またはNaNを含む場合はNaN
+	 */
+	public double median()
+	{
+		return toVector().median();
+	}
+	/**
+	 * 分位数を返します。<br>
+	 * 倍精度に変換してVector.quantile()で計算します。<br>
+	 * @param p 確率(0～1)。0.5で中央値(偶数個の場合は中央2つの平均)
+	 * @return 分位数。pが範囲外の場合やNaNを含む場合はNaN
+	 */
+	public double quantile(double p)
+	{
+		return toVector().quantile(p);
+	}
+	/**
+	 * 複数の分位数をまとめて返します。<br>
+	 * @param p 確率(0～1)の配列
+	 * @return pと同じ順の分位数の配列
+	 */
+	public double[] quantiles(double... p)
+	{
+		return toVector().quantiles(p);
+	}
+	/**
+	 * パーセンタイルを返します。<br>
+	 * quantile(p/100)と同じです。<br>
+	 * @param p パーセント(0～100)
+	 * @return パーセンタイル値
+	 */
+	public double percentile(double p)
+	{
+		return quantile(p/100);
+	}
+	/**
+	 * 複数のパーセンタイルをまとめて返します。<br>
+	 * @param p パーセント(0～100)の配列
+	 * @return pと同じ順のパーセンタイル値の配列
+	 */
+	public double[] percentiles(double... p)
+	{
+		return toVector().percentiles(p);
+	}
+	/**
+	 * 要素数・平均・分散・最小値・最大値・和を1回の走査で集計して返します。<br>
+	 * BLOCK要素ずつdoubleに変換して集計するため、倍精度のベクトル全体は作りません。<br>
+	 * @return 統計量
+	 */
+	public Statistics statistics()
+	{
+		Statistics statistics = new Statistics();
+		double[] buffer = new double[Math.min(BLOCK, length())];
+		for(int from=0; from<length(); from+=BLOCK){
+			int count = Math.min(BLOCK, length()-from);
+			for(int i=0; i<count; i++)
+				buffer[i] = vector[from+i];
+			statistics.add(buffer, 0, count);
+		}
+		return statistics;
+	}
+	/**
+	 * 分散R^2を返します。
+	 * @return 分散
+	 */
+	public double variance()
+	{
+		return statistics().variance();
+	}
+	/**
+	 * 標準偏差Rを返します。
+	 * @return 標準偏差
+	 */
+	public double standardDeviation()
+	{
+		return statistics().standardDeviation();
+	}
+
+	/**
+	 * 不偏分散s^2を返します。
+	 * @return 不偏分散
+	 */
+	public double unbiasedVariance()
+	{
+		return statistics().unbiasedVariance();
+	}
+	/**
+	 * レンジ(分布の範囲)を返します。
+	 * @return レンジ
+	 */
+	public double range()
+	{
+		return statistics().range();
+	}
+	/**
+	 * ミッドレンジ(分布の中間の値)を返します。
+	 * @return ミッドレンジ
+	 */
+	public double midRange()
+	{
+		return statistics().midRange();
+	}
+	/**
+	 * 配列を標準化(平均0標準偏差1)してかえします。
+	 * @return 標準化された配列
+	 */
+	public FloatVector standardize()
+	{
+		Statistics statistics = statistics();
+		return affine(1/statistics.unbiasedStandardDeviation(), -statistics.mean()/statistics.unbiasedStandardDeviation());
+	}
+	/**
+	 * 偏差値得点(平均50,標準偏差10)を返します。
+	 * @return 偏差値
+	 */
+	public FloatVector deviationValue()
+	{
+		Statistics statistics = statistics();
+		double scale = 10/statistics.unbiasedStandardDeviation();
+		return affine(scale, 50-statistics.mean()*scale);
+	}
+	/**
+	* 配列を正規化して返します。<br>
+	* 最大値・最小値を与えると、最大値を1, 最小値を0として変換した配列を返します。<br>
+	* @param maxValue 正規化の最大値
+	* @param minValue 正規化の最小値
+	* @return 正規化された配列
+	*/
+	public FloatVector normalize(double maxValue, double minValue)
+	{
+		double difference = maxValue - minValue;
+		return affine(1/difference, -minValue/difference);
+	}
+	/**
+	* 配列を正規化して返します。<br>
+	* 配列の最大値・最小値を計算して、最大値を1, 最小値を0として変換した配列を返します。<br>
+	* @return 正規化された配列
+	*/
+	public FloatVector normalize()
+	{
+		return normalize(max(), min());
+	}
+	/**
+	 * 配列を非正規化して返します<br>
+	 * 最大値・最小値を与えると，(0～1)の値の配列を最大値・最小値までに変換した配列を返します<br>
+	 * @param maxValue 非正規化の最大値
+	 * @param minValue 非正規化の最小値
+	 * @return 非正規化された配列
+	 */
+	public FloatVector denormalize(double maxValue, double minValue)
+	{
+		return affine(maxValue - minValue, minValue);
+	}
+	/**
+	 * 各要素をdoubleで a*x+b に変換してfloatに丸めた配列を返します。
+	 */
+	private FloatVector affine(double a, double b)
+	{
+		float[] result = new float[length()];
+		for(int i=0; i<result.length; i++)
+			result[i] = (float)(a*vector[i] + b);
+		return wrap(result);
+	}
+
+	public static final String SORT_DESCEND = Vector.SORT_DESCEND;
+	public static final String SORT_ASCEND = Vector.SORT_ASCEND;
+	/**
+	* 配列を昇順にソートして書き換えます。<br>
+	* 返り値はインデックス配列で、Vector.sort()と同じ規則で並べます。<br>
+	* @return インデックス配列
+	*/
+	public int[] sort()
+	{
+		return sort(Vector.SORT_ASCEND);
+	}
+	/**
+	* 配列を昇順・降順を指定してソートして書き換えます。<br>
+	* 返り値はインデックス配列で、Vector.sort(direction)と同じ規則で並べます。<br>
+	* @param direction ソート方向("descend"(降順)もしくは"ascend"(昇順))
+	* @return インデックス配列
+	*/
+	public int[] sort(String direction)
+	{
+		Vector sorted = toVector();
+		int[] index = sorted.sort(direction);
+		if(index == null)	return null;
+		for(int i=0; i<length(); i++)
+			vector[i] = (float)sorted.vector[i];
+		return index;
+	}
+	/**
+	* 配列を書き換えずに、昇順に並べたときのインデックス配列を返します。<br>
+	* @return インデックス配列
+	*/
+	public int[] argsort()
+	{
+		return toVector().sort();
+	}
+	/**
+	* 配列を書き換えずに、昇順・降順を指定して並べたときのインデックス配列を返します。<br>
+	* @param direction ソート方向("descend"(降順)もしくは"ascend"(昇順))
+	* @return インデックス配列
+	*/
+	public int[] argsort(String direction)
+	{
+		return toVector().sort(direction);
+	}
+
+	/**
+	 * 配列をコピーせずにFloatVectorにします。
+	 */
+	private static FloatVector wrap(float[] target)
+	{
+		FloatVector result = new FloatVector(0);
+		result.vector = target;
+		return result;
+	}
+}
@@ -0,0 +1,276 @@
+package jp.ohtayo.commons.math;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 行列積C=A×Bを計算するカーネルです。<br>
+ * キャッシュに収まるブロックごとにAとBをパネル状にパッキングし、
+ * MR×NRのレジスタブロックを持つマイクロカーネルで計算します。<br>
+ * A, Bはストライド付きのMatrixをそのまま読み込み、Cは列方向のストライドが1の行列に書き込みます。<br>
+ * 並列計算では結果行列を行・列のブロックに分割し、ForkJoinPoolで各ブロックを計算します。<br>
+ * 各要素の積和の順序はブロック分割に依存しないため、並列・逐次で結果は一致します。<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+final class Gemm {
+
+	/** マイクロカーネルの行数			*/	static final int MR = 4;
+	/** マイクロカーネルの列数			*/	static final int NR = 4;
+	/** Aのパネルの行数(L2キャッシュ)	*/	static final int MC = 128;
+	/** パネルの内積方向の長さ(L1キャッシュ)	*/	static final int KC = 256;
+	/** Bのパネルの列数(L3キャッシュ)	*/	static final int NC = 2048;
+	/** この演算量以下はパッキングせず単純ループで計算する	*/	static final long SMALL = 32L*32*32;
+	/** この演算量以上は並列で計算する	*/	static final long PARALLEL_THRESHOLD = 128L*128*128;
+	/** 並列計算で1タスクが受け持つ最大の行数	*/	static final int TASK_ROWS = MC;
+	/** 並列計算で1タスクが受け持つ最大の列数	*/	static final int TASK_COLUMNS = 512;
+
+	private Gemm(){}
+
+	/**
+	 * 行列積a×bを計算し、cに加算します。<br>
+	 * cは列方向のストライドが1(columnStride=1)である必要があります。<br>
+	 * @param a 左側の行列
+	 * @param b 右側の行列
+	 * @param c 結果を加算する行列
+	 */
+	static void multiply(Matrix a, Matrix b, Matrix c)
+	{
+		multiply(a, b, c, isParallel(a.rows, b.columns, a.columns));
+	}
+
+	/**
+	 * 並列計算するかを指定して行列積a×bを計算し、cに加算します。<br>
+	 * @param a 左側の行列
+	 * @param b 右側の行列
+	 * @param c 結果を加算する行列
+	 * @param parallel trueならForkJoinPoolで並列に計算する
+	 */
+	static void multiply(Matrix a, Matrix b, Matrix c, boolean parallel)
+	{
+		int m = a.rows, n = b.columns, k = a.columns;
+		if(m == 0 || n == 0 || k == 0) return;
+
+		if((long)m*n*k <= SMALL){
+			multiplySmall(a, b, c);
+			return;
+		}
+		if(parallel){
+			ForkJoinPool.commonPool().invoke(new MultiplyTask(a, b, c, 0, m, 0, n));
+			return;
+		}
+		double[] aPack = new double[roundUp(Math.min(m, MC), MR) * Math.min(k, KC)];
+		double[] bPack = new double[roundUp(Math.min(n, NC), NR) * Math.min(k, KC)];
+		multiplyBlock(a, b, c, 0, m, 0, n, aPack, bPack);
+	}
+
+	/**
+	 * m×k行列とk×n行列の積を並列で計算すべきかを返します。<br>
+	 * 演算量がしきい値未満の場合やプロセッサが1つの場合は逐次計算します。<br>
+	 * @param m 結果の行数
+	 * @param n 結果の列数
+	 * @param k 内積方向の長さ
+	 * @return 並列計算すべきならtrue
+	 */
+	static boolean isParallel(int m, int n, int k)
+	{
+		return (long)m*n*k >= PARALLEL_THRESHOLD
+				&& (m > TASK_ROWS || n > TASK_COLUMNS)
+				&& ForkJoinPool.getCommonPoolParallelism() > 1;
+	}
+
+	/**
+	 * 結果行列のブロックを計算するタスクです。<br>
+	 * ブロックがTASK_ROWS×TASK_COLUMNS以下になるまで長い方向を半分に分割します。<br>
+	 */
+	private static final class MultiplyTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Matrix a, b, c;
+		private final int rowFrom, rowTo, columnFrom, columnTo;
+
+		MultiplyTask(Matrix a, Matrix b, Matrix c, int rowFrom, int rowTo, int columnFrom, int columnTo)
+		{
+			this.a = a; this.b = b; this.c = c;
+			this.rowFrom = rowFrom; this.rowTo = rowTo;
+			this.columnFrom = columnFrom; this.columnTo = columnTo;
+		}
+
+		@Override
+		protected void compute()
+		{
+			int m = rowTo-rowFrom, n = columnTo-columnFrom;
+			if(m > TASK_ROWS && (m >= n || n <= TASK_COLUMNS)){
+				int middle = rowFrom + roundUp(m/2, MR);
+				invokeAll(new MultiplyTask(a, b, c, rowFrom, middle, columnFrom, columnTo),
+						new MultiplyTask(a, b, c, middle, rowTo, columnFrom, columnTo));
+			}else if(n > TASK_COLUMNS){
+				int middle = columnFrom + roundUp(n/2, NR);
+				invokeAll(new MultiplyTask(a, b, c, rowFrom, rowTo, columnFrom, middle),
+						new MultiplyTask(a, b, c, rowFrom, rowTo, middle, columnTo));
+			}else{
+				int k = a.columns;
+				double[] aPack = new double[roundUp(m, MR) * Math.min(k, KC)];
+				double[] bPack = new double[roundUp(n, NR) * Math.min(k, KC)];
+				multiplyBlock(a, b, c, rowFrom, rowTo, columnFrom, columnTo, aPack, bPack);
+			}
+		}
+	}
+
+	/**
+	 * 結果行列の範囲[rowFrom, rowTo)×[columnFrom, columnTo)について行列積を計算し、cに加算します。<br>
+	 * パッキング用の作業配列は呼び出し側で確保します。<br>
+	 * @param a 左側の行列
+	 * @param b 右側の行列
+	 * @param c 結果を加算する行列
+	 * @param rowFrom 計算する最初の行
+	 * @param rowTo 計算する最後の行+1
+	 * @param columnFrom 計算する最初の列
+	 * @param columnTo 計算する最後の列+1
+	 * @param aPack Aのパッキング用作業配列
+	 * @param bPack Bのパッキング用作業配列
+	 */
+	static void multiplyBlock(Matrix a, Matrix b, Matrix c, int rowFrom, int rowTo, int columnFrom, int columnTo, double[] aPack, double[] bPack)
+	{
+		int k = a.columns;
+		for(int jc=columnFrom; jc<columnTo; jc+=NC){
+			int nc = Math.min(NC, columnTo-jc);
+			for(int pc=0; pc<k; pc+=KC){
+				int kc = Math.min(KC, k-pc);
+				packB(b, pc, kc, jc, nc, bPack);
+				for(int ic=rowFrom; ic<rowTo; ic+=MC){
+					int mc = Math.min(MC, rowTo-ic);
+					packA(a, ic, mc, pc, kc, aPack);
+					macroKernel(mc, nc, kc, aPack, bPack, c, ic, jc);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Aの[row, row+mc)×[column, column+kc)をMR行ずつのパネルに詰めます。<br>
+	 * パネル内はk方向にMR個ずつ並び、端数の行は0で埋めます。<br>
+	 */
+	private static void packA(Matrix a, int row, int mc, int column, int kc, double[] pack)
+	{
+		double[] data = a.data;
+		int rs = a.rowStride, cs = a.columnStride;
+		int p = 0;
+		for(int ir=0; ir<mc; ir+=MR){
+			int mr = Math.min(MR, mc-ir);
+			int base = a.index(row+ir, column);
+			for(int kk=0; kk<kc; kk++){
+				int from = base + kk*cs;
+				for(int i=0; i<mr; i++)
+					pack[p+i] = data[from + i*rs];
+				for(int i=mr; i<MR; i++)
+					pack[p+i] = 0;
+				p += MR;
+			}
+		}
+	}
+
+	/**
+	 * Bの[row, row+kc)×[column, column+nc)をNR列ずつのパネルに詰めます。<br>
+	 * パネル内はk方向にNR個ずつ並び、端数の列は0で埋めます。<br>
+	 */
+	private static void packB(Matrix b, int row, int kc, int column, int nc, double[] pack)
+	{
+		double[] data = b.data;
+		int rs = b.rowStride, cs = b.columnStride;
+		int p = 0;
+		for(int jr=0; jr<nc; jr+=NR){
+			int nr = Math.min(NR, nc-jr);
+			int base = b.index(row, column+jr);
+			for(int kk=0; kk<kc; kk++){
+				int from = base + kk*rs;
+				for(int j=0; j<nr; j++)
+					pack[p+j] = data[from + j*cs];
+				for(int j=nr; j<NR; j++)
+					pack[p+j] = 0;
+				p += NR;
+			}
+		}
+	}
+
+	/**
+	 * パッキングしたパネル同士の積を、MR×NRのマイクロカーネルに分けて計算します。
+	 */
+	private static void macroKernel(int mc, int nc, int kc, double[] aPack, double[] bPack, Matrix c, int row, int column)
+	{
+		for(int jr=0; jr<nc; jr+=NR){
+			int nr = Math.min(NR, nc-jr);
+			for(int ir=0; ir<mc; ir+=MR){
+				int mr = Math.min(MR, mc-ir);
+				microKernel(kc, aPack, ir*kc, bPack, jr*kc, c, row+ir, column+jr, mr, nr);
+			}
+		}
+	}
+
+	/**
+	 * MR×NRのブロックの積和を16個のレジスタ変数に累積し、最後にCへ加算します。
+	 */
+	private static void microKernel(int kc, double[] a, int pa, double[] b, int pb, Matrix c, int row, int column, int mr, int nr)
+	{
+		double c00=0, c01=0, c02=0, c03=0;
+		double c10=0, c11=0, c12=0, c13=0;
+		double c20=0, c21=0, c22=0, c23=0;
+		double c30=0, c31=0, c32=0, c33=0;
+
+		for(int kk=0; kk<kc; kk++, pa+=MR, pb+=NR){
+			double a0=a[pa], a1=a[pa+1], a2=a[pa+2], a3=a[pa+3];
+			double b0=b[pb], b1=b[pb+1], b2=b[pb+2], b3=b[pb+3];
+			c00 += a0*b0; c01 += a0*b1; c02 += a0*b2; c03 += a0*b3;
+			c10 += a1*b0; c11 += a1*b1; c12 += a1*b2; c13 += a1*b3;
+			c20 += a2*b0; c21 += a2*b1; c22 += a2*b2; c23 += a2*b3;
+			c30 += a3*b0; c31 += a3*b1; c32 += a3*b2; c33 += a3*b3;
+		}
+
+		double[] out = c.data;
+		int ldc = c.rowStride;
+		int p = c.index(row, column);
+		if(mr == MR && nr == NR){
+			out[p] += c00; out[p+1] += c01; out[p+2] += c02; out[p+3] += c03;	p += ldc;
+			out[p] += c10; out[p+1] += c11; out[p+2] += c12; out[p+3] += c13;	p += ldc;
+			out[p] += c20; out[p+1] += c21; out[p+2] += c22; out[p+3] += c23;	p += ldc;
+			out[p] += c30; out[p+1] += c31; out[p+2] += c32; out[p+3] += c33;
+			return;
+		}
+		//端数ブロックは有効な部分だけ書き込む
+		double[] block = {
+				c00, c01, c02, c03,
+				c10, c11, c12, c13,
+				c20, c21, c22, c23,
+				c30, c31, c32, c33 };
+		for(int i=0; i<mr; i++, p+=ldc)
+			for(int j=0; j<nr; j++)
+				out[p+j] += block[i*NR+j];
+	}
+
+	/**
+	 * 小さい行列の積をi-k-j順の単純ループで計算し、cに加算します。
+	 */
+	private static void multiplySmall(Matrix a, Matrix b, Matrix c)
+	{
+		double[] ad = a.data, bd = b.data, cd = c.data;
+		int m = a.rows, n = b.columns, k = a.columns;
+		int bcs = b.columnStride;
+		for(int i=0; i<m; i++){
+			int ci = c.index(i, 0);
+			int ai = a.index(i, 0);
+			for(int kk=0; kk<k; kk++, ai+=a.columnStride){
+				double aik = ad[ai];
+				int bk = b.index(kk, 0);
+				for(int j=0; j<n; j++, bk+=bcs)
+					cd[ci+j] += aik * bd[bk];
+			}
+		}
+	}
+
+	/**
+	 * valueをunitの倍数に切り上げます。
+	 */
+	static int roundUp(int value, int unit)
+	{
+		return (value+unit-1)/unit*unit;
+	}
+}
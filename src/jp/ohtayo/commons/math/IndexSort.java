@@ -0,0 +1,209 @@
+package jp.ohtayo.commons.math;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 値の配列とインデックス配列を組にして並び替えるソートです。<br>
+ * 値が等しい要素は元のインデックスの小さい順に並べるため、結果は一意に決まり、安定ソートになります。<br>
+ * 逐次計算はイントロソート(3つの中央値をピボットにしたクイックソート、
+ * 分割の深さが2log2(n)を超えたらヒープソート、小さい範囲は挿入ソート)で、
+ * 整列済みや同じ値の多い配列でも最悪O(n log n)、再帰の深さはO(log n)です。<br>
+ * 要素数が大きい場合は配列を分割してForkJoinPoolで並列にソートし、マージします。並列・逐次で結果は一致します。<br>
+ * 値の比較はDouble.compareと同じ順序で、NaNは最大の値として扱います。<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+final class IndexSort {
+
+	/** 挿入ソートに切り替える要素数		*/	static final int INSERTION = 16;
+	/** この要素数以上は並列でソートする	*/	static final int PARALLEL_THRESHOLD = 1 << 17;
+	/** 並列ソートで1タスクが受け持つ要素数	*/	static final int TASK_LENGTH = 1 << 14;
+
+	private IndexSort(){}
+
+	/**
+	 * 0からlength-1までのインデックス配列を返します。
+	 * @param length 要素数
+	 * @return インデックス配列
+	 */
+	static int[] identity(int length)
+	{
+		int[] index = new int[length];
+		for(int i=0; i<length; i++)
+			index[i] = i;
+		return index;
+	}
+
+	/**
+	 * 値の配列とインデックス配列を並び替えます。
+	 * @param value 値の配列
+	 * @param index インデックス配列(値が等しい場合の順序に使う)
+	 * @param descend trueなら降順、falseなら昇順
+	 */
+	static void sort(double[] value, int[] index, boolean descend)
+	{
+		int sign = descend ? -1 : 1;
+		int length = value.length;
+		if(length >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1){
+			ForkJoinPool.commonPool().invoke(
+					new MergeTask(value, index, sign, new double[length], new int[length], 0, length));
+		}else{
+			introSort(value, index, sign, 0, length);
+		}
+	}
+
+	/**
+	 * (値, インデックス)の組を比較します。
+	 * @return 前者が先に並ぶなら負、後に並ぶなら正
+	 */
+	private static int compare(double a, int ia, double b, int ib, int sign)
+	{
+		int c = Double.compare(a, b);
+		return c != 0 ? sign*c : Integer.compare(ia, ib);
+	}
+
+	private static void swap(double[] value, int[] index, int i, int j)
+	{
+		double temp = value[i];	int tmp = index[i];
+		value[i] = value[j];	index[i] = index[j];
+		value[j] = temp;		index[j] = tmp;
+	}
+
+	/**
+	 * [low, high)をイントロソートで並び替えます。
+	 */
+	private static void introSort(double[] value, int[] index, int sign, int low, int high)
+	{
+		int depth = 2*(32-Integer.numberOfLeadingZeros(high-low));
+		while(high-low > INSERTION)
+		{
+			if(depth-- == 0){
+				heapSort(value, index, sign, low, high);
+				return;
+			}
+			//先頭・中央・末尾を並べ、中央の値をピボットにしてHoare分割する
+			int last = high-1;
+			int middle = (low+last) >>> 1;
+			if(compare(value[middle], index[middle], value[low], index[low], sign) < 0)	swap(value, index, middle, low);
+			if(compare(value[last], index[last], value[low], index[low], sign) < 0)		swap(value, index, last, low);
+			if(compare(value[last], index[last], value[middle], index[middle], sign) < 0)	swap(value, index, last, middle);
+			double pivot = value[middle];
+			int pivotIndex = index[middle];
+			int i = low-1, j = high;
+			while(true){
+				do i++; while(compare(value[i], index[i], pivot, pivotIndex, sign) < 0);
+				do j--; while(compare(value[j], index[j], pivot, pivotIndex, sign) > 0);
+				if(i >= j) break;
+				swap(value, index, i, j);
+			}
+			//短い方を再帰し、長い方はループで処理して再帰の深さを抑える
+			if(j+1-low < high-j-1){
+				introSort(value, index, sign, low, j+1);
+				low = j+1;
+			}else{
+				introSort(value, index, sign, j+1, high);
+				high = j+1;
+			}
+		}
+		insertionSort(value, index, sign, low, high);
+	}
+
+	/**
+	 * [low, high)を挿入ソートで並び替えます。
+	 */
+	private static void insertionSort(double[] value, int[] index, int sign, int low, int high)
+	{
+		for(int i=low+1; i<high; i++){
+			double key = value[i];
+			int keyIndex = index[i];
+			int j = i-1;
+			while(j >= low && compare(value[j], index[j], key, keyIndex, sign) > 0){
+				value[j+1] = value[j];
+				index[j+1] = index[j];
+				j--;
+			}
+			value[j+1] = key;
+			index[j+1] = keyIndex;
+		}
+	}
+
+	/**
+	 * [low, high)をヒープソートで並び替えます。
+	 */
+	private static void heapSort(double[] value, int[] index, int sign, int low, int high)
+	{
+		int n = high-low;
+		for(int i=n/2-1; i>=0; i--)
+			siftDown(value, index, sign, low, i, n);
+		for(int end=n-1; end>0; end--){
+			swap(value, index, low, low+end);
+			siftDown(value, index, sign, low, 0, end);
+		}
+	}
+	private static void siftDown(double[] value, int[] index, int sign, int low, int root, int n)
+	{
+		while(true){
+			int child = 2*root+1;
+			if(child >= n)	return;
+			int c = low+child;
+			if(child+1 < n && compare(value[c+1], index[c+1], value[c], index[c], sign) > 0){
+				child++;
+				c++;
+			}
+			int r = low+root;
+			if(compare(value[r], index[r], value[c], index[c], sign) >= 0)	return;
+			swap(value, index, r, c);
+			root = child;
+		}
+	}
+
+	/**
+	 * [low, high)を2つに分けて並列にソートし、マージするタスクです。
+	 */
+	private static final class MergeTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final double[] value;
+		private final int[] index;
+		private final int sign;
+		private final double[] valueBuffer;
+		private final int[] indexBuffer;
+		private final int low, high;
+
+		MergeTask(double[] value, int[] index, int sign, double[] valueBuffer, int[] indexBuffer, int low, int high)
+		{
+			this.value = value;
+			this.index = index;
+			this.sign = sign;
+			this.valueBuffer = valueBuffer;
+			this.indexBuffer = indexBuffer;
+			this.low = low;
+			this.high = high;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if(high-low <= TASK_LENGTH){
+				introSort(value, index, sign, low, high);
+				return;
+			}
+			int middle = (low+high) >>> 1;
+			invokeAll(new MergeTask(value, index, sign, valueBuffer, indexBuffer, low, middle),
+					new MergeTask(value, index, sign, valueBuffer, indexBuffer, middle, high));
+			//整列済みの2つの範囲をバッファにマージして書き戻す
+			int i = low, j = middle, k = low;
+			while(i < middle && j < high){
+				if(compare(value[i], index[i], value[j], index[j], sign) <= 0){
+					valueBuffer[k] = value[i];	indexBuffer[k++] = index[i++];
+				}else{
+					valueBuffer[k] = value[j];	indexBuffer[k++] = index[j++];
+				}
+			}
+			while(i < middle){	valueBuffer[k] = value[i];	indexBuffer[k++] = index[i++];	}
+			while(j < high){	valueBuffer[k] = value[j];	indexBuffer[k++] = index[j++];	}
+			System.arraycopy(valueBuffer, low, value, low, high-low);
+			System.arraycopy(indexBuffer, low, index, low, high-low);
+		}
+	}
+}
@@ -0,0 +1,221 @@
+package jp.ohtayo.commons.math;
+
+import jp.ohtayo.commons.log.Logging;
+
+/**
+ * 行列のLU分解クラスです。<br>
+ * 部分ピボット選択付きのガウス消去法で正方行列AをPA=LUに分解します。<br>
+ * Lは対角成分が1の下三角行列、Uは上三角行列、Pは行の置換です。<br>
+ * 一度分解しておけば、行列式・連立一次方程式の解・逆行列をO(n^3)以下で繰り返し求められます。<br>
+ * 例：<br>
+ * 		LUDecomposition lu = new LUDecomposition(A);<br>
+ * 		double det = lu.det();<br>
+ * 		Matrix x = lu.solve(b);	//Ax=bの解<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+public class LUDecomposition {
+
+	/** LとUをまとめて格納した行優先配列(対角より下がL、対角以上がU)	*/	private double[] lu;
+	/** 行列の次数										*/	private int n;
+	/** ピボット(分解後のi行目が元の行列の何行目か)			*/	private int[] pivot;
+	/** 行の置換の符号(偶置換で1、奇置換で-1)				*/	private int pivotSign;
+
+	/**
+	 * 行列をLU分解します。<br>
+	 * 入力行列は書き換えません。<br>
+	 * @param target 分解する正方行列
+	 * @throws IllegalArgumentException 正方行列でない場合
+	 */
+	public LUDecomposition(Matrix target)
+	{
+		if(target.length() != target.columnLength())
+			throw new IllegalArgumentException("matrix is not square: " + target.length() + "x" + target.columnLength());
+		n = target.length();
+		lu = new double[n*n];
+		for(int r=0; r<n; r++)
+			target.copyRow(r, lu, r*n);
+
+		pivot = new int[n];
+		for(int i=0; i<n; i++)	pivot[i] = i;
+		pivotSign = 1;
+
+		for(int k=0; k<n; k++)
+		{
+			//絶対値が最大の要素をピボットに選ぶ
+			int p = k;
+			double max = Math.abs(lu[k*n+k]);
+			for(int i=k+1; i<n; i++){
+				double value = Math.abs(lu[i*n+k]);
+				if(value > max){
+					max = value;
+					p = i;
+				}
+			}
+			if(p != k){
+				for(int j=0; j<n; j++){
+					double temp = lu[p*n+j];
+					lu[p*n+j] = lu[k*n+j];
+					lu[k*n+j] = temp;
+				}
+				int temp = pivot[p];	pivot[p] = pivot[k];	pivot[k] = temp;
+				pivotSign = -pivotSign;
+			}
+
+			//ピボットが0なら、この列の消去は不要(特異行列)
+			double diagonal = lu[k*n+k];
+			if(diagonal == 0)	continue;
+
+			//k行目より下の行からk列目を消去する
+			for(int i=k+1; i<n; i++){
+				double factor = lu[i*n+k] / diagonal;
+				lu[i*n+k] = factor;
+				if(factor == 0)	continue;
+				for(int j=k+1; j<n; j++)
+					lu[i*n+j] -= factor * lu[k*n+j];
+			}
+		}
+	}
+
+	/**
+	 * 分解した行列が特異(正則でない)かどうかを返します。
+	 * @return Uの対角成分に0があればtrue
+	 */
+	public boolean isSingular()
+	{
+		for(int i=0; i<n; i++){
+			if(lu[i*n+i] == 0)	return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 行列式を返します。
+	 * @return 行列式
+	 */
+	public double det()
+	{
+		double det = pivotSign;
+		for(int i=0; i<n; i++)
+			det *= lu[i*n+i];
+		return det;
+	}
+	/**
+	 * 行列式を返します。<br>
+	 * det()のラッパーです。<br>
+	 * @return 行列式
+	 */
+	public double determinant()
+	{
+		return det();
+	}
+
+	/**
+	 * 下三角行列Lを返します。
+	 * @return 対角成分が1の下三角行列
+	 */
+	public Matrix getL()
+	{
+		Matrix result = new Matrix(n, n);
+		for(int i=0; i<n; i++){
+			for(int j=0; j<i; j++)
+				result.data[i*n+j] = lu[i*n+j];
+			result.data[i*n+i] = 1;
+		}
+		return result;
+	}
+
+	/**
+	 * 上三角行列Uを返します。
+	 * @return 上三角行列
+	 */
+	public Matrix getU()
+	{
+		Matrix result = new Matrix(n, n);
+		for(int i=0; i<n; i++)
+			System.arraycopy(lu, i*n+i, result.data, i*n+i, n-i);
+		return result;
+	}
+
+	/**
+	 * ピボット(行の置換)を返します。<br>
+	 * 返り値がpivotの場合、LUのi行目は元の行列のpivot[i]行目に対応します。<br>
+	 * @return ピボット配列
+	 */
+	public int[] getPivot()
+	{
+		int[] result = new int[n];
+		System.arraycopy(pivot, 0, result, 0, n);
+		return result;
+	}
+
+	/**
+	 * 連立一次方程式AX=Bの解Xを求めます。<br>
+	 * Bの各列を右辺とする方程式をまとめて前進・後退代入で解きます。<br>
+	 * @param target 右辺の行列B(行数は分解した行列の次数と等しいこと)
+	 * @return 解の行列X。行数が合わないか特異行列の場合はnull
+	 */
+	public Matrix solve(Matrix target)
+	{
+		if(target.length() != n){
+			Logging.logger.severe("different matrix size");
+			return null;
+		}
+		if(isSingular()){
+			Logging.logger.severe("matrix is singular");
+			return null;
+		}
+		int m = target.columnLength();
+		Matrix result = new Matrix(n, m);
+		double[] x = result.data;
+
+		//行の置換を適用してコピー
+		for(int i=0; i<n; i++)
+			target.copyRow(pivot[i], x, i*m);
+
+		//前進代入 LY=PB
+		for(int k=0; k<n; k++){
+			for(int i=k+1; i<n; i++){
+				double factor = lu[i*n+k];
+				if(factor == 0)	continue;
+				for(int j=0; j<m; j++)
+					x[i*m+j] -= factor * x[k*m+j];
+			}
+		}
+		//後退代入 UX=Y
+		for(int k=n-1; k>=0; k--){
+			double diagonal = lu[k*n+k];
+			for(int j=0; j<m; j++)
+				x[k*m+j] /= diagonal;
+			for(int i=0; i<k; i++){
+				double factor = lu[i*n+k];
+				if(factor == 0)	continue;
+				for(int j=0; j<m; j++)
+					x[i*m+j] -= factor * x[k*m+j];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 連立一次方程式Ax=bの解xを求めます。
+	 * @param target 右辺のベクトルb
+	 * @return 解のベクトルx。長さが合わないか特異行列の場合はnull
+	 */
+	public Vector solve(Vector target)
+	{
+		Matrix result = solve(new Matrix(target.get(), Matrix.DIRECTION_COLUMN));
+		if(result == null)	return null;
+		return new Vector(result.data);
+	}
+
+	/**
+	 * 逆行列を返します。<br>
+	 * 単位行列を右辺としてsolve()を解きます。<br>
+	 * @return 逆行列。特異行列の場合はnull
+	 */
+	public Matrix inverse()
+	{
+		return solve(new Matrix(n, n, Matrix.CONSTRUCT_IDENTITY));
+	}
+}
@@ -0,0 +1,102 @@
+package jp.ohtayo.commons.math;
+
+import jp.ohtayo.commons.log.Logging;
+
+/**
+ * 重回帰分析の結果を保持するクラスです。<br>
+ * 重回帰式y=b0+ b1*x1+ b2*x2+ ...の係数を、説明変数行列のQR分解による最小二乗法で求めます。<br>
+ * 一度当てはめれば、係数・回帰値・決定係数を再計算せずに取り出せます。<br>
+ * 例：<br>
+ * 		LinearRegression fit = data.linearRegression(0, 1, 2);<br>
+ * 		Vector b = fit.getCoefficient();<br>
+ * 		double r2 = fit.getDetermination();<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+public class LinearRegression {
+
+	/** 係数(b0, b1, b2, ...)	*/	private Vector coefficient;
+	/** 回帰値					*/	private Vector regression;
+	/** 被説明変数の実測値		*/	private Vector observed;
+	/** 決定係数				*/	private double determination = Double.NaN;
+
+	/**
+	 * 行列の列を指定して重回帰式を当てはめます。
+	 * @param data データ行列
+	 * @param y 被説明変数の列番号
+	 * @param x 説明変数の列番号配列
+	 */
+	public LinearRegression(Matrix data, int y, int... x)
+	{
+		int rows = data.length();
+		int columns = x.length+1;
+
+		//定数項の列と説明変数の列を並べた行列Xを作る
+		Matrix X = new Matrix(rows, columns);
+		for(int i=0; i<rows; i++){
+			X.data[i*columns] = 1;
+			for(int t=0; t<x.length; t++)
+				X.data[i*columns+t+1] = data.get(i, x[t]);
+		}
+		observed = data.getColumn(y);
+
+		coefficient = new QRDecomposition(X).solve(observed);
+		if(coefficient == null){
+			Logging.logger.severe("regression could not be fitted");
+			return;
+		}
+
+		//回帰値と決定係数を求める
+		double[] estimate = new double[rows];
+		double mean = observed.mean();
+		double residualSum = 0, totalSum = 0;
+		for(int i=0; i<rows; i++){
+			double temp = 0;
+			for(int t=0; t<columns; t++)
+				temp += coefficient.vector[t] * X.data[i*columns+t];
+			estimate[i] = temp;
+			residualSum += Numeric.square(temp - observed.vector[i]);
+			totalSum += Numeric.square(observed.vector[i] - mean);
+		}
+		regression = new Vector(estimate);
+		determination = 1 - residualSum / totalSum;
+	}
+
+	/**
+	 * 重回帰式の係数を返します。
+	 * @return 係数配列([0]が定数項b0)。当てはめられなかった場合はnull
+	 */
+	public Vector getCoefficient()
+	{
+		return coefficient;
+	}
+
+	/**
+	 * 回帰値(重回帰式で推定した値y)を返します。
+	 * @return 回帰値。当てはめられなかった場合はnull
+	 */
+	public Vector getRegression()
+	{
+		return regression;
+	}
+
+	/**
+	 * 残差(実測値-回帰値)を返します。
+	 * @return 残差。当てはめられなかった場合はnull
+	 */
+	public Vector getResidual()
+	{
+		if(regression == null)	return null;
+		return observed.minus(regression);
+	}
+
+	/**
+	 * 重回帰の決定係数η^2を返します。<br>
+	 * 重回帰式で完全に説明できれば1、説明できなければ0になる。<br>
+	 * @return 決定係数。当てはめられなかった場合はNaN
+	 */
+	public double getDetermination()
+	{
+		return determination;
+	}
+}
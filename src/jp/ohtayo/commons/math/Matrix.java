@@ -1,17 +1,29 @@
 package jp.ohtayo.commons.math;
 
+import java.util.Arrays;
+
+import jp.ohtayo.commons.log.Logging;
 import jp.ohtayo.commons.random.Random;
+import jp.ohtayo.commons.random.RandomGenerator;
 
 /**
  * 行列クラスです。<br>
  * 行列同士の四則演算や、転置行列・逆行列・行列式等の計算を行うメソッドを含みます。<br>
- * 内部行列はdouble[][]で表します。<br>
+ * 内部行列は行優先の1次元配列double[]と行・列のストライドで表します。<br>
+ * ～View()系のメソッドは内部配列をコピーせず、ストライドを変えて同じ配列を参照する行列(ビュー)を返します。<br>
+ * ビューへの書き込みは元の行列に反映されます。独立した行列が必要な場合はcopy()を使用します。<br>
  *
  * @author ohtayo (ohta.yoshihiro@outlook.jp)
  */
 public class Matrix{
 
-	protected double[][] matrix;
+	/** 行列の要素(行優先の1次元配列)	*/	protected double[] data;
+	/** 先頭要素の位置				*/	protected int offset;
+	/** 行数						*/	protected int rows;
+	/** 列数						*/	protected int columns;
+	/** 行方向のストライド			*/	protected int rowStride;
+	/** 列方向のストライド			*/	protected int columnStride;
+
 	/**
 	 * 行数と列数を指定して行列を生成します。
 	 * @param row number of rows
@@ -19,7 +31,7 @@ public class Matrix{
 	 */
 	public Matrix(int row, int column)
 	{
-		this.matrix = new double[row][column];
+		allocate(row, column);
 	}
 	/**
 	 * 行数と列数を指定して行列を生成します。
@@ -27,7 +39,7 @@ public class Matrix{
 	 */
 	public Matrix(int dimension)
 	{
-		matrix = new double[dimension][dimension];
+		allocate(dimension, dimension);
 	}
 	/**
 	 * 値を指定して行列を生成します。
@@ -35,9 +47,7 @@ public class Matrix{
 	 */
 	public Matrix(double[][] target)
 	{
-		matrix = new double[target.length][target[0].length];
-		for(int i=0; i<target.length; i++)
-			System.arraycopy(target[i], 0, matrix[i], 0, target[0].length);
+		set(target);
 	}
 	/**
 	 * 値を指定して行列を生成します。1行n列もしくはn行1列の行列を作成します．
@@ -46,12 +56,11 @@ public class Matrix{
 	 */
 	public Matrix(double[] target, String direction)
 	{
-		matrix = new double[1][target.length];
-		System.arraycopy(target, 0, matrix[0], 0, target.length);
 		if(direction == DIRECTION_COLUMN)
-		{
-			matrix = this.transpose().get();
-		}
+			allocate(target.length, 1);
+		else
+			allocate(1, target.length);
+		System.arraycopy(target, 0, data, 0, target.length);
 	}
 	/**
 	 * 全ての要素がvalueの行列を生成します。
@@ -61,12 +70,8 @@ public class Matrix{
 	 */
 	public Matrix(int row, int column, double value)
 	{
-		matrix = new double[row][column];
-		for(int r=0; r<row; r++){
-			for(int c=0; c<column; c++){
-				matrix[r][c] = value;
-			}
-		}
+		allocate(row, column);
+		Arrays.fill(data, value);
 	}
 	public static final String CONSTRUCT_RANDOM = "random";
 	public static final String CONSTRUCT_IDENTITY = "identity";
@@ -80,20 +85,14 @@ public class Matrix{
 	{
 		if(string == CONSTRUCT_RANDOM)
 		{
-			Random random = new Random();
-			matrix = random.matrix(row, column);
+			allocate(row, column);
+			new Random().fill(data);
 		}
 		else if(string == CONSTRUCT_IDENTITY)
 		{
-			matrix = new double[row][column];
-			for(int r=0; r<row; r++){
-				for(int c=0; c<column; c++){
-					if( r == c )
-						matrix[r][c] = 1;
-					else
-						matrix[r][c] = 0;
-				}
-			}
+			allocate(row, column);
+			for(int i=0; i<Math.min(row, column); i++)
+				data[index(i, i)] = 1;
 		}
 	}
 	/**
@@ -102,11 +101,73 @@ public class Matrix{
 	 */
 	public Matrix( Matrix value )
 	{
-		matrix = new double[value.length()][value.columnLength()];
-		for(int i=0; i<value.length(); i++)
-			System.arraycopy(value.getRow(i).get(), 0, matrix[i], 0, value.columnLength());
+		allocate(value.length(), value.columnLength());
+		for(int r=0; r<rows; r++)
+			value.copyRow(r, data, r*columns);
+	}
+
+	/**
+	 * 内部配列を共有するビューを生成します。
+	 * @param data 共有する内部配列
+	 * @param offset 先頭要素の位置
+	 * @param row 行数
+	 * @param column 列数
+	 * @param rowStride 行方向のストライド
+	 * @param columnStride 列方向のストライド
+	 */
+	Matrix(double[] data, int offset, int row, int column, int rowStride, int columnStride)
+	{
+		this.data = data;
+		this.offset = offset;
+		this.rows = row;
+		this.columns = column;
+		this.rowStride = rowStride;
+		this.columnStride = columnStride;
 	}
 
+	/**
+	 * 行数と列数を指定して、内部配列を0で初期化して確保し直します。<br>
+	 * サブクラスが行列のサイズを変更する際に使用します。<br>
+	 * @param row 行数
+	 * @param column 列数
+	 */
+	protected void allocate(int row, int column)
+	{
+		data = new double[row*column];
+		offset = 0;
+		rows = row;
+		columns = column;
+		rowStride = column;
+		columnStride = 1;
+	}
+
+	/**
+	 * 要素(row, column)の内部配列上の位置を返します。
+	 * @param row 行
+	 * @param column 列
+	 * @return 内部配列上の位置
+	 */
+	protected final int index(int row, int column)
+	{
+		return offset + row*rowStride + column*columnStride;
+	}
+
+	/**
+	 * 指定した行の値を配列にコピーします。
+	 * @param row 行番号
+	 * @param destination コピー先配列
+	 * @param position コピー先の開始位置
+	 */
+	void copyRow(int row, double[] destination, int position)
+	{
+		int from = index(row, 0);
+		if(columnStride == 1){
+			System.arraycopy(data, from, destination, position, columns);
+		}else{
+			for(int c=0; c<columns; c++, from+=columnStride)
+				destination[position+c] = data[from];
+		}
+	}
 
 	//------------------------------------------------------------------------//
 	// 行列の操作関数群                                                       //
@@ -122,8 +183,8 @@ public class Matrix{
 		for(int i=0; i<length(); i++ ){
 			str += "  ";
 			for(int j=0; j<columnLength(); j++ ){
-				str += String.valueOf(matrix[i][j]) + " ";
-//				str += String.format("%.5g ", matrix[i][j]);
+				str += String.valueOf(get(i, j)) + " ";
+//				str += String.format("%.5g ", get(i, j));
 			}
 			str += "\r\n";
 		}
@@ -136,7 +197,7 @@ public class Matrix{
 	 */
 	public int length()
 	{
-		return matrix.length;
+		return rows;
 	}
 	/**
 	 * 行列の列数を返します。
@@ -144,7 +205,7 @@ public class Matrix{
 	 */
 	public int columnLength()
 	{
-		return matrix[0].length;
+		return columns;
 	}
 	/**
 	 * 行列のサイズを返します。
@@ -165,7 +226,7 @@ public class Matrix{
 	 */
 	public double get(int row, int column)
 	{
-		return matrix[row][column];
+		return data[index(row, column)];
 	}
 	/**
 	 * 行列の値を設定します。
@@ -175,15 +236,19 @@ public class Matrix{
 	 */
 	public void set(int row, int column, double target)
 	{
-		matrix[row][column] = target;
+		data[index(row, column)] = target;
 	}
 	/**
-	 * 行列の中身を返します。
+	 * 行列の中身をdouble[][]にコピーして返します。<br>
+	 * 返り値は内部配列のコピーのため、書き換えても行列には反映されません。<br>
 	 * @return matrixの中身
 	 */
 	public double[][] get()
 	{
-		return matrix;
+		double[][] result = new double[rows][columns];
+		for(int r=0; r<rows; r++)
+			copyRow(r, result[r], 0);
+		return result;
 	}
 	/**
 	 * 行列の値を設定します。
@@ -191,9 +256,9 @@ public class Matrix{
    */
 	public void set(double[][] target)
 	{
-		matrix = new double[target.length][target[0].length];
+		allocate(target.length, target[0].length);
 		for(int i=0; i<target.length; i++)
-			System.arraycopy(target[i], 0, matrix[i], 0, target[0].length);
+			System.arraycopy(target[i], 0, data, i*columns, columns);
 	}
 	/**
 	* 行列の行を抽出します。
@@ -202,7 +267,9 @@ public class Matrix{
 	*/
 	public Vector getRow( int row )
 	{
-		return new Vector(matrix[row]);
+		Vector result = new Vector(columns);
+		copyRow(row, result.vector, 0);
+		return result;
 	}
 	/**
 	 * 行列の指定列を抽出します。
@@ -213,7 +280,7 @@ public class Matrix{
 	{
 		Matrix result = new Matrix(rows.length, this.columnLength());
 		for (int r=0; r<rows.length; r++){
-			result.setRow(r, this.getRow(rows[r]));
+			copyRow(rows[r], result.data, r*columns);
 		}
 		return result;
 	}
@@ -224,7 +291,13 @@ public class Matrix{
 	*/
 	public void setRow( int row, Vector target)
 	{
-		System.arraycopy(target.get(), 0, matrix[row], 0, target.length());
+		int to = index(row, 0);
+		if(columnStride == 1){
+			System.arraycopy(target.vector, 0, data, to, target.length());
+		}else{
+			for(int c=0; c<target.length(); c++, to+=columnStride)
+				data[to] = target.vector[c];
+		}
 	}
 	/**
 	* 行列の列を抽出します。
@@ -233,10 +306,11 @@ public class Matrix{
 	*/
 	public Vector getColumn( int column )
 	{
-		Vector result = new Vector(length());
-		for (int i=0; i<result.length(); i++)
+		Vector result = new Vector(rows);
+		int from = index(0, column);
+		for (int i=0; i<rows; i++, from+=rowStride)
 		{
-			result.set(i, matrix[i][column]);
+			result.vector[i] = data[from];
 		}
 		return result;
 	}
@@ -263,9 +337,10 @@ public class Matrix{
 		if (length() != target.length())
 			return;
 
-		for (int i=0; i<length(); i++)
+		int to = index(0, column);
+		for (int i=0; i<rows; i++, to+=rowStride)
 		{
-			matrix[i][column] = target.get(i);
+			data[to] = target.vector[i];
 		}
 	}
 
@@ -279,12 +354,7 @@ public class Matrix{
 	 */
 	public Matrix getSubMatrix(int row, int rowLength, int column, int columnLength)
 	{
-		double[][] result = new double[rowLength][columnLength];
-		for(int i=row; i<row+rowLength; i++)
-		{
-			System.arraycopy(this.getRow(i).get(), column, result[i-row], 0, columnLength);
-		}
-		return new Matrix(result);
+		return subMatrixView(row, rowLength, column, columnLength).copy();
 	}
 
 	/**
@@ -302,6 +372,47 @@ public class Matrix{
 		return this.getColumns(columns).getRows(rows);
 	}
 
+	/**
+	 * 行列の一部を、内部配列を共有するビューとして返す。<br>
+	 * 要素はコピーしないため、ビューへの書き込みは元の行列に反映されます。<br>
+	 * @param row 欲しい行列の最初の行番号
+	 * @param rowLength 行の長さ
+	 * @param column 欲しい行列の最初の列番号
+	 * @param columnLength 列の長さ
+	 * @return 抽出した行列のビュー
+	 */
+	public Matrix subMatrixView(int row, int rowLength, int column, int columnLength)
+	{
+		return new Matrix(data, index(row, column), rowLength, columnLength, rowStride, columnStride);
+	}
+	/**
+	 * 行列の行を、内部配列を共有する1行の行列(ビュー)として返します。
+	 * @param row 抽出する行番号
+	 * @return 1×列数の行列のビュー
+	 */
+	public Matrix rowView(int row)
+	{
+		return subMatrixView(row, 1, 0, columns);
+	}
+	/**
+	 * 行列の列を、内部配列を共有する1列の行列(ビュー)として返します。
+	 * @param column 抽出する列番号
+	 * @return 行数×1の行列のビュー
+	 */
+	public Matrix columnView(int column)
+	{
+		return subMatrixView(0, rows, column, 1);
+	}
+	/**
+	 * 内部配列を共有しない、同じ値の行列を返します。<br>
+	 * ビューを元の行列から切り離したい場合に使用します。<br>
+	 * @return コピーした行列
+	 */
+	public Matrix copy()
+	{
+		return new Matrix(this);
+	}
+
 	/**
 	 * 行列の一部を別の行列の値に設定する。
 	 * @param row 挿入先の最初の行番号
@@ -312,9 +423,11 @@ public class Matrix{
 	 */
 	public void setSubMatrix(int row, int rowLength, int column, int columnLength, Matrix target)
 	{
-		for(int i=row; i<row+rowLength; i++)
+		for(int i=0; i<rowLength; i++)
 		{
-			System.arraycopy(target.getRow(i-row).get(), 0, matrix[i], column, columnLength);
+			int to = index(row+i, column);
+			for(int j=0; j<columnLength; j++, to+=columnStride)
+				data[to] = target.get(i, j);
 		}
 	}
 	/**
@@ -324,15 +437,15 @@ public class Matrix{
 	*/
 	public Matrix drop(int number)
 	{
-		double[][] result = new double[length()-1][columnLength()];
+		Matrix result = new Matrix(rows-1, columns);
 		int row=0;
-		for(int i=0; i<length(); i++ ){
+		for(int i=0; i<rows; i++ ){
 			if(i!=number){
-				System.arraycopy(matrix[i], 0, result[row], 0, columnLength());
+				copyRow(i, result.data, row*columns);
 				row++;
 			}
 		}
-		return new Matrix(result);
+		return result;
 	}
 
 	/**
@@ -360,22 +473,18 @@ public class Matrix{
 	*/
 	public Matrix splitMatrix(int row, int column)
 	{
-		double[][] result = new double[length()-1][columnLength()-1];
-		int m, n;
-		m=0;
-		for(int i=0; i<length(); i++ ){
+		Matrix result = new Matrix(rows-1, columns-1);
+		int m = 0;
+		for(int i=0; i<rows; i++ ){
 			if(i!=row){
-				n=0;
-				for(int j=0; j<columnLength(); j++ ){
+				for(int j=0; j<columns; j++ ){
 					if(j!=column){
-						result[m][n] = matrix[i][j];
-						n++;
+						result.data[m++] = data[index(i, j)];
 					}
 				}
-				m++;
 			}
 		}
-		return new Matrix(result);
+		return result;
 	}
 
 
@@ -390,25 +499,26 @@ public class Matrix{
 	*/
 	public Matrix add( Matrix target, String direction)
 	{
-		double[][] result = null;
+		Matrix result = null;
 		if(direction == DIRECTION_ADD_BOTTOM)
 		{
-			result = new double[length()+target.length()][columnLength()];
-			for(int i=0; i<length(); i++ ){
-				result[i] = matrix[i];
+			result = new Matrix(rows+target.rows, columns);
+			for(int i=0; i<rows; i++ ){
+				copyRow(i, result.data, i*columns);
 			}
-			for(int i=0; i<target.length(); i++ ){
-				result[i+length()] = target.getRow(i).get();
+			for(int i=0; i<target.rows; i++ ){
+				target.copyRow(i, result.data, (i+rows)*columns);
 			}
 		}
 		else if(direction == DIRECTION_ADD_RIGHT)
 		{
-			result = new double[length()][columnLength()+target.columnLength()];
-			for(int i=0; i<length(); i++ ){
-				result[i] = new Vector(matrix[i]).add(target.getRow(i)).get();
+			result = new Matrix(rows, columns+target.columns);
+			for(int i=0; i<rows; i++ ){
+				copyRow(i, result.data, i*result.columns);
+				target.copyRow(i, result.data, i*result.columns+columns);
 			}
 		}
-		return new Matrix(result);
+		return result;
 	}
 
 	/**
@@ -418,25 +528,25 @@ public class Matrix{
 	*/
 	public Matrix rotate(int angle)
 	{
-		Matrix result = null;
-		if(angle == 180)
-		{
-			result = invert(INVERT_UPPER_BOTTOM).invert(INVERT_LEFT_RIGHT);
-		}
-		else if(angle == 90)
-		{
-			result = new Matrix(columnLength(), length());
-			for (int i=0; i<length(); i++)
-			{
-				result.setColumn(length()-i-1, getRow(i));
-			}
-		}
+		Matrix result = rotateView(angle);
+		if(result == null)	return null;
+		return result.copy();
+	}
+	/**
+	* 90, 180, 270°に回転した行列を、内部配列を共有するビューとして返します。<br>
+	* 要素は移動せず、先頭位置とストライドの付け替えだけで回転します。<br>
+	* @param angle 回転角度
+	* @return 回転した行列のビュー。角度が90, 180, 270以外の場合はnull
+	*/
+	public Matrix rotateView(int angle)
+	{
+		if(angle == 90)
+			return new Matrix(data, index(rows-1, 0), columns, rows, columnStride, -rowStride);
+		else if(angle == 180)
+			return new Matrix(data, index(rows-1, columns-1), rows, columns, -rowStride, -columnStride);
 		else if(angle == 270)
-		{
-			result = rotate(90).rotate(180);
-		}
-
-		return result;
+			return new Matrix(data, index(0, columns-1), columns, rows, -columnStride, rowStride);
+		return null;
 	}
 
 	public static final String INVERT_UPPER_BOTTOM = "upper_bottom";
@@ -448,40 +558,86 @@ public class Matrix{
 	*/
 	public Matrix invert(String string)
 	{
-		Matrix result = new Matrix(length(),columnLength());
+		Matrix result = invertView(string);
+		if(result == null)	return new Matrix(length(),columnLength());
+		return result.copy();
+	}
+	/**
+	* 上下もしくは左右に反転した行列を、内部配列を共有するビューとして返します。
+	* @param string 反転方向 INVERT_UPPER_BOTTOM or INVERT_LEFT_RIGHT
+	* @return 反転した行列のビュー。反転方向が不正な場合はnull
+	*/
+	public Matrix invertView(String string)
+	{
 		if(string == INVERT_UPPER_BOTTOM)
-		{
-			for(int c=0; c<columnLength(); c++){
-				result.setColumn(c, getColumn(c).invert());
-			}
-		}
+			return new Matrix(data, index(rows-1, 0), rows, columns, -rowStride, columnStride);
 		else if(string == INVERT_LEFT_RIGHT)
-		{
-			for(int r=0; r<length(); r++){
-				result.setRow(r, getRow(r).invert());
-			}
-		}
-		return result;
+			return new Matrix(data, index(0, columns-1), rows, columns, rowStride, -columnStride);
+		Logging.logger.severe("invalid invert direction");
+		return null;
 	}
 
 	//------------------------------------------------------------------------//
 	// 行列の演算関数群                                                       //
 	//------------------------------------------------------------------------//
+	// 各演算には、新しい行列を返すもの・結果をoutに書き込むもの(～Into)・
+	// 自分自身を書き換えるもの(～InPlace)があります。
+	// ～Intoと～InPlaceは新しい配列を確保しないため、反復計算で行列を使い回す場合に使用します。
+
+	/**
+	 * 行列のサイズがtargetと同じかどうかを返します。
+	 * @param target 比較する行列
+	 * @return 同じサイズならtrue
+	 */
+	private boolean isSameSize(Matrix target)
+	{
+		if(rows != target.rows || columns != target.columns){
+			Logging.logger.severe("different matrix size");
+			return false;
+		}
+		return true;
+	}
+
 	/**
 	* 行列の各要素の加算結果を返します。
 	* @param target 行列
 	* @return 加算された行列
 	*/
-	public Matrix plus( Matrix target )
+	public Matrix plus(Matrix target)
 	{
-		double[][] result = new double[length()][columnLength()];
-
-		for(int i=0; i<length(); i++ ){
-			for(int j=0; j<columnLength(); j++ ){
-				result[i][j] = matrix[i][j]+target.get(i,j);
+		return plusInto(target, new Matrix(rows, columns));
+	}
+	/**
+	* 行列の各要素の加算結果をoutに格納します。
+	* @param target 行列
+	* @param out 結果を格納する行列(thisやtargetも指定可)
+	* @return out。サイズが異なる場合はnull
+	*/
+	public Matrix plusInto(Matrix target, Matrix out)
+	{
+		if(!isSameSize(target) || !isSameSize(out))	return null;
+		double[] a = data, b = target.data, o = out.data;
+		boolean contiguous = columnStride == 1 && target.columnStride == 1 && out.columnStride == 1;
+		for(int i=0; i<rows; i++ ){
+			int ia = index(i, 0), ib = target.index(i, 0), io = out.index(i, 0);
+			if(contiguous){
+				ArrayKernel.INSTANCE.plus(a, ia, b, ib, o, io, columns);
+				continue;
+			}
+			for(int j=0; j<columns; j++, ia+=columnStride, ib+=target.columnStride, io+=out.columnStride ){
+				o[io] = a[ia]+b[ib];
 			}
 		}
-		return new Matrix(result);
+		return out;
+	}
+	/**
+	* 行列の各要素にtargetの要素を加算して書き換えます。
+	* @param target 行列
+	* @return this
+	*/
+	public Matrix plusInPlace(Matrix target)
+	{
+		return plusInto(target, this);
 	}
 	/**
 	* 行列の各要素に定数を加算します。
@@ -490,14 +646,39 @@ public class Matrix{
 	*/
 	public Matrix plus(double target)
 	{
-		double[][] result = new double[length()][columnLength()];
-
-		for(int i=0; i<length(); i++ ){
-			for(int j=0; j<columnLength(); j++ ){
-				result[i][j] = matrix[i][j]+target;
+		return plusInto(target, new Matrix(rows, columns));
+	}
+	/**
+	* 行列の各要素に定数を加算した結果をoutに格納します。
+	* @param target 定数
+	* @param out 結果を格納する行列(thisも指定可)
+	* @return out。サイズが異なる場合はnull
+	*/
+	public Matrix plusInto(double target, Matrix out)
+	{
+		if(!isSameSize(out))	return null;
+		double[] a = data, o = out.data;
+		boolean contiguous = columnStride == 1 && out.columnStride == 1;
+		for(int i=0; i<rows; i++ ){
+			int ia = index(i, 0), io = out.index(i, 0);
+			if(contiguous){
+				ArrayKernel.INSTANCE.plus(a, ia, target, o, io, columns);
+				continue;
+			}
+			for(int j=0; j<columns; j++, ia+=columnStride, io+=out.columnStride ){
+				o[io] = a[ia]+target;
 			}
 		}
-		return new Matrix(result);
+		return out;
+	}
+	/**
+	* 行列の各要素に定数を加算して書き換えます。
+	* @param target 定数
+	* @return this
+	*/
+	public Matrix plusInPlace(double target)
+	{
+		return plusInto(target, this);
 	}
 
 	/**
@@ -507,14 +688,39 @@ public class Matrix{
 	*/
 	public Matrix minus(Matrix target)
 	{
-		double[][] result = new double[length()][columnLength()];
-
-		for(int i=0; i<length(); i++ ){
-			for(int j=0; j<columnLength(); j++ ){
-				result[i][j] = matrix[i][j]-target.get(i, j);
+		return minusInto(target, new Matrix(rows, columns));
+	}
+	/**
+	* 行列の各要素を減算した結果をoutに格納します。
+	* @param target 引く行列
+	* @param out 結果を格納する行列(thisやtargetも指定可)
+	* @return out。サイズが異なる場合はnull
+	*/
+	public Matrix minusInto(Matrix target, Matrix out)
+	{
+		if(!isSameSize(target) || !isSameSize(out))	return null;
+		double[] a = data, b = target.data, o = out.data;
+		boolean contiguous = columnStride == 1 && target.columnStride == 1 && out.columnStride == 1;
+		for(int i=0; i<rows; i++ ){
+			int ia = index(i, 0), ib = target.index(i, 0), io = out.index(i, 0);
+			if(contiguous){
+				ArrayKernel.INSTANCE.minus(a, ia, b, ib, o, io, columns);
+				continue;
+			}
+			for(int j=0; j<columns; j++, ia+=columnStride, ib+=target.columnStride, io+=out.columnStride ){
+				o[io] = a[ia]-b[ib];
 			}
 		}
-		return new Matrix(result);
+		return out;
+	}
+	/**
+	* 行列の各要素からtargetの要素を減算して書き換えます。
+	* @param target 引く行列
+	* @return this
+	*/
+	public Matrix minusInPlace(Matrix target)
+	{
+		return minusInto(target, this);
 	}
 	/**
 	* 行列の各要素から定数を引きます。
@@ -523,18 +729,45 @@ public class Matrix{
 	*/
 	public Matrix minus(double target)
 	{
-		double[][] result = new double[length()][columnLength()];
-
-		for(int i=0; i<length(); i++ ){
-			for(int j=0; j<columnLength(); j++ ){
-				result[i][j] = matrix[i][j]-target;
+		return minusInto(target, new Matrix(rows, columns));
+	}
+	/**
+	* 行列の各要素から定数を引きます、outに格納します。
+	* @param target 定数
+	* @param out 結果を格納する行列(thisも指定可)
+	* @return out。サイズが異なる場合はnull
+	*/
+	public Matrix minusInto(double target, Matrix out)
+	{
+		if(!isSameSize(out))	return null;
+		double[] a = data, o = out.data;
+		boolean contiguous = columnStride == 1 && out.columnStride == 1;
+		for(int i=0; i<rows; i++ ){
+			int ia = index(i, 0), io = out.index(i, 0);
+			if(contiguous){
+				ArrayKernel.INSTANCE.minus(a, ia, target, o, io, columns);
+				continue;
+			}
+			for(int j=0; j<columns; j++, ia+=columnStride, io+=out.columnStride ){
+				o[io] = a[ia]-target;
 			}
 		}
-		return new Matrix(result);
+		return out;
+	}
+	/**
+	* 行列の各要素から定数を引いて書き換えます。
+	* @param target 定数
+	* @return this
+	*/
+	public Matrix minusInPlace(double target)
+	{
+		return minusInto(target, this);
 	}
 
 	/**
-	* 行列の積を計算します。
+	* 行列の積を計算します。<br>
+	* キャッシュブロッキングとパッキングを行うカーネル(Gemm)で計算します。<br>
+	* 演算量が大きい場合は自動的に複数コアで並列に計算します。<br>
 	* @param target 行列
 	* @return 積の行列
 	*/
@@ -543,21 +776,62 @@ public class Matrix{
 		//自分の列数とかける行列の行数が同じでなければ掛け算できない。
 		if(columnLength() != target.length())	return null;
 
-		double temp;
-		double[][] result = new double[length()][target.columnLength()];
+		return multiply(target, Gemm.isParallel(rows, target.columns, columns));
+	}
+	/**
+	* 並列計算するかを指定して行列の積を計算します。<br>
+	* 並列計算では結果行列を行・列のブロックに分けてForkJoinPoolで計算します。<br>
+	* 並列・逐次のどちらでも計算結果は一致します。<br>
+	* @param target 行列
+	* @param parallel trueなら並列、falseなら逐次で計算する
+	* @return 積の行列
+	*/
+	public Matrix multiply(Matrix target, boolean parallel)
+	{
+		//自分の列数とかける行列の行数が同じでなければ掛け算できない。
+		if(columnLength() != target.length())	return null;
 
-		for(int i=0; i<length(); i++ ){
-			for(int j=0; j<target.columnLength(); j++ ){
-				temp = 0;
-				for (int k=0; k<columnLength(); k++ ){
-					temp += matrix[i][k] * target.get(k, j);
-				}
-				result[i][j] = temp;
-			}
+		Matrix result = new Matrix(rows, target.columns);
+		Gemm.multiply(this, target, result, parallel);
+		return result;
+	}
+	/**
+	* 疎行列との積を計算します。<br>
+	* 疎行列の非ゼロ要素だけを使って計算します。<br>
+	* @param target 疎行列
+	* @return 積の行列。サイズが合わない場合はnull
+	*/
+	public Matrix multiply(SparseMatrix target)
+	{
+		return target.leftMultiply(this);
+	}
+	/**
+	* 行列の積を計算し、outに格納します。<br>
+	* outがtransposeInPlace()などで列方向に並んだ行列(rowStride=1)の場合は、
+	* out^T = target^T × this^T を転置ビュー同士で計算して直接書き込みます。<br>
+	* outがthisやtargetと内部配列を共有している場合や、どちらのストライドも1でない場合は、一時行列で計算してからコピーします。<br>
+	* @param target 行列
+	* @param out 結果を格納する行列(行数はthis、列数はtargetと同じ)
+	* @return out。サイズが合わない場合はnull
+	*/
+	public Matrix multiplyInto(Matrix target, Matrix out)
+	{
+		//自分の列数とかける行列の行数が同じでなければ掛け算できない。
+		if(columnLength() != target.length())	return null;
+		if(out.rows != rows || out.columns != target.columns){
+			Logging.logger.severe("different matrix size");
+			return null;
 		}
-		return new Matrix(result);
+		if(out.data == data || out.data == target.data || (out.columnStride != 1 && out.rowStride != 1)){
+			return out.copyFrom(multiply(target));
+		}
+		out.fill(0);
+		if(out.columnStride == 1)
+			Gemm.multiply(this, target, out);
+		else
+			Gemm.multiply(target.transposeView(), transposeView(), out.transposeView());
+		return out;
 	}
-
 	/**
 	* 行列を定数倍します。
 	* @param target 定数
@@ -565,14 +839,39 @@ public class Matrix{
 	*/
 	public Matrix multiply(double target)
 	{
-		double[][] result = new double[length()][columnLength()];
-
-		for(int i=0; i<length(); i++ ){
-			for(int j=0; j<columnLength(); j++ ){
-				result[i][j] = matrix[i][j]*target;
+		return multiplyInto(target, new Matrix(rows, columns));
+	}
+	/**
+	* 行列を定数倍した結果をoutに格納します。
+	* @param target 定数
+	* @param out 結果を格納する行列(thisも指定可)
+	* @return out。サイズが異なる場合はnull
+	*/
+	public Matrix multiplyInto(double target, Matrix out)
+	{
+		if(!isSameSize(out))	return null;
+		double[] a = data, o = out.data;
+		boolean contiguous = columnStride == 1 && out.columnStride == 1;
+		for(int i=0; i<rows; i++ ){
+			int ia = index(i, 0), io = out.index(i, 0);
+			if(contiguous){
+				ArrayKernel.INSTANCE.multiply(a, ia, target, o, io, columns);
+				continue;
+			}
+			for(int j=0; j<columns; j++, ia+=columnStride, io+=out.columnStride ){
+				o[io] = a[ia]*target;
 			}
 		}
-		return new Matrix(result);
+		return out;
+	}
+	/**
+	* 行列を定数倍して書き換えます。
+	* @param target 定数
+	* @return this
+	*/
+	public Matrix multiplyInPlace(double target)
+	{
+		return multiplyInto(target, this);
 	}
 
 	/**
@@ -582,14 +881,39 @@ public class Matrix{
 	*/
 	public Matrix multiplyEach(Matrix target)
 	{
-		double[][] result = new double[length()][columnLength()];
-
-		for(int i=0; i<length(); i++ ){
-			for(int j=0; j<columnLength(); j++ ){
-				result[i][j] = matrix[i][j]*target.get(i,j);
+		return multiplyEachInto(target, new Matrix(rows, columns));
+	}
+	/**
+	* 行列の各要素ごとの積をoutに格納します。
+	* @param target かけられる行列
+	* @param out 結果を格納する行列(thisやtargetも指定可)
+	* @return out。サイズが異なる場合はnull
+	*/
+	public Matrix multiplyEachInto(Matrix target, Matrix out)
+	{
+		if(!isSameSize(target) || !isSameSize(out))	return null;
+		double[] a = data, b = target.data, o = out.data;
+		boolean contiguous = columnStride == 1 && target.columnStride == 1 && out.columnStride == 1;
+		for(int i=0; i<rows; i++ ){
+			int ia = index(i, 0), ib = target.index(i, 0), io = out.index(i, 0);
+			if(contiguous){
+				ArrayKernel.INSTANCE.multiply(a, ia, b, ib, o, io, columns);
+				continue;
+			}
+			for(int j=0; j<columns; j++, ia+=columnStride, ib+=target.columnStride, io+=out.columnStride ){
+				o[io] = a[ia]*b[ib];
 			}
 		}
-		return new Matrix(result);
+		return out;
+	}
+	/**
+	* 行列の各要素にtargetの要素をかけて書き換えます。
+	* @param target かけられる行列
+	* @return this
+	*/
+	public Matrix multiplyEachInPlace(Matrix target)
+	{
+		return multiplyEachInto(target, this);
 	}
 
 	/**
@@ -598,14 +922,52 @@ public class Matrix{
 	*/
 	public Matrix transpose()
 	{
-		double[][] result = new double[columnLength()][length()];
-
-		for(int c=0; c<columnLength(); c++ ){
-			for(int r=0; r<length(); r++ ){
-				result[c][r] = matrix[r][c];
+		return transposeInto(new Matrix(columns, rows));
+	}
+	/**
+	* 転置行列をoutに格納します。<br>
+	* outがthisと内部配列を共有している場合は、一時行列で計算してからコピーします。<br>
+	* @param out 結果を格納する行列(行数・列数がthisの列数・行数と同じ)
+	* @return out。サイズが合わない場合はnull
+	*/
+	public Matrix transposeInto(Matrix out)
+	{
+		if(out.rows != columns || out.columns != rows){
+			Logging.logger.severe("different matrix size");
+			return null;
+		}
+		if(out.data == data){
+			return out.copyFrom(transpose());
+		}
+		double[] a = data, o = out.data;
+		for(int c=0; c<columns; c++ ){
+			int ia = index(0, c), io = out.index(c, 0);
+			for(int r=0; r<rows; r++, ia+=rowStride, io+=out.columnStride ){
+				o[io] = a[ia];
 			}
 		}
-		return new Matrix(result);
+		return out;
+	}
+	/**
+	* 転置行列を、内部配列を共有するビューとして返します。<br>
+	* 要素は移動せず、行数・列数とストライドを入れ替えた行列を作ります。<br>
+	* @return 転置した行列のビュー
+	*/
+	public Matrix transposeView()
+	{
+		return new Matrix(data, offset, columns, rows, columnStride, rowStride);
+	}
+	/**
+	* 行列を転置して書き換えます。<br>
+	* 要素は移動せず、行数・列数とストライドを入れ替えます。<br>
+	* 転置後は列方向に並んだ行列(rowStride=1)になりますが、multiplyInto()の格納先としてはそのまま書き込めます。<br>
+	* @return this
+	*/
+	public Matrix transposeInPlace()
+	{
+		int temp = rows;		rows = columns;				columns = temp;
+		temp = rowStride;		rowStride = columnStride;	columnStride = temp;
+		return this;
 	}
 	/**
 	 * 転置行列を返します<br>
@@ -618,7 +980,88 @@ public class Matrix{
 	}
 
 	/**
-	* 行列の行列式を返します。
+	* 行列の全要素をvalueで書き換えます。
+	* @param value 値
+	* @return this
+	*/
+	public Matrix fill(double value)
+	{
+		if(offset == 0 && (columnStride == 1 && rowStride == columns || rowStride == 1 && columnStride == rows) && data.length == rows*columns){
+			Arrays.fill(data, value);
+			return this;
+		}
+		for(int i=0; i<rows; i++ ){
+			int ia = index(i, 0);
+			for(int j=0; j<columns; j++, ia+=columnStride )
+				data[ia] = value;
+		}
+		return this;
+	}
+	/**
+	* 行列の全要素を0～1の一様乱数で書き換えます。<br>
+	* 要素が内部配列上で連続している場合は、乱数生成器のfill()で1回にまとめて生成します。
+	* ストライドを持つビューでは行ごとに生成します。<br>
+	* @param generator 乱数生成器
+	* @return this
+	*/
+	public Matrix fill(RandomGenerator generator)
+	{
+		if(columnStride == 1 && (rowStride == columns || rows <= 1)){
+			generator.fill(data, offset, rows*columns);
+			return this;
+		}
+		if(columnStride == 1){
+			for(int i=0; i<rows; i++)
+				generator.fill(data, index(i, 0), columns);
+			return this;
+		}
+		double[] row = new double[columns];
+		for(int i=0; i<rows; i++ ){
+			generator.fill(row, 0, columns);
+			int ia = index(i, 0);
+			for(int j=0; j<columns; j++, ia+=columnStride )
+				data[ia] = row[j];
+		}
+		return this;
+	}
+	/**
+	* 行列の全要素をtargetの値で書き換えます。
+	* @param target コピー元の行列(thisと同じサイズ)
+	* @return this。サイズが異なる場合はnull
+	*/
+	public Matrix copyFrom(Matrix target)
+	{
+		if(!isSameSize(target))	return null;
+		if(columnStride == 1){
+			for(int i=0; i<rows; i++)
+				target.copyRow(i, data, index(i, 0));
+			return this;
+		}
+		for(int i=0; i<rows; i++ ){
+			int ia = index(i, 0), ib = target.index(i, 0);
+			for(int j=0; j<columns; j++, ia+=columnStride, ib+=target.columnStride )
+				data[ia] = target.data[ib];
+		}
+		return this;
+	}
+
+	/**
+	* 行列のLU分解を返します。<br>
+	* 行列式・逆行列・連立一次方程式の解を繰り返し求める場合に使用します。<br>
+	* @return LU分解。正方行列でない場合はnull
+	*/
+	public LUDecomposition lu()
+	{
+		if(length() != columnLength()){
+			Logging.logger.severe("matrix is not square");
+			return null;
+		}
+		return new LUDecomposition(this);
+	}
+
+	/**
+	* 行列の行列式を返します。<br>
+	* 3*3以上の行列はLU分解を使ってO(n^3)で計算します。<br>
 	* @return 行列式
 	*/
 	public double determinant()
@@ -626,22 +1069,12 @@ public class Matrix{
 		//正方行列でない
 		if(length() != columnLength()){ return Double.NaN; }
 		//行列が1*1
-		else if(length() == 1){	return matrix[0][0]; }
+		else if(length() == 1){	return get(0, 0); }
 		//行列が2*2
-		else if(length() == 2){	return (matrix[0][0]*matrix[1][1]-matrix[0][1]*matrix[1][0]); }
+		else if(length() == 2){	return (get(0, 0)*get(1, 1)-get(0, 1)*get(1, 0)); }
 		//行列が3*3以上
 		else{
-			int i;
-			double det=0;
-			Matrix cofactorMatrix = new Matrix(length()-1,columnLength()-1);
-
-			for( i=0; i<length(); i++ )
-			{
-				cofactorMatrix = splitMatrix(i,0);
-				if( i%2 == 0)	det += matrix[i][0]*cofactorMatrix.determinant();
-				else			det -= matrix[i][0]*cofactorMatrix.determinant();
-			}
-			return det;
+			return new LUDecomposition(this).det();
 		}
 	}
 	public double det() {
@@ -649,22 +1082,15 @@ public class Matrix{
 	}
 
 	/**
-	* 行列の逆行列を返します。
-	* @return 逆行列
+	* 行列の逆行列を返します。<br>
+	* LU分解を使ってO(n^3)で計算します。<br>
+	* @return 逆行列。正方行列でないか特異行列の場合はnull
 	*/
 	public Matrix inverse()
 	{
-		double[][] result = new double[length()][columnLength()];
-
-		for(int i=0; i<length(); i++ )
-		{
-			for(int j=0; j<columnLength(); j++ )
-			{
-				if( (i+j)%2 == 0)	result[i][j] = splitMatrix(i, j).determinant();
-				else				result[i][j] = (-1)*splitMatrix(i, j).determinant();
-			}
-		}
-		return new Matrix(result).transpose().multiply( 1/determinant() );
+		LUDecomposition lu = lu();
+		if(lu == null)	return null;
+		return lu.inverse();
 	}
 
 
@@ -881,12 +1307,32 @@ public class Matrix{
 	*/
 	public Matrix round()
 	{
-		Matrix result = new Matrix(length(), columnLength());
-		for(int i=0; i<result.length(); i++)
-		{
-			result.setRow(i, getRow(i).round());
+		return roundInto(new Matrix(rows, columns));
+	}
+	/**
+	* 行列の要素を四捨五入した結果をoutに格納します。<br>
+	* @param out 結果を格納する行列(thisも指定可)
+	* @return out。サイズが異なる場合はnull
+	*/
+	public Matrix roundInto(Matrix out)
+	{
+		if(!isSameSize(out))	return null;
+		double[] a = data, o = out.data;
+		for(int i=0; i<rows; i++ ){
+			int ia = index(i, 0), io = out.index(i, 0);
+			for(int j=0; j<columns; j++, ia+=columnStride, io+=out.columnStride ){
+				o[io] = Math.round(a[ia]);
+			}
 		}
-		return result;
+		return out;
+	}
+	/**
+	* 行列の要素を四捨五入して書き換えます。<br>
+	* @return this
+	*/
+	public Matrix roundInPlace()
+	{
+		return roundInto(this);
 	}
 
 	/**
@@ -895,12 +1341,32 @@ public class Matrix{
 	*/
 	public Matrix abs()
 	{
-		Matrix result = new Matrix(length(), columnLength());
-		for(int i=0; i<result.length(); i++)
-		{
-			result.setRow(i, getRow(i).abs());
+		return absInto(new Matrix(rows, columns));
+	}
+	/**
+	* 行列の絶対値をoutに格納します。<br>
+	* @param out 結果を格納する行列(thisも指定可)
+	* @return out。サイズが異なる場合はnull
+	*/
+	public Matrix absInto(Matrix out)
+	{
+		if(!isSameSize(out))	return null;
+		double[] a = data, o = out.data;
+		for(int i=0; i<rows; i++ ){
+			int ia = index(i, 0), io = out.index(i, 0);
+			for(int j=0; j<columns; j++, ia+=columnStride, io+=out.columnStride ){
+				o[io] = Math.abs(a[ia]);
+			}
 		}
-		return result;
+		return out;
+	}
+	/**
+	* 行列の要素を絶対値に書き換えます。<br>
+	* @return this
+	*/
+	public Matrix absInPlace()
+	{
+		return absInto(this);
 	}
 
 	/**
@@ -909,12 +1375,32 @@ public class Matrix{
 	*/
 	public Matrix sqrt()
 	{
-		Matrix result = new Matrix(length(), columnLength());
-		for(int i=0; i<result.length(); i++)
-		{
-			result.setRow(i, getRow(i).sqrt());
+		return sqrtInto(new Matrix(rows, columns));
+	}
+	/**
+	* 行列の平方根をoutに格納します。<br>
+	* @param out 結果を格納する行列(thisも指定可)
+	* @return out。サイズが異なる場合はnull
+	*/
+	public Matrix sqrtInto(Matrix out)
+	{
+		if(!isSameSize(out))	return null;
+		double[] a = data, o = out.data;
+		for(int i=0; i<rows; i++ ){
+			int ia = index(i, 0), io = out.index(i, 0);
+			for(int j=0; j<columns; j++, ia+=columnStride, io+=out.columnStride ){
+				o[io] = Math.sqrt(a[ia]);
+			}
 		}
-		return result;
+		return out;
+	}
+	/**
+	* 行列の要素を平方根に書き換えます。<br>
+	* @return this
+	*/
+	public Matrix sqrtInPlace()
+	{
+		return sqrtInto(this);
 	}
 
 	/**
@@ -926,6 +1412,15 @@ public class Matrix{
 		return multiply(this);
 	}
 	/**
+	* 行列の二乗をoutに格納します。<br>
+	* @param out 結果を格納する行列
+	* @return out。サイズが合わない場合はnull
+	*/
+	public Matrix squareInto(Matrix out)
+	{
+		return multiplyInto(this, out);
+	}
+	/**
 	* 行列の個々の要素の二乗を返します。<br>
 	* @return 二乗値
 	*/
@@ -933,6 +1428,23 @@ public class Matrix{
 	{
 		return multiplyEach(this);
 	}
+	/**
+	* 行列の個々の要素の二乗をoutに格納します。<br>
+	* @param out 結果を格納する行列(thisも指定可)
+	* @return out。サイズが異なる場合はnull
+	*/
+	public Matrix squareEachInto(Matrix out)
+	{
+		return multiplyEachInto(this, out);
+	}
+	/**
+	* 行列の個々の要素を二乗して書き換えます。<br>
+	* @return this
+	*/
+	public Matrix squareEachInPlace()
+	{
+		return multiplyEachInto(this, this);
+	}
 
 	/**
 	* 行列の各列もしくは各行ごとの和を返します。<br>
@@ -1047,20 +1559,47 @@ public class Matrix{
 		return covariance(y,x) / (yData.standardDeviation()*xData.standardDeviation());
 	}
 
+	public static final String NAN_PROPAGATE = "propagate";
+	public static final String NAN_PAIRWISE = "pairwise";
+
 	/**
-	 * データ列同士の相関行列を求めます。
+	 * データ列同士の相関行列を求めます。<br>
+	 * 各列を一度だけ中心化し、対称な半分だけをブロック単位で計算します。<br>
+	 * NaNを含む列の相関はNaNになります。<br>
 	 * @return 相関行列
 	 */
 	public Matrix correlation()
 	{
-		Matrix result = new Matrix(columnLength(), columnLength());
-
-		for(int r=0; r<columnLength(); r++){
-			for(int t=0; t<columnLength(); t++){
-				result.set(r, t, correlation(r, t));
-			}
-		}
-		return result;
+		return correlation(NAN_PROPAGATE);
+	}
+	/**
+	 * NaNの扱いを指定して、データ列同士の相関行列を求めます。<br>
+	 * NAN_PAIRWISEの場合は、列の組ごとに両方の値がNaNでない行だけを使います。<br>
+	 * @param nan NAN_PROPAGATE or NAN_PAIRWISE
+	 * @return 相関行列
+	 */
+	public Matrix correlation(String nan)
+	{
+		return Covariance.correlation(this, nan == NAN_PAIRWISE);
+	}
+	/**
+	 * データ列同士の共分散行列を求めます。<br>
+	 * i行j列目の要素はcovariance(i, j)と同じ値です。<br>
+	 * @return 共分散行列
+	 */
+	public Matrix covariance()
+	{
+		return covariance(NAN_PROPAGATE);
+	}
+	/**
+	 * NaNの扱いを指定して、データ列同士の共分散行列を求めます。<br>
+	 * NAN_PAIRWISEの場合は、列の組ごとに両方の値がNaNでない行だけを使います。<br>
+	 * @param nan NAN_PROPAGATE or NAN_PAIRWISE
+	 * @return 共分散行列
+	 */
+	public Matrix covariance(String nan)
+	{
+		return Covariance.covariance(this, nan == NAN_PAIRWISE);
 	}
 
 	/**
@@ -1094,35 +1633,27 @@ public class Matrix{
 	}
 
 	/**
-	 * 重回帰式y=b0+ b1*x1+ b2*x2+ ...の係数bを求める。
-	 * 参考：https://www.sist.ac.jp/~suganuma/kougi/other_lecture/SE/multi/multi.htm
+	 * 重回帰式y=b0+ b1*x1+ b2*x2+ ...を当てはめる。<br>
+	 * 係数・回帰値・決定係数を繰り返し使う場合は、この結果を使い回す。<br>
+	 * @param y 被説明変数の列番号
+	 * @param x 説明変数の列番号配列
+	 * @return 重回帰の結果
+	 */
+	public LinearRegression linearRegression(int y, int... x)
+	{
+		return new LinearRegression(this, y, x);
+	}
+
+	/**
+	 * 重回帰式y=b0+ b1*x1+ b2*x2+ ...の係数bを求める。<br>
+	 * 逆行列[X^T×X]^-1は作らず、XのQR分解による最小二乗法で求める。<br>
 	 * @param y 被説明変数の列番号
 	 * @param x 説明変数の列番号配列
 	 * @return 係数配列
 	 */
 	public Vector multipleRegression(int y, int... x)
 	{
-		//XYbの入れ物を作る
-		Matrix X = new Matrix(length(), x.length+1);
-		Matrix Y = new Matrix(length(), 1);
-		Matrix b = new Matrix(x.length+1, 1);
-
-		//XとYを用意
-		X.setColumn(0, new Vector(length(), 1));
-		for(int i=1; i<=x.length; i++){
-			X.setColumn(i, getColumn(x[i-1]));
-		}
-		Y.setColumn(0, getColumn(y));
-
-		//b=[X^T×X]^-1×X^T×Yを計算
-		//Matrix xt = X.transpose();
-		//Matrix xtx = xt.multiply(X);
-		//Matrix xtx1= xtx.inverse();
-		//Matrix xtx1xt=xtx1.multiply(xt);
-		//b = xtx1xt.multiply(Y);
-		b = X.transpose().multiply(X).inverse().multiply(X.transpose()).multiply(Y);
-
-		return b.getColumn(0);	//bは1行n列なので列だけ取り出す。
+		return linearRegression(y, x).getCoefficient();
 	}
 
 	/**
@@ -1133,20 +1664,7 @@ public class Matrix{
 	 */
 	public Vector regression(int y, int... x)
 	{
-		Vector b = multipleRegression(y, x);
-		Vector result = new Vector(length());
-		double temp = 0;
-
-		for(int i=0; i<length(); i++){
-			temp = b.get(0);
-			for(int t=1; t<b.length(); t++)
-			{
-				temp += b.get(t)*get(i,x[t-1]);
-			}
-			result.set(i, temp);
-		}
-
-		return result;
+		return linearRegression(y, x).getRegression();
 	}
 
 	/**
@@ -1159,10 +1677,7 @@ public class Matrix{
 	 */
 	public double determination(int y, int... x)
 	{
-		Vector reg = regression(y, x);
-		Vector yData = getColumn(y);
-
-		return 1-( reg.minus(yData).square().sum() ) / (yData.minus(yData.mean()).square().sum());
+		return linearRegression(y, x).getDetermination();
 	}
 }
 
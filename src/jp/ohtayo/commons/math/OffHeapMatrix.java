@@ -0,0 +1,374 @@
+package jp.ohtayo.commons.math;
+
+import java.util.function.UnaryOperator;
+
+import jp.ohtayo.commons.log.Logging;
+
+/**
+ * Javaヒープの外に要素を置く行列クラスです。<br>
+ * 要素は行優先で並べ、行数はlongです。要素の総数はJavaの配列の上限(2^31)を超えられ、要素はGCの対象になりません。<br>
+ * 使い終わったらclose()でメモリを解放します(try-with-resourcesを使用可)。close()後のアクセスはIllegalStateExceptionになります。<br>
+ * 範囲外の行・列へのアクセスはIndexOutOfBoundsExceptionになります。<br>
+ * getRows()/setRows()で行のブロックをヒープ上のMatrixとして読み書きでき、
+ * apply()で全ての行ブロックにMatrixの要素ごと・行ごとのメソッドを適用できます。
+ * 全要素や列の統計量はapply()ではなくsum()/mean()/statistics()/columnStatistics()で求めます。<br>
+ * 例：<br>
+ * 		try(OffHeapMatrix m = new OffHeapMatrix(100000000L, 16)){<br>
+ * 			m.apply(block -&gt; block.minus(1.0));<br>
+ * 			Vector mean = m.columnMean();<br>
+ * 		}<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+public class OffHeapMatrix implements AutoCloseable {
+
+	/** 要素のメモリ	*/	final OffHeapStorage storage;
+	/** 行数		*/	private final long rows;
+	/** 列数		*/	private final int columns;
+
+	/**
+	 * 行数と列数を指定して行列を生成します。要素は0です。
+	 * @param row 行数
+	 * @param column 列数
+	 */
+	public OffHeapMatrix(long row, int column)
+	{
+		if(row < 0 || column < 0)	throw new IllegalArgumentException("negative matrix size " + row + "x" + column);
+		rows = row;
+		columns = column;
+		storage = new OffHeapStorage(Math.multiplyExact(row, (long)column));
+	}
+	/**
+	 * Matrixの値をヒープの外にコピーして生成します。
+	 * @param target コピーする行列
+	 */
+	public OffHeapMatrix(Matrix target)
+	{
+		this(target.length(), target.columnLength());
+		setRows(0, target);
+	}
+
+	/**
+	 * 行列の行数を返します。
+	 * @return 行数
+	 */
+	public long length()
+	{
+		return rows;
+	}
+	/**
+	 * 行列の列数を返します。
+	 * @return 列数
+	 */
+	public int columnLength()
+	{
+		return columns;
+	}
+	/**
+	 * 行列の要素を返します。
+	 * @param row 行番号
+	 * @param column 列番号
+	 * @return 要素の値
+	 */
+	public double get(long row, int column)
+	{
+		checkRow(row);
+		checkColumn(column);
+		return storage.get(row*columns+column);
+	}
+	/**
+	 * 行列の要素に値をセットします。
+	 * @param row 行番号
+	 * @param column 列番号
+	 * @param value 値
+	 */
+	public void set(long row, int column, double value)
+	{
+		checkRow(row);
+		checkColumn(column);
+		storage.set(row*columns+column, value);
+	}
+	/**
+	 * 指定行をVectorとして返します。
+	 * @param row 行番号
+	 * @return 行のベクトル
+	 */
+	public Vector getRow(long row)
+	{
+		checkRow(row);
+		Vector result = new Vector(columns);
+		storage.get(row*columns, result.vector, 0, columns);
+		return result;
+	}
+	/**
+	 * 指定行に値をセットします。
+	 * @param row 行番号
+	 * @param target セットするベクトル
+	 */
+	public void setRow(long row, Vector target)
+	{
+		if(target.length() != columns){
+			Logging.logger.severe("different vector length");
+			return;
+		}
+		checkRow(row);
+		storage.set(row*columns, target.vector, 0, columns);
+	}
+	/**
+	 * 指定列をOffHeapVectorとして返します。<br>
+	 * 行のブロックごとに読み込み、列の値をまとめて書き込みます。<br>
+	 * @param column 列番号
+	 * @return 列のベクトル
+	 */
+	public OffHeapVector getColumn(int column)
+	{
+		checkColumn(column);
+		OffHeapVector result = new OffHeapVector(rows);
+		int blockRows = blockRows();
+		double[] buffer = new double[(int)Math.min(blockRows, rows)];
+		for(long from=0; from<rows; from+=blockRows){
+			int count = (int)Math.min(blockRows, rows-from);
+			Matrix block = getRows(from, count);
+			for(int i=0; i<count; i++)
+				buffer[i] = block.data[i*columns+column];
+			result.storage.set(from, buffer, 0, count);
+		}
+		return result;
+	}
+	/**
+	 * 行fromから連続するcount行をヒープ上のMatrixとして読み込みます。
+	 * @param from 開始行
+	 * @param count 行数
+	 * @return 行のブロック
+	 * @throws IndexOutOfBoundsException 行の範囲が行列の外にある場合
+	 * @throws IllegalArgumentException ブロックの要素数がJavaの配列の上限を超える場合
+	 */
+	public Matrix getRows(long from, int count)
+	{
+		checkRows(from, count);
+		long length = (long)count*columns;
+		if(length > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("row block is too large for a java array: " + count + "x" + columns);
+		Matrix result = new Matrix(count, columns);
+		storage.get(from*columns, result.data, 0, (int)length);
+		return result;
+	}
+	/**
+	 * 行fromからMatrixの値を書き込みます。
+	 * @param from 開始行
+	 * @param target 書き込む行列(列数が同じ)
+	 */
+	public void setRows(long from, Matrix target)
+	{
+		if(target.columnLength() != columns){
+			Logging.logger.severe("different matrix size");
+			return;
+		}
+		checkRows(from, target.length());
+		double[] row = new double[columns];
+		for(int i=0; i<target.length(); i++){
+			target.copyRow(i, row, 0);
+			storage.set((from+i)*columns, row, 0, columns);
+		}
+	}
+	/**
+	 * 全ての要素をvalueにします。
+	 * @param value 値
+	 * @return this
+	 */
+	public OffHeapMatrix fill(double value)
+	{
+		storage.fill(value);
+		return this;
+	}
+	/**
+	 * ヒープ上のMatrixに変換します。
+	 * @return 行列。要素数が配列の上限を超える場合はnull
+	 */
+	public Matrix toMatrix()
+	{
+		if(rows > Integer.MAX_VALUE - 8 || storage.length > Integer.MAX_VALUE - 8){
+			Logging.logger.severe("matrix is too large for a java array");
+			return null;
+		}
+		return getRows(0, (int)rows);
+	}
+
+	//------------------------------------------------------------------------//
+	// ブロックごとの演算                                                     //
+	//------------------------------------------------------------------------//
+	/**
+	 * 行番号が[0, rows)の範囲にあるか確認します。
+	 */
+	private void checkRow(long row)
+	{
+		if(row < 0 || row >= rows)
+			throw new IndexOutOfBoundsException("row " + row + " out of bounds for length " + rows);
+	}
+	/**
+	 * 列番号が[0, columns)の範囲にあるか確認します。
+	 */
+	private void checkColumn(int column)
+	{
+		if(column < 0 || column >= columns)
+			throw new IndexOutOfBoundsException("column " + column + " out of bounds for length " + columns);
+	}
+	/**
+	 * 行fromから連続するcount行が[0, rows)の範囲にあるか確認します。
+	 */
+	private void checkRows(long from, long count)
+	{
+		if(from < 0 || count < 0 || from > rows - count)
+			throw new IndexOutOfBoundsException("rows [" + from + ", " + from + " + " + count + ") out of bounds for length " + rows);
+	}
+
+	/**
+	 * 1ブロックあたりの行数を返します。
+	 */
+	private int blockRows()
+	{
+		return Math.max(1, OffHeapStorage.BLOCK / Math.max(1, columns));
+	}
+
+	/**
+	 * 行のブロックをMatrixとして取り出してoperatorを適用し、結果を書き戻します。<br>
+	 * operatorは要素ごと(例：block.multiply(2))または行ごとに閉じた演算で、受け取ったMatrixと同じサイズのMatrixを返す必要があります。
+	 * ブロックの区切りは行列の大きさで決まるため、列の平均や正規化のようにブロック全体の値を使う演算は正しい結果になりません。
+	 * 統計量はsum()/mean()/statistics()/columnStatistics()で求めます。<br>
+	 * 大きさの異なり得る先頭と末尾のブロックは、どちらも書き戻す前に結果の大きさを確認します。<br>
+	 * @param operator ブロックに適用する演算(例：block -&gt; block.multiply(2))
+	 * @return this
+	 * @throws IllegalArgumentException operatorが受け取ったMatrixと異なるサイズを返した場合
+	 */
+	public OffHeapMatrix apply(UnaryOperator<Matrix> operator)
+	{
+		if(rows == 0)	return this;
+		int blockRows = blockRows();
+		long last = (rows-1) / blockRows * blockRows;
+		Matrix first = applyBlock(operator, 0, blockRows);
+		Matrix tail = last == 0 ? null : applyBlock(operator, last, blockRows);
+		setRows(0, first);
+		for(long from=blockRows; from<last; from+=blockRows)
+			setRows(from, applyBlock(operator, from, blockRows));
+		if(tail != null)	setRows(last, tail);
+		return this;
+	}
+	/**
+	 * 行fromからのブロックにoperatorを適用し、結果の大きさを確認して返します。
+	 */
+	private Matrix applyBlock(UnaryOperator<Matrix> operator, long from, int blockRows)
+	{
+		int count = (int)Math.min(blockRows, rows-from);
+		Matrix result = operator.apply(getRows(from, count));
+		if(result == null || result.length() != count || result.columnLength() != columns)
+			throw new IllegalArgumentException("operator must return a matrix of the same size");
+		return result;
+	}
+
+	/**
+	 * 行列とベクトルの積を計算します。
+	 * @param target 列数と同じ長さのベクトル
+	 * @return 行数の長さの積のベクトル。長さが異なる場合はnull
+	 */
+	public OffHeapVector multiply(Vector target)
+	{
+		if(target.length() != columns){
+			Logging.logger.severe("different vector length");
+			return null;
+		}
+		OffHeapVector result = new OffHeapVector(rows);
+		int blockRows = blockRows();
+		double[] product = new double[blockRows];
+		for(long from=0; from<rows; from+=blockRows){
+			int count = (int)Math.min(blockRows, rows-from);
+			Matrix block = getRows(from, count);
+			for(int i=0; i<count; i++)
+				product[i] = ArrayKernel.INSTANCE.dot(block.data, i*columns, target.vector, 0, columns);
+			result.storage.set(from, product, 0, count);
+		}
+		return result;
+	}
+
+	//------------------------------------------------------------------------//
+	// 集計                                                                   //
+	//------------------------------------------------------------------------//
+	/**
+	 * 全要素の和を返します。
+	 * @return 和
+	 */
+	public double sum()
+	{
+		return asVector().sum();
+	}
+	/**
+	 * 全要素の平均値を返します。
+	 * @return 平均値
+	 */
+	public double mean()
+	{
+		return asVector().mean();
+	}
+	/**
+	 * 全要素の統計量を返します。
+	 * @return 統計量
+	 */
+	public Statistics statistics()
+	{
+		return asVector().statistics();
+	}
+	/**
+	 * 列ごとの統計量を返します。
+	 * @return 各列の統計量の配列
+	 */
+	public Statistics[] columnStatistics()
+	{
+		Statistics[] result = new Statistics[columns];
+		for(int j=0; j<columns; j++)
+			result[j] = new Statistics();
+		int blockRows = blockRows();
+		for(long from=0; from<rows; from+=blockRows){
+			int count = (int)Math.min(blockRows, rows-from);
+			Matrix block = getRows(from, count);
+			for(int j=0; j<columns; j++)
+				result[j].merge(new Statistics(block.getColumn(j)));
+		}
+		return result;
+	}
+	/**
+	 * 列ごとの平均値を返します。
+	 * @return 各列の平均値のベクトル
+	 */
+	public Vector columnMean()
+	{
+		Statistics[] statistics = columnStatistics();
+		Vector result = new Vector(columns);
+		for(int j=0; j<columns; j++)
+			result.vector[j] = statistics[j].mean();
+		return result;
+	}
+
+	/**
+	 * 全要素を並べた長さrows×columnsのベクトルとしてのビューを返します。メモリは共有します。
+	 */
+	private OffHeapVector asVector()
+	{
+		return new OffHeapVector(storage);
+	}
+
+	/**
+	 * 閉じられているか返します。
+	 * @return close()済みならtrue
+	 */
+	public boolean isClosed()
+	{
+		return storage.isClosed();
+	}
+	/**
+	 * ヒープの外のメモリを解放します。以降、この行列は使用できません。
+	 */
+	@Override
+	public void close()
+	{
+		storage.close();
+	}
+}
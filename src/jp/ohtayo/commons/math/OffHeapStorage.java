@@ -0,0 +1,163 @@
+package jp.ohtayo.commons.math;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+
+import jp.ohtayo.commons.util.DirectBuffers;
+
+/**
+ * Javaヒープの外(ダイレクトバッファ)に確保するdoubleの配列です。<br>
+ * 2^27要素(1GiB)ごとのByteBuffer.allocateDirectに分けて確保するため、要素数はlongで2^31を超えられます。<br>
+ * close()を呼ぶとメモリを直ちに解放し、以降のアクセスはIllegalStateExceptionになります。<br>
+ * 範囲外の要素へのアクセスは、Javaの配列と同様にIndexOutOfBoundsExceptionになります。<br>
+ * 解放にはDirectBuffers.release()を使い、解放できないJavaではGCによる解放に任せます。<br>
+ * 確保できる合計サイズは-XX:MaxDirectMemorySizeで指定します。<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+final class OffHeapStorage implements AutoCloseable {
+
+	/** 1チャンクの要素数の2の対数		*/	static final int CHUNK_SHIFT = 27;
+	/** 1チャンクの要素数				*/	static final int CHUNK = 1 << CHUNK_SHIFT;
+	/** 集計や変換で一度に読み書きする要素数	*/	static final int BLOCK = 1 << 16;
+
+	/** 要素数			*/	final long length;
+	/** 確保したバッファ	*/	private ByteBuffer[] buffers;
+	/** doubleとしてのビュー	*/	private DoubleBuffer[] chunks;
+
+	/**
+	 * 要素数を指定して確保します。要素は0で初期化されます。
+	 * @param length 要素数
+	 */
+	OffHeapStorage(long length)
+	{
+		if(length < 0)	throw new IllegalArgumentException("negative length " + length);
+		this.length = length;
+		int count = (int)((length + CHUNK - 1) >>> CHUNK_SHIFT);
+		buffers = new ByteBuffer[count];
+		chunks = new DoubleBuffer[count];
+		for(int c=0; c<count; c++){
+			int size = (int)Math.min(CHUNK, length - ((long)c << CHUNK_SHIFT));
+			buffers[c] = ByteBuffer.allocateDirect(size*8).order(ByteOrder.nativeOrder());
+			chunks[c] = buffers[c].asDoubleBuffer();
+		}
+	}
+
+	private DoubleBuffer[] chunks()
+	{
+		if(chunks == null)	throw new IllegalStateException("off-heap storage is already closed");
+		return chunks;
+	}
+
+	/**
+	 * 要素番号が[0, length)の範囲にあるか確認します。
+	 */
+	private void checkIndex(long index)
+	{
+		if(index < 0 || index >= length)
+			throw new IndexOutOfBoundsException("index " + index + " out of bounds for length " + length);
+	}
+	/**
+	 * [from, from+count)が[0, length)の範囲にあるか確認します。
+	 */
+	private void checkRange(long from, long count)
+	{
+		if(from < 0 || count < 0 || from > length - count)
+			throw new IndexOutOfBoundsException("range [" + from + ", " + from + " + " + count + ") out of bounds for length " + length);
+	}
+
+	/**
+	 * 要素を返します。
+	 * @param index 要素番号
+	 * @return 値
+	 */
+	double get(long index)
+	{
+		checkIndex(index);
+		return chunks()[(int)(index >>> CHUNK_SHIFT)].get((int)(index & (CHUNK-1)));
+	}
+	/**
+	 * 要素に値をセットします。
+	 * @param index 要素番号
+	 * @param value 値
+	 */
+	void set(long index, double value)
+	{
+		checkIndex(index);
+		chunks()[(int)(index >>> CHUNK_SHIFT)].put((int)(index & (CHUNK-1)), value);
+	}
+
+	/**
+	 * [from, from+count)の要素をdestination[position..]に読み込みます。
+	 */
+	void get(long from, double[] destination, int position, int count)
+	{
+		checkRange(from, count);
+		DoubleBuffer[] chunks = chunks();
+		while(count > 0){
+			DoubleBuffer chunk = chunks[(int)(from >>> CHUNK_SHIFT)].duplicate();
+			int start = (int)(from & (CHUNK-1));
+			int n = Math.min(count, chunk.capacity()-start);
+			chunk.position(start);
+			chunk.get(destination, position, n);
+			from += n;
+			position += n;
+			count -= n;
+		}
+	}
+	/**
+	 * source[position..position+count-1]を[from, from+count)に書き込みます。
+	 */
+	void set(long from, double[] source, int position, int count)
+	{
+		checkRange(from, count);
+		DoubleBuffer[] chunks = chunks();
+		while(count > 0){
+			DoubleBuffer chunk = chunks[(int)(from >>> CHUNK_SHIFT)].duplicate();
+			int start = (int)(from & (CHUNK-1));
+			int n = Math.min(count, chunk.capacity()-start);
+			chunk.position(start);
+			chunk.put(source, position, n);
+			from += n;
+			position += n;
+			count -= n;
+		}
+	}
+
+	/**
+	 * 全ての要素をvalueにします。
+	 */
+	void fill(double value)
+	{
+		double[] block = new double[(int)Math.min(BLOCK, length)];
+		Arrays.fill(block, value);
+		for(long from=0; from<length; from+=BLOCK)
+			set(from, block, 0, (int)Math.min(BLOCK, length-from));
+	}
+
+	/**
+	 * 閉じられているか返します。
+	 * @return close()済みならtrue
+	 */
+	boolean isClosed()
+	{
+		return chunks == null;
+	}
+
+	/**
+	 * メモリを解放します。2回目以降の呼び出しは何もしません。
+	 */
+	@Override
+	public void close()
+	{
+		if(chunks == null)	return;
+		ByteBuffer[] released = buffers;
+		chunks = null;
+		buffers = null;
+		for(ByteBuffer buffer : released){
+			if(!DirectBuffers.release(buffer))	return;	//解放できない場合はGCに任せる
+		}
+	}
+}
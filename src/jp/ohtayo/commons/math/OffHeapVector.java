@@ -0,0 +1,318 @@
+package jp.ohtayo.commons.math;
+
+import java.util.function.BinaryOperator;
+import java.util.function.LongFunction;
+import java.util.function.UnaryOperator;
+
+import jp.ohtayo.commons.log.Logging;
+
+/**
+ * Javaヒープの外に要素を置く配列クラスです。<br>
+ * 要素数はlongで、Javaの配列の上限(2^31)を超える長さを扱えます。要素はGCの対象にならないため、巨大な配列でもGCの停止時間が延びません。<br>
+ * 使い終わったらclose()でメモリを解放します(try-with-resourcesを使用可)。close()後のアクセスはIllegalStateExceptionになります。<br>
+ * 範囲外の要素へのアクセスはIndexOutOfBoundsExceptionになります。<br>
+ * 和・平均・内積・統計量はブロックごとに読み込んで計算します。
+ * 要素ごとの演算はapply()でブロックをVectorとして取り出し、Vectorの既存のメソッドで計算して書き戻します。
+ * apply()は要素ごとの演算専用で、統計量はsum()/mean()/statistics()などで求めます。<br>
+ * 例：<br>
+ * 		try(OffHeapVector v = new OffHeapVector(3000000000L)){<br>
+ * 			v.apply(block -&gt; block.multiply(2).plus(1));<br>
+ * 			double mean = v.mean();<br>
+ * 		}<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+public class OffHeapVector implements AutoCloseable {
+
+	/** 要素のメモリ	*/	final OffHeapStorage storage;
+
+	/**
+	 * ある長さの配列を作成します。要素は0です。
+	 * @param length ベクトル長さ
+	 */
+	public OffHeapVector(long length)
+	{
+		storage = new OffHeapStorage(length);
+	}
+	/**
+	 * Vectorの値をヒープの外にコピーして作成します。
+	 * @param target コピーするベクトル
+	 */
+	public OffHeapVector(Vector target)
+	{
+		storage = new OffHeapStorage(target.length());
+		storage.set(0, target.vector, 0, target.length());
+	}
+	/**
+	 * 確保済みのメモリを共有するベクトルを作成します。
+	 * @param storage 要素のメモリ
+	 */
+	OffHeapVector(OffHeapStorage storage)
+	{
+		this.storage = storage;
+	}
+
+	/**
+	 * ベクトルの長さを返します。
+	 * @return ベクトル長さ
+	 */
+	public long length()
+	{
+		return storage.length;
+	}
+	/**
+	 * ベクトルの要素を返します。
+	 * @param index 要素番号
+	 * @return ベクトルの要素
+	 */
+	public double get(long index)
+	{
+		return storage.get(index);
+	}
+	/**
+	 * ベクトルの要素をセットします。
+	 * @param index 要素番号
+	 * @param value セットする値
+	 */
+	public void set(long index, double value)
+	{
+		storage.set(index, value);
+	}
+	/**
+	 * 配列の一部をVectorとしてヒープに読み込みます。
+	 * @param offset 抽出開始点
+	 * @param length 抽出長さ
+	 * @return 抽出した配列
+	 */
+	public Vector get(long offset, int length)
+	{
+		Vector result = new Vector(length);
+		storage.get(offset, result.vector, 0, length);
+		return result;
+	}
+	/**
+	 * offsetの位置からVectorの値を書き込みます。
+	 * @param offset 書き込み開始点
+	 * @param target 書き込む配列
+	 */
+	public void set(long offset, Vector target)
+	{
+		storage.set(offset, target.vector, 0, target.length());
+	}
+	/**
+	 * 全ての要素をvalueにします。
+	 * @param value 値
+	 * @return this
+	 */
+	public OffHeapVector fill(double value)
+	{
+		storage.fill(value);
+		return this;
+	}
+	/**
+	 * ヒープ上のVectorに変換します。
+	 * @return ベクトル。長さが配列の上限を超える場合はnull
+	 */
+	public Vector toVector()
+	{
+		if(length() > Integer.MAX_VALUE - 8){
+			Logging.logger.severe("vector is too long for a java array");
+			return null;
+		}
+		return get(0, (int)length());
+	}
+
+	//------------------------------------------------------------------------//
+	// ブロックごとの演算                                                     //
+	//------------------------------------------------------------------------//
+	/**
+	 * BLOCK要素ずつVectorとして取り出してoperatorを適用し、結果を書き戻します。<br>
+	 * operatorは要素ごとの演算で、受け取ったVectorと同じ長さのVectorを返す必要があります。
+	 * ブロックの区切りはベクトルの長さで決まるため、平均や正規化のようにブロック全体の値を使う演算は正しい結果になりません。
+	 * 統計量はsum()/mean()/statistics()で求めます。<br>
+	 * 長さの異なり得る先頭と末尾のブロックは、どちらも書き戻す前に結果の長さを確認します。<br>
+	 * @param operator ブロックに適用する演算(例：block -&gt; block.multiply(2))
+	 * @return this
+	 * @throws IllegalArgumentException operatorが受け取ったVectorと異なる長さを返した場合
+	 */
+	public OffHeapVector apply(UnaryOperator<Vector> operator)
+	{
+		return applyBlocks(from -> {
+			int count = (int)Math.min(OffHeapStorage.BLOCK, length()-from);
+			return operator.apply(get(from, count));
+		});
+	}
+	/**
+	 * thisとtargetの同じ位置のブロックをVectorとして取り出してoperatorを適用し、結果をthisに書き戻します。<br>
+	 * operatorは要素ごとの演算でなければなりません。結果の長さの確認はapply(UnaryOperator)と同じです。<br>
+	 * @param target もう1つのベクトル
+	 * @param operator ブロックに適用する演算(例：(a, b) -&gt; a.plus(b))
+	 * @return this。長さが異なる場合はnull
+	 * @throws IllegalArgumentException operatorが受け取ったVectorと異なる長さを返した場合
+	 */
+	public OffHeapVector apply(OffHeapVector target, BinaryOperator<Vector> operator)
+	{
+		if(length() != target.length()){
+			Logging.logger.severe("different vector length");
+			return null;
+		}
+		return applyBlocks(from -> {
+			int count = (int)Math.min(OffHeapStorage.BLOCK, length()-from);
+			return operator.apply(get(from, count), target.get(from, count));
+		});
+	}
+	/**
+	 * 位置fromのブロックの結果を返すblockを全てのブロックに適用し、結果を書き戻します。<br>
+	 * 先頭と末尾のブロックの結果を確認してから書き戻し始めるため、長さの誤りでは何も書き換えません。<br>
+	 */
+	private OffHeapVector applyBlocks(LongFunction<Vector> block)
+	{
+		if(length() == 0)	return this;
+		long last = (length()-1) / OffHeapStorage.BLOCK * OffHeapStorage.BLOCK;
+		Vector first = checkBlock(block.apply(0), 0);
+		Vector tail = last == 0 ? null : checkBlock(block.apply(last), last);
+		set(0, first);
+		for(long from=OffHeapStorage.BLOCK; from<last; from+=OffHeapStorage.BLOCK)
+			set(from, checkBlock(block.apply(from), from));
+		if(tail != null)	set(last, tail);
+		return this;
+	}
+	/**
+	 * 位置fromのブロックの結果が同じ長さか確認して返します。
+	 */
+	private Vector checkBlock(Vector result, long from)
+	{
+		if(result == null || result.length() != Math.min(OffHeapStorage.BLOCK, length()-from))
+			throw new IllegalArgumentException("operator must return a vector of the same length");
+		return result;
+	}
+
+	//------------------------------------------------------------------------//
+	// 集計                                                                   //
+	//------------------------------------------------------------------------//
+	/**
+	 * 配列の和を返します。<br>
+	 * ブロックごとの和をペアワイズ加算で求め、ブロックの和同士もペアワイズ加算します。<br>
+	 * @return 和
+	 */
+	public double sum()
+	{
+		return reduce(null);
+	}
+	/**
+	 * 配列の算術平均値を返します。
+	 * @return 平均値
+	 */
+	public double mean()
+	{
+		return sum()/length();
+	}
+	/**
+	 * 2つのベクトルの内積を返します。
+	 * @param target 内積を計算したい対象のベクトル
+	 * @return 自分とtargetの内積。長さが異なる場合はNaN
+	 */
+	public double innerProduct(OffHeapVector target)
+	{
+		if(length() != target.length()){
+			Logging.logger.severe("different vector length");
+			return Double.NaN;
+		}
+		return reduce(target);
+	}
+	/**
+	 * ベクトルのノルムを返します。
+	 * @return ノルム値
+	 */
+	public double norm()
+	{
+		return Math.sqrt(reduce(this));
+	}
+	/**
+	 * 要素数・平均・分散・最小値・最大値・和を集計して返します。
+	 * @return 統計量
+	 */
+	public Statistics statistics()
+	{
+		Statistics statistics = new Statistics();
+		double[] block = new double[(int)Math.min(OffHeapStorage.BLOCK, length())];
+		for(long from=0; from<length(); from+=OffHeapStorage.BLOCK){
+			int count = (int)Math.min(OffHeapStorage.BLOCK, length()-from);
+			storage.get(from, block, 0, count);
+			statistics.add(block, 0, count);
+		}
+		return statistics;
+	}
+	/**
+	 * 配列の最大値を返します。
+	 * @return 最大値
+	 */
+	public double max()
+	{
+		return statistics().max();
+	}
+	/**
+	 * 配列の最小値を返します。
+	 * @return 最小値
+	 */
+	public double min()
+	{
+		return statistics().min();
+	}
+	/**
+	 * 分散R^2を返します。
+	 * @return 分散
+	 */
+	public double variance()
+	{
+		return statistics().variance();
+	}
+	/**
+	 * 標準偏差Rを返します。
+	 * @return 標準偏差
+	 */
+	public double standardDeviation()
+	{
+		return statistics().standardDeviation();
+	}
+
+	/**
+	 * ブロックごとの和(targetがnullの場合)または内積を求め、ブロックの結果をペアワイズ加算します。
+	 */
+	private double reduce(OffHeapVector target)
+	{
+		long blocks = (length() + OffHeapStorage.BLOCK - 1) / OffHeapStorage.BLOCK;
+		double[] partial = new double[(int)blocks];
+		double[] a = new double[(int)Math.min(OffHeapStorage.BLOCK, length())];
+		double[] b = target == null ? null : target == this ? a : new double[a.length];
+		for(int k=0; k<blocks; k++){
+			long from = (long)k*OffHeapStorage.BLOCK;
+			int count = (int)Math.min(OffHeapStorage.BLOCK, length()-from);
+			storage.get(from, a, 0, count);
+			if(b == null){
+				partial[k] = Reduction.sum(a, 0, count, false);
+			}else{
+				if(b != a)	target.storage.get(from, b, 0, count);
+				partial[k] = Reduction.dot(a, b, 0, count, false);
+			}
+		}
+		return Reduction.sum(partial, 0, partial.length, false);
+	}
+
+	/**
+	 * 閉じられているか返します。
+	 * @return close()済みならtrue
+	 */
+	public boolean isClosed()
+	{
+		return storage.isClosed();
+	}
+	/**
+	 * ヒープの外のメモリを解放します。以降、このベクトルは使用できません。
+	 */
+	@Override
+	public void close()
+	{
+		storage.close();
+	}
+}
@@ -0,0 +1,201 @@
+package jp.ohtayo.commons.math;
+
+import jp.ohtayo.commons.log.Logging;
+
+/**
+ * 行列のQR分解クラスです。<br>
+ * Householder変換でm×n行列A(m≧n)をA=QRに分解します。<br>
+ * Qは直交列を持つm×n行列、Rはn×nの上三角行列です。<br>
+ * 逆行列を作らずに最小二乗問題min|AX-B|を解けるため、正規方程式(A^T A)^-1 A^T Bより数値的に安定です。<br>
+ * 内部配列は列ごとの処理が連続アクセスになるよう列優先で保持します。<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+public class QRDecomposition {
+
+	/** Householderベクトル(対角以下)とRの対角より上を格納した列優先配列	*/	private double[] qr;
+	/** 行数		*/	private int m;
+	/** 列数		*/	private int n;
+	/** Rの対角成分	*/	private double[] rDiagonal;
+
+	/**
+	 * 行列をQR分解します。<br>
+	 * 入力行列は書き換えません。<br>
+	 * @param target 分解する行列(行数≧列数)
+	 * @throws IllegalArgumentException 行数が列数より少ない場合
+	 */
+	public QRDecomposition(Matrix target)
+	{
+		m = target.length();
+		n = target.columnLength();
+		if(m < n)
+			throw new IllegalArgumentException("matrix has fewer rows than columns: " + m + "x" + n);
+
+		qr = new double[m*n];
+		for(int j=0; j<n; j++){
+			int from = target.index(0, j);
+			for(int i=0; i<m; i++, from+=target.rowStride)
+				qr[j*m+i] = target.data[from];
+		}
+		rDiagonal = new double[n];
+
+		for(int k=0; k<n; k++)
+		{
+			int ck = k*m;
+			//k列目の対角以下のノルムを、桁あふれしないよう最大値で割って求める
+			double scale = 0;
+			for(int i=k; i<m; i++)
+				scale = Math.max(scale, Math.abs(qr[ck+i]));
+			double norm = 0;
+			if(scale != 0){
+				for(int i=k; i<m; i++){
+					double value = qr[ck+i] / scale;
+					norm += value*value;
+				}
+				norm = Math.sqrt(norm) * scale;
+			}
+
+			if(norm != 0){
+				//k番目のHouseholderベクトルを作る
+				if(qr[ck+k] < 0)	norm = -norm;
+				for(int i=k; i<m; i++)
+					qr[ck+i] /= norm;
+				qr[ck+k] += 1;
+
+				//残りの列にHouseholder変換を適用する
+				for(int j=k+1; j<n; j++){
+					int cj = j*m;
+					double s = 0;
+					for(int i=k; i<m; i++)
+						s += qr[ck+i] * qr[cj+i];
+					s = -s / qr[ck+k];
+					for(int i=k; i<m; i++)
+						qr[cj+i] += s * qr[ck+i];
+				}
+			}
+			rDiagonal[k] = -norm;
+		}
+	}
+
+	/**
+	 * 分解した行列がフルランク(列が一次独立)かどうかを返します。<br>
+	 * 浮動小数点では一次従属な列でもRの対角成分がちょうど0にはならないため、
+	 * |R_jj| ≦ max(m,n)×ulp(max|R_ii|)の対角成分を0とみなします。<br>
+	 * 列の大きさが極端に異なる(10^15倍程度以上)場合は一次独立でもfalseになるため、列をそろえてから分解します。<br>
+	 * @return 0とみなせるRの対角成分がなければtrue
+	 */
+	public boolean isFullRank()
+	{
+		double max = 0;
+		for(int j=0; j<n; j++)
+			max = Math.max(max, Math.abs(rDiagonal[j]));
+		double tolerance = Math.max(m, n) * Math.ulp(max);
+		for(int j=0; j<n; j++){
+			if(Math.abs(rDiagonal[j]) <= tolerance)	return false;
+		}
+		return true;
+	}
+
+	/**
+	 * 上三角行列Rを返します。
+	 * @return n×nの上三角行列
+	 */
+	public Matrix getR()
+	{
+		Matrix result = new Matrix(n, n);
+		for(int i=0; i<n; i++){
+			result.data[i*n+i] = rDiagonal[i];
+			for(int j=i+1; j<n; j++)
+				result.data[i*n+j] = qr[j*m+i];
+		}
+		return result;
+	}
+
+	/**
+	 * 直交列を持つ行列Qを返します。
+	 * @return m×nの行列
+	 */
+	public Matrix getQ()
+	{
+		double[] q = new double[m*n];
+		for(int k=n-1; k>=0; k--){
+			int ck = k*m;
+			q[ck+k] = 1;
+			if(qr[ck+k] == 0)	continue;
+			for(int j=k; j<n; j++){
+				int cj = j*m;
+				double s = 0;
+				for(int i=k; i<m; i++)
+					s += qr[ck+i] * q[cj+i];
+				s = -s / qr[ck+k];
+				for(int i=k; i<m; i++)
+					q[cj+i] += s * qr[ck+i];
+			}
+		}
+		Matrix result = new Matrix(m, n);
+		for(int j=0; j<n; j++)
+			for(int i=0; i<m; i++)
+				result.data[i*n+j] = q[j*m+i];
+		return result;
+	}
+
+	/**
+	 * 最小二乗問題min|AX-B|の解Xを求めます。<br>
+	 * Q^T Bを計算してからRの後退代入で解きます。<br>
+	 * @param target 右辺の行列B(行数は分解した行列の行数と等しいこと)
+	 * @return n×(Bの列数)の解の行列。行数が合わないかフルランクでない場合はnull
+	 */
+	public Matrix solve(Matrix target)
+	{
+		if(target.length() != m){
+			Logging.logger.severe("different matrix size");
+			return null;
+		}
+		if(!isFullRank()){
+			Logging.logger.severe("matrix is rank deficient");
+			return null;
+		}
+		int columns = target.columnLength();
+		Matrix result = new Matrix(n, columns);
+		double[] b = new double[m];
+
+		for(int c=0; c<columns; c++)
+		{
+			int from = target.index(0, c);
+			for(int i=0; i<m; i++, from+=target.rowStride)
+				b[i] = target.data[from];
+
+			//Q^T bを計算する
+			for(int k=0; k<n; k++){
+				int ck = k*m;
+				double s = 0;
+				for(int i=k; i<m; i++)
+					s += qr[ck+i] * b[i];
+				s = -s / qr[ck+k];
+				for(int i=k; i<m; i++)
+					b[i] += s * qr[ck+i];
+			}
+			//Rx=Q^T bを後退代入で解く
+			for(int k=n-1; k>=0; k--){
+				b[k] /= rDiagonal[k];
+				for(int i=0; i<k; i++)
+					b[i] -= b[k] * qr[k*m+i];
+			}
+			for(int k=0; k<n; k++)
+				result.data[k*columns+c] = b[k];
+		}
+		return result;
+	}
+
+	/**
+	 * 最小二乗問題min|Ax-b|の解xを求めます。
+	 * @param target 右辺のベクトルb
+	 * @return 解のベクトルx。長さが合わないかフルランクでない場合はnull
+	 */
+	public Vector solve(Vector target)
+	{
+		Matrix result = solve(new Matrix(target.get(), Matrix.DIRECTION_COLUMN));
+		if(result == null)	return null;
+		return new Vector(result.data);
+	}
+}
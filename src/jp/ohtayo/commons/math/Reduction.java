@@ -0,0 +1,113 @@
+package jp.ohtayo.commons.math;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 配列の和と内積をペアワイズ加算で求めるクラスです。<br>
+ * 配列を半分ずつに分けて和をとり、LEAF要素以下になった範囲はArrayKernelで加算します。<br>
+ * 単純な逐次加算の誤差がO(nε)で増えるのに対し、誤差はO(ε log n)に抑えられます。<br>
+ * 要素数が大きい場合は分割した範囲をForkJoinPoolで並列に計算します。
+ * 分割の仕方はスレッド数によらず要素数だけで決まるため、並列・逐次で結果は一致します。<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+final class Reduction {
+
+	/** この要素数以下はArrayKernelで先頭から加算する	*/	static final int LEAF = 128;
+	/** この要素数以上は並列で計算する				*/	static final int PARALLEL_THRESHOLD = 1 << 20;
+	/** 並列計算で1タスクが受け持つ最大の要素数		*/	static final int TASK_LENGTH = 1 << 16;
+
+	private Reduction(){}
+
+	/**
+	 * 要素数から並列で計算するかを判定します。
+	 * @param length 要素数
+	 * @return 並列で計算する場合true
+	 */
+	static boolean isParallel(int length)
+	{
+		return length >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1;
+	}
+
+	/**
+	 * a[from..from+length-1]の和を返します。
+	 * @param a 配列
+	 * @param from 開始位置
+	 * @param length 要素数
+	 * @param parallel trueならForkJoinPoolで並列に計算する
+	 * @return 和
+	 */
+	static double sum(double[] a, int from, int length, boolean parallel)
+	{
+		if(parallel && length > TASK_LENGTH)
+			return ForkJoinPool.commonPool().invoke(new ReductionTask(a, null, from, length));
+		return pairwise(a, null, from, length);
+	}
+
+	/**
+	 * a[from..from+length-1]とb[from..from+length-1]の内積を返します。
+	 * @param a 配列
+	 * @param b 配列
+	 * @param from 開始位置
+	 * @param length 要素数
+	 * @param parallel trueならForkJoinPoolで並列に計算する
+	 * @return 内積
+	 */
+	static double dot(double[] a, double[] b, int from, int length, boolean parallel)
+	{
+		if(parallel && length > TASK_LENGTH)
+			return ForkJoinPool.commonPool().invoke(new ReductionTask(a, b, from, length));
+		return pairwise(a, b, from, length);
+	}
+
+	/**
+	 * 範囲を分割する位置を返します。<br>
+	 * 前半がLEAFの倍数になるように分け、逐次・並列で同じ位置を使います。<br>
+	 */
+	private static int split(int length)
+	{
+		int leaves = (length + LEAF - 1) / LEAF;
+		return (leaves >>> 1) * LEAF;
+	}
+
+	/**
+	 * ペアワイズ加算で和(bがnullの場合)または内積を求めます。
+	 */
+	private static double pairwise(double[] a, double[] b, int from, int length)
+	{
+		if(length <= LEAF)
+			return b == null ? ArrayKernel.INSTANCE.sum(a, from, length) : ArrayKernel.INSTANCE.dot(a, from, b, from, length);
+		int half = split(length);
+		return pairwise(a, b, from, half) + pairwise(a, b, from+half, length-half);
+	}
+
+	/**
+	 * 範囲を2つに分けて並列に和または内積を求めるタスクです。
+	 */
+	private static final class ReductionTask extends RecursiveTask<Double> {
+		private static final long serialVersionUID = 1L;
+		private final double[] a, b;
+		private final int from, length;
+
+		ReductionTask(double[] a, double[] b, int from, int length)
+		{
+			this.a = a;
+			this.b = b;
+			this.from = from;
+			this.length = length;
+		}
+
+		@Override
+		protected Double compute()
+		{
+			if(length <= TASK_LENGTH)
+				return pairwise(a, b, from, length);
+			int half = split(length);
+			ReductionTask left = new ReductionTask(a, b, from, half);
+			left.fork();
+			double right = new ReductionTask(a, b, from+half, length-half).compute();
+			return left.join() + right;
+		}
+	}
+}
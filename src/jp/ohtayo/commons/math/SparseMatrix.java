@@ -0,0 +1,442 @@
+package jp.ohtayo.commons.math;
+
+import java.util.Arrays;
+
+import jp.ohtayo.commons.log.Logging;
+
+/**
+ * 疎行列クラスです。<br>
+ * 非ゼロ要素だけをCSR(Compressed Sparse Row)形式で保持します。<br>
+ * 行iの非ゼロ要素はvalues[rowPointer[i]]～values[rowPointer[i+1]-1]で、列番号はcolumnIndexに昇順で入ります。<br>
+ * 列方向のアクセスには、転置行列のCSR形式(元の行列のCSC形式)を必要になった時点で作って使います。<br>
+ * 要素の書き換えはできません。<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+public class SparseMatrix {
+
+	/** 行数					*/	private final int rows;
+	/** 列数					*/	private final int columns;
+	/** 各行の先頭要素の位置(長さ 行数+1)	*/	private final int[] rowPointer;
+	/** 非ゼロ要素の列番号		*/	private final int[] columnIndex;
+	/** 非ゼロ要素の値			*/	private final double[] values;
+	/** 転置行列(CSC形式としての列アクセス用)	*/	private SparseMatrix transposed;
+
+	/**
+	 * CSR形式の配列を指定して疎行列を生成します。<br>
+	 * 配列はコピーせずにそのまま使います。行数はrowPointerの長さ-1です。<br>
+	 */
+	private SparseMatrix(int[] rowPointer, int[] columnIndex, double[] values, int columns)
+	{
+		this.rows = rowPointer.length-1;
+		this.columns = columns;
+		this.rowPointer = rowPointer;
+		this.columnIndex = columnIndex;
+		this.values = values;
+	}
+
+	/**
+	 * 密行列から疎行列を生成します。0の要素は格納しません。
+	 * @param target 密行列
+	 */
+	public SparseMatrix(Matrix target)
+	{
+		rows = target.length();
+		columns = target.columnLength();
+		rowPointer = new int[rows+1];
+		int count = 0;
+		for(int r=0; r<rows; r++){
+			int from = target.index(r, 0);
+			for(int c=0; c<columns; c++, from+=target.columnStride)
+				if(target.data[from] != 0)	count++;
+			rowPointer[r+1] = count;
+		}
+		columnIndex = new int[count];
+		values = new double[count];
+		int p = 0;
+		for(int r=0; r<rows; r++){
+			int from = target.index(r, 0);
+			for(int c=0; c<columns; c++, from+=target.columnStride){
+				if(target.data[from] != 0){
+					columnIndex[p] = c;
+					values[p] = target.data[from];
+					p++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 非ゼロ要素の(行, 列, 値)の組から疎行列を生成します。<br>
+	 * 同じ位置の要素が複数ある場合は値を足し合わせます。<br>
+	 * @param rows 行数
+	 * @param columns 列数
+	 * @param row 要素の行番号配列
+	 * @param column 要素の列番号配列
+	 * @param value 要素の値配列
+	 * @throws IllegalArgumentException 行列サイズが負、または3つの配列の長さが異なる場合
+	 * @throws IndexOutOfBoundsException 行番号・列番号が範囲外の場合
+	 */
+	public SparseMatrix(int rows, int columns, int[] row, int[] column, double[] value)
+	{
+		if(rows < 0 || columns < 0)
+			throw new IllegalArgumentException("negative matrix size " + rows + "x" + columns);
+		if(row.length != column.length || row.length != value.length)
+			throw new IllegalArgumentException("triplet lengths differ: " + row.length + ", " + column.length + ", " + value.length);
+		for(int i=0; i<row.length; i++){
+			if(row[i] < 0 || row[i] >= rows)
+				throw new IndexOutOfBoundsException("row " + row[i] + " out of bounds for length " + rows);
+			if(column[i] < 0 || column[i] >= columns)
+				throw new IndexOutOfBoundsException("column " + column[i] + " out of bounds for length " + columns);
+		}
+		this.rows = rows;
+		this.columns = columns;
+
+		//行ごとの要素数を数えて行の先頭位置を決める
+		int[] pointer = new int[rows+1];
+		for(int i=0; i<row.length; i++)
+			pointer[row[i]+1]++;
+		for(int r=0; r<rows; r++)
+			pointer[r+1] += pointer[r];
+
+		//行ごとに振り分ける
+		int[] next = Arrays.copyOf(pointer, rows);
+		int[] tempIndex = new int[row.length];
+		double[] tempValue = new double[row.length];
+		for(int i=0; i<row.length; i++){
+			int p = next[row[i]]++;
+			tempIndex[p] = column[i];
+			tempValue[p] = value[i];
+		}
+
+		//行内を列番号順に並べ、重複を足し合わせる
+		rowPointer = new int[rows+1];
+		int count = 0;
+		for(int r=0; r<rows; r++){
+			sortRow(tempIndex, tempValue, pointer[r], pointer[r+1]);
+			for(int p=pointer[r]; p<pointer[r+1]; p++){
+				if(count > rowPointer[r] && tempIndex[count-1] == tempIndex[p]){
+					tempValue[count-1] += tempValue[p];
+				}else{
+					tempIndex[count] = tempIndex[p];
+					tempValue[count] = tempValue[p];
+					count++;
+				}
+			}
+			rowPointer[r+1] = count;
+		}
+		columnIndex = Arrays.copyOf(tempIndex, count);
+		values = Arrays.copyOf(tempValue, count);
+	}
+
+	/**
+	 * 行内の要素を列番号の昇順に挿入ソートします。<br>
+	 * 1行あたりの非ゼロ要素数は少ない前提です。<br>
+	 */
+	private static void sortRow(int[] index, double[] value, int from, int to)
+	{
+		for(int i=from+1; i<to; i++){
+			int key = index[i];
+			double keyValue = value[i];
+			int j = i-1;
+			while(j >= from && index[j] > key){
+				index[j+1] = index[j];
+				value[j+1] = value[j];
+				j--;
+			}
+			index[j+1] = key;
+			value[j+1] = keyValue;
+		}
+	}
+
+	//------------------------------------------------------------------------//
+	// 疎行列の操作関数群                                                     //
+	//------------------------------------------------------------------------//
+	/**
+	 * 行列の行数を返します。
+	 * @return 行数
+	 */
+	public int length()
+	{
+		return rows;
+	}
+	/**
+	 * 行列の列数を返します。
+	 * @return 列数
+	 */
+	public int columnLength()
+	{
+		return columns;
+	}
+	/**
+	 * 非ゼロ要素の数を返します。
+	 * @return 非ゼロ要素数
+	 */
+	public int nonZeros()
+	{
+		return values.length;
+	}
+	/**
+	 * 非ゼロ要素の割合(密度)を返します。
+	 * @return 密度(0～1)
+	 */
+	public double density()
+	{
+		return (double)values.length / ((double)rows * columns);
+	}
+
+	/**
+	 * 行列の要素を返します。<br>
+	 * 行内の列番号を二分探索します。<br>
+	 * @param row 行
+	 * @param column 列
+	 * @return 要素の値
+	 */
+	public double get(int row, int column)
+	{
+		int p = Arrays.binarySearch(columnIndex, rowPointer[row], rowPointer[row+1], column);
+		return p >= 0 ? values[p] : 0;
+	}
+
+	/**
+	 * 行列の行を密なベクトルとして抽出します。
+	 * @param row 抽出する行番号
+	 * @return 取り出した行
+	 */
+	public Vector getRow(int row)
+	{
+		Vector result = new Vector(columns);
+		for(int p=rowPointer[row]; p<rowPointer[row+1]; p++)
+			result.vector[columnIndex[p]] = values[p];
+		return result;
+	}
+
+	/**
+	 * 行列の列を密なベクトルとして抽出します。<br>
+	 * 最初の呼び出しで列方向の索引(CSC形式)を作ります。<br>
+	 * @param column 抽出する列番号
+	 * @return 取り出した列
+	 */
+	public Vector getColumn(int column)
+	{
+		return transpose().getRow(column);
+	}
+
+	/**
+	 * 密行列に変換します。
+	 * @return 密行列
+	 */
+	public Matrix toMatrix()
+	{
+		Matrix result = new Matrix(rows, columns);
+		for(int r=0; r<rows; r++)
+			for(int p=rowPointer[r]; p<rowPointer[r+1]; p++)
+				result.data[r*columns+columnIndex[p]] = values[p];
+		return result;
+	}
+
+	/**
+	 * 転置行列を返します。<br>
+	 * 非ゼロ要素数に比例する計算量で作り、結果は使い回します。<br>
+	 * @return 転置した疎行列
+	 */
+	public SparseMatrix transpose()
+	{
+		if(transposed != null)	return transposed;
+
+		int[] pointer = new int[columns+1];
+		for(int p=0; p<columnIndex.length; p++)
+			pointer[columnIndex[p]+1]++;
+		for(int c=0; c<columns; c++)
+			pointer[c+1] += pointer[c];
+
+		int[] next = Arrays.copyOf(pointer, columns);
+		int[] index = new int[values.length];
+		double[] value = new double[values.length];
+		for(int r=0; r<rows; r++){
+			for(int p=rowPointer[r]; p<rowPointer[r+1]; p++){
+				int q = next[columnIndex[p]]++;
+				index[q] = r;
+				value[q] = values[p];
+			}
+		}
+		transposed = new SparseMatrix(pointer, index, value, rows);
+		transposed.transposed = this;
+		return transposed;
+	}
+	/**
+	 * 転置行列を返します<br>
+	 * transpose()のラッパーです<br>
+	 * @return 転置した行列
+	 */
+	public SparseMatrix T()
+	{
+		return transpose();
+	}
+
+	//------------------------------------------------------------------------//
+	// 疎行列の演算関数群                                                     //
+	//------------------------------------------------------------------------//
+	/**
+	 * 疎行列と密なベクトルの積を計算します。
+	 * @param target ベクトル(長さは列数と等しいこと)
+	 * @return 積のベクトル。長さが合わない場合はnull
+	 */
+	public Vector multiply(Vector target)
+	{
+		if(target.length() != columns){
+			Logging.logger.severe("different vector length");
+			return null;
+		}
+		Vector result = new Vector(rows);
+		double[] x = target.vector;
+		for(int r=0; r<rows; r++){
+			double sum = 0;
+			for(int p=rowPointer[r]; p<rowPointer[r+1]; p++)
+				sum += values[p] * x[columnIndex[p]];
+			result.vector[r] = sum;
+		}
+		return result;
+	}
+
+	/**
+	 * 疎行列と密行列の積を計算します。<br>
+	 * 非ゼロ要素ごとに密行列の行を足し込むため、計算量は非ゼロ要素数×密行列の列数です。<br>
+	 * @param target 密行列(行数は列数と等しいこと)
+	 * @return 積の密行列。サイズが合わない場合はnull
+	 */
+	public Matrix multiply(Matrix target)
+	{
+		if(target.length() != columns){
+			Logging.logger.severe("different matrix size");
+			return null;
+		}
+		int n = target.columnLength();
+		Matrix result = new Matrix(rows, n);
+		double[] c = result.data, b = target.data;
+		int bcs = target.columnStride;
+		for(int r=0; r<rows; r++){
+			int cr = r*n;
+			for(int p=rowPointer[r]; p<rowPointer[r+1]; p++){
+				double a = values[p];
+				int bk = target.index(columnIndex[p], 0);
+				for(int j=0; j<n; j++, bk+=bcs)
+					c[cr+j] += a * b[bk];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 密行列と疎行列の積(target×this)を計算します。<br>
+	 * 密行列の各要素で疎行列の行を足し込みます。<br>
+	 * @param target 密行列(列数はこの行列の行数と等しいこと)
+	 * @return 積の密行列。サイズが合わない場合はnull
+	 */
+	Matrix leftMultiply(Matrix target)
+	{
+		if(target.columnLength() != rows){
+			Logging.logger.severe("different matrix size");
+			return null;
+		}
+		int m = target.length();
+		Matrix result = new Matrix(m, columns);
+		double[] c = result.data, a = target.data;
+		for(int i=0; i<m; i++){
+			int ci = i*columns;
+			int from = target.index(i, 0);
+			for(int k=0; k<rows; k++, from+=target.columnStride){
+				double value = a[from];
+				if(value == 0)	continue;
+				for(int p=rowPointer[k]; p<rowPointer[k+1]; p++)
+					c[ci+columnIndex[p]] += value * values[p];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 疎行列同士の積を計算します。<br>
+	 * 行ごとに密な作業配列へ足し込み、非ゼロになった列だけを取り出します(Gustavson法)。<br>
+	 * @param target 疎行列(行数は列数と等しいこと)
+	 * @return 積の疎行列。サイズが合わない場合はnull
+	 */
+	public SparseMatrix multiply(SparseMatrix target)
+	{
+		if(target.rows != columns){
+			Logging.logger.severe("different matrix size");
+			return null;
+		}
+		int n = target.columns;
+		double[] accumulator = new double[n];
+		int[] marker = new int[n];
+		Arrays.fill(marker, -1);
+		int[] pattern = new int[n];
+
+		int[] pointer = new int[rows+1];
+		int[] index = new int[Math.max(16, values.length + target.values.length)];
+		double[] value = new double[index.length];
+		int count = 0;
+
+		for(int r=0; r<rows; r++){
+			int patternLength = 0;
+			for(int p=rowPointer[r]; p<rowPointer[r+1]; p++){
+				double a = values[p];
+				int k = columnIndex[p];
+				for(int q=target.rowPointer[k]; q<target.rowPointer[k+1]; q++){
+					int c = target.columnIndex[q];
+					if(marker[c] != r){
+						marker[c] = r;
+						pattern[patternLength++] = c;
+						accumulator[c] = 0;
+					}
+					accumulator[c] += a * target.values[q];
+				}
+			}
+			Arrays.sort(pattern, 0, patternLength);
+			if(count + patternLength > index.length){
+				int capacity = Math.max(index.length*2, count + patternLength);
+				index = Arrays.copyOf(index, capacity);
+				value = Arrays.copyOf(value, capacity);
+			}
+			for(int i=0; i<patternLength; i++){
+				int c = pattern[i];
+				if(accumulator[c] == 0)	continue;
+				index[count] = c;
+				value[count] = accumulator[c];
+				count++;
+			}
+			pointer[r+1] = count;
+		}
+		return new SparseMatrix(pointer, Arrays.copyOf(index, count), Arrays.copyOf(value, count), n);
+	}
+
+	/**
+	 * 疎行列を定数倍します。
+	 * @param target 定数
+	 * @return 定数倍の疎行列
+	 */
+	public SparseMatrix multiply(double target)
+	{
+		double[] value = new double[values.length];
+		for(int p=0; p<values.length; p++)
+			value[p] = values[p] * target;
+		return new SparseMatrix(rowPointer, columnIndex, value, columns);
+	}
+
+	/**
+	 * 非ゼロ要素を(行, 列) 値の形式の文字列として返します。
+	 * @return 変換した文字列
+	 */
+	public String toString()
+	{
+		StringBuilder str = new StringBuilder();
+		for(int r=0; r<rows; r++){
+			for(int p=rowPointer[r]; p<rowPointer[r+1]; p++){
+				str.append("  (").append(r).append(", ").append(columnIndex[p]).append(") ");
+				str.append(values[p]).append("\r\n");
+			}
+		}
+		return str.toString();
+	}
+}
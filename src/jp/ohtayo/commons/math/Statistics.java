@@ -0,0 +1,275 @@
+package jp.ohtayo.commons.math;
+
+import java.util.function.DoubleConsumer;
+
+/**
+ * 要素数・平均・偏差平方和・最小値・最大値・和を1回の走査で求める統計量の集計クラスです。<br>
+ * 平均と偏差平方和はWelfordの逐次更新で求めるため、値を1つずつ追加しても桁落ちしにくくなっています。<br>
+ * 別々に集計した結果はmerge()でまとめられるため、データを分割して複数スレッドで集計できます。<br>
+ * DoubleConsumerを実装しているので、DoubleStreamからも集計できます。<br>
+ * 例：<br>
+ * 		Statistics statistics = new Statistics(vector);<br>
+ * 		double sd = statistics.standardDeviation();<br>
+ * 		Statistics s = stream.collect(Statistics::new, Statistics::add, Statistics::merge);<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+public class Statistics implements DoubleConsumer {
+
+	/** 配列を集計する際のブロックの大きさ	*/	private static final int BLOCK = 1024;
+
+	/** 要素数		*/	private long count;
+	/** 平均		*/	private double mean;
+	/** 偏差平方和	*/	private double m2;
+	/** 最小値		*/	private double min = Double.POSITIVE_INFINITY;
+	/** 最大値		*/	private double max = Double.NEGATIVE_INFINITY;
+	/** 和			*/	private double sum;
+
+	/**
+	 * 要素のない集計を生成します。
+	 */
+	public Statistics()
+	{
+	}
+	/**
+	 * 配列の値を集計して生成します。
+	 * @param target 集計する配列
+	 */
+	public Statistics(double[] target)
+	{
+		add(target, 0, target.length);
+	}
+	/**
+	 * ベクトルの値を集計して生成します。
+	 * @param target 集計するベクトル
+	 */
+	public Statistics(Vector target)
+	{
+		add(target.vector, 0, target.vector.length);
+	}
+
+	//------------------------------------------------------------------------//
+	// 集計                                                                   //
+	//------------------------------------------------------------------------//
+	/**
+	 * 値を1つ追加します。
+	 * @param value 値
+	 * @return this
+	 */
+	public Statistics add(double value)
+	{
+		count++;
+		double delta = value - mean;
+		mean += delta / count;
+		m2 += delta * (value - mean);
+		sum += value;
+		if(value < min)	min = value;
+		if(value > max)	max = value;
+		return this;
+	}
+	/**
+	 * 値を1つ追加します。<br>
+	 * add(double)と同じです。<br>
+	 * @param value 値
+	 */
+	@Override
+	public void accept(double value)
+	{
+		add(value);
+	}
+	/**
+	 * 配列の値を追加します。
+	 * @param values 値の配列
+	 * @return this
+	 */
+	public Statistics add(double[] values)
+	{
+		return add(values, 0, values.length);
+	}
+	/**
+	 * ベクトルの値を追加します。
+	 * @param values 値のベクトル
+	 * @return this
+	 */
+	public Statistics add(Vector values)
+	{
+		return add(values.vector, 0, values.vector.length);
+	}
+	/**
+	 * 配列の[from, to)の値を追加します。<br>
+	 * BLOCK要素ずつ平均と偏差平方和を求めてからmergeするため、値を1つずつ追加するより高速です。<br>
+	 * @param values 値の配列
+	 * @param from 追加する最初の要素番号
+	 * @param to 追加する最後の要素番号+1
+	 * @return this
+	 */
+	public Statistics add(double[] values, int from, int to)
+	{
+		Statistics block = new Statistics();
+		for(int start=from; start<to; start+=BLOCK)
+		{
+			int end = Math.min(start+BLOCK, to);
+			double blockSum = 0;
+			double blockMin = Double.POSITIVE_INFINITY, blockMax = Double.NEGATIVE_INFINITY;
+			for(int i=start; i<end; i++){
+				double value = values[i];
+				blockSum += value;
+				if(value < blockMin)	blockMin = value;
+				if(value > blockMax)	blockMax = value;
+			}
+			double blockMean = blockSum / (end-start);
+			double blockM2 = 0;
+			for(int i=start; i<end; i++){
+				double delta = values[i] - blockMean;
+				blockM2 += delta * delta;
+			}
+			block.count = end-start;
+			block.mean = blockMean;
+			block.m2 = blockM2;
+			block.sum = blockSum;
+			block.min = blockMin;
+			block.max = blockMax;
+			merge(block);
+		}
+		return this;
+	}
+
+	/**
+	 * 別の集計結果をまとめます。<br>
+	 * 両方の値を1つの集計に追加した場合と同じ統計量になります(Chanらの方法)。<br>
+	 * @param other まとめる集計結果
+	 * @return this
+	 */
+	public Statistics merge(Statistics other)
+	{
+		if(other.count == 0)	return this;
+		if(count == 0){
+			count = other.count;
+			mean = other.mean;
+			m2 = other.m2;
+			sum = other.sum;
+			min = other.min;
+			max = other.max;
+			return this;
+		}
+		long total = count + other.count;
+		double delta = other.mean - mean;
+		mean += delta * other.count / total;
+		m2 += other.m2 + delta * delta * ((double)count * other.count / total);
+		count = total;
+		sum += other.sum;
+		if(other.min < min)	min = other.min;
+		if(other.max > max)	max = other.max;
+		return this;
+	}
+
+	//------------------------------------------------------------------------//
+	// 統計量                                                                 //
+	//------------------------------------------------------------------------//
+	/**
+	 * 要素数を返します。
+	 * @return 要素数
+	 */
+	public long count()
+	{
+		return count;
+	}
+	/**
+	 * 和を返します。
+	 * @return 和
+	 */
+	public double sum()
+	{
+		return sum;
+	}
+	/**
+	 * 算術平均値を返します。
+	 * @return 平均値。要素がなければNaN
+	 */
+	public double mean()
+	{
+		return count == 0 ? Double.NaN : mean;
+	}
+	/**
+	 * 最小値を返します。
+	 * @return 最小値。要素がなければNaN
+	 */
+	public double min()
+	{
+		return count == 0 ? Double.NaN : min;
+	}
+	/**
+	 * 最大値を返します。
+	 * @return 最大値。要素がなければNaN
+	 */
+	public double max()
+	{
+		return count == 0 ? Double.NaN : max;
+	}
+	/**
+	 * レンジ(分布の範囲)を返します。
+	 * @return レンジ
+	 */
+	public double range()
+	{
+		return max()-min();
+	}
+	/**
+	 * ミッドレンジ(分布の中間の値)を返します。
+	 * @return ミッドレンジ
+	 */
+	public double midRange()
+	{
+		return ( max()+min() )/2;
+	}
+	/**
+	 * 偏差平方和Σ(x-E[x])^2を返します。
+	 * @return 偏差平方和
+	 */
+	public double sumOfSquares()
+	{
+		return m2;
+	}
+	/**
+	 * 分散R^2を返します。
+	 * @return 分散。要素がなければNaN
+	 */
+	public double variance()
+	{
+		return m2 / count;
+	}
+	/**
+	 * 標準偏差Rを返します。
+	 * @return 標準偏差
+	 */
+	public double standardDeviation()
+	{
+		return Math.sqrt(variance());
+	}
+	/**
+	 * 不偏分散s^2を返します。
+	 * @return 不偏分散。要素が1つ以下ならNaNまたは無限大
+	 */
+	public double unbiasedVariance()
+	{
+		return m2 / (count-1);
+	}
+	/**
+	 * 不偏分散の平方根sを返します。
+	 * @return 不偏標準偏差
+	 */
+	public double unbiasedStandardDeviation()
+	{
+		return Math.sqrt(unbiasedVariance());
+	}
+
+	/**
+	 * 統計量を文字列として返します。
+	 * @return 変換した文字列
+	 */
+	public String toString()
+	{
+		return "count=" + count + ", mean=" + mean() + ", variance=" + variance()
+				+ ", min=" + min() + ", max=" + max() + ", sum=" + sum;
+	}
+}
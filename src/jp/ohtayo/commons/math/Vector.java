@@ -1,8 +1,9 @@
 package jp.ohtayo.commons.math;
 
+import java.util.Arrays;
+
 import jp.ohtayo.commons.random.Random;
 import jp.ohtayo.commons.log.Logging;
-import jp.ohtayo.commons.util.Cast;
 
 /**
  * 配列クラスです。<br>
@@ -279,8 +280,7 @@ public class Vector {
 		}
 
 		double[] result = new double[length()];
-		for(int i=0; i<length(); i++)
-			result[i] = vector[i]+target.get(i);
+		ArrayKernel.INSTANCE.plus(vector, 0, target.vector, 0, result, 0, length());
 
 		return new Vector(result);
 	}
@@ -292,8 +292,7 @@ public class Vector {
 	public Vector plus(double target)
 	{
 		double[] result = new double[length()];
-		for(int i=0; i<length(); i++)
-			result[i] = vector[i]+target;
+		ArrayKernel.INSTANCE.plus(vector, 0, target, result, 0, length());
 
 		return new Vector(result);
 	}
@@ -311,8 +310,7 @@ public class Vector {
 		}
 
 		double[] result = new double[length()];
-		for(int i=0; i<length(); i++)
-			result[i] = vector[i]-target.get(i);
+		ArrayKernel.INSTANCE.minus(vector, 0, target.vector, 0, result, 0, length());
 
 		return new Vector(result);
 	}
@@ -324,8 +322,7 @@ public class Vector {
 	public Vector minus(double target)
 	{
 		double[] result = new double[length()];
-		for(int i=0; i<length(); i++)
-			result[i] = vector[i]-target;
+		ArrayKernel.INSTANCE.minus(vector, 0, target, result, 0, length());
 
 		return new Vector(result);
 	}
@@ -343,19 +340,34 @@ public class Vector {
 		}
 
 		double[] result = new double[length()];
-		for(int i=0; i<length(); i++)
-			result[i] = vector[i]*target.get(i);
+		ArrayKernel.INSTANCE.multiply(vector, 0, target.vector, 0, result, 0, length());
 
 		return new Vector(result);
 	}
 	/**
-	 * 2つのベクトルの内積(各要素ごとの積の和)を返します。
+	 * 2つのベクトルの内積(各要素ごとの積の和)を返します。<br>
+	 * ペアワイズ加算で計算し、要素数が大きい場合は自動的に複数コアで並列に計算します。<br>
 	 * @param target 内積を計算したい対象のベクトル
-	 * @return 自分とtargetの内積
+	 * @return 自分とtargetの内積。長さが異なる場合はNaN
 	 */
 	public double innerProduct(Vector target)
 	{
-		return multiply(target).sum();
+		return innerProduct(target, Reduction.isParallel(length()));
+	}
+	/**
+	 * 2つのベクトルの内積(各要素ごとの積の和)を、並列計算の有無を指定して返します。<br>
+	 * 並列・逐次で結果は一致します。<br>
+	 * @param target 内積を計算したい対象のベクトル
+	 * @param parallel trueならForkJoinPoolで並列に計算する
+	 * @return 自分とtargetの内積。長さが異なる場合はNaN
+	 */
+	public double innerProduct(Vector target, boolean parallel)
+	{
+		if(length() != target.length()){
+			Logging.logger.severe("different vector length");
+			return Double.NaN;
+		}
+		return Reduction.dot(vector, target.vector, 0, length(), parallel);
 	}
 	/**
 	* 配列を定数倍します。
@@ -365,8 +377,7 @@ public class Vector {
 	public Vector multiply(double target)
 	{
 		double[] result = new double[length()];
-		for(int i=0; i<length(); i++)
-			result[i] = vector[i]*target;
+		ArrayKernel.INSTANCE.multiply(vector, 0, target, result, 0, length());
 
 		return new Vector(result);
 	}
@@ -384,8 +395,7 @@ public class Vector {
 		}
 
 		double[] result = new double[length()];
-		for(int i=0; i<length(); i++)
-			result[i] = vector[i]/target.get(i);
+		ArrayKernel.INSTANCE.division(vector, 0, target.vector, 0, result, 0, length());
 
 		return new Vector(result);
 	}
@@ -398,13 +408,24 @@ public class Vector {
 	public Vector division(double target)
 	{
 		double[] result = new double[length()];
-		for(int i=0; i<length(); i++)
-			result[i] = vector[i]/target;
+		ArrayKernel.INSTANCE.division(vector, 0, target, result, 0, length());
 
 		return new Vector(result);
 	}
 
 
+	/**
+	* 配列の要素ごとの演算を遅延評価する式を返します。<br>
+	* 式に対するplus/minus/multiply/division/square/abs/sqrtは一時配列を作らず、
+	* eval()や集計(sum/mean/max/min)の時点で1つのループにまとめて計算します。<br>
+	* 例：vector.lazy().minus(mean).square().mean()<br>
+	* @return この配列を値とする式
+	*/
+	public VectorExpression lazy()
+	{
+		return VectorExpression.of(this);
+	}
+
 	//------------------------------------------------------------------------//
 	// 配列の数値計算                                                         //
 	//------------------------------------------------------------------------//
@@ -518,15 +539,22 @@ public class Vector {
 
 	/**
 	* double[]型配列の和を返します。<br>
+	* ペアワイズ加算で計算し、要素数が大きい場合は自動的に複数コアで並列に計算します。<br>
 	* @return 配列の和
 	*/
 	public double sum()
 	{
-		double sum = 0;
-		for( int i=0; i<length(); i++ ){
-			sum += vector[i];
-		}
-		return (sum);
+		return sum(Reduction.isParallel(length()));
+	}
+	/**
+	* 並列計算の有無を指定してdouble[]型配列の和を返します。<br>
+	* 並列・逐次で結果は一致します。<br>
+	* @param parallel trueならForkJoinPoolで並列に計算する
+	* @return 配列の和
+	*/
+	public double sum(boolean parallel)
+	{
+		return Reduction.sum(vector, 0, length(), parallel);
 	}
 
 	/**
@@ -543,7 +571,7 @@ public class Vector {
 	 */
 	public double norm()
 	{
-		return Math.sqrt(square().sum());
+		return Math.sqrt(innerProduct(this));
 	}
 	/**
 	 * ベクトルのRMS(Root Mean Square、二乗平均平方根)を求めます。
@@ -551,17 +579,201 @@ public class Vector {
 	 */
 	public double rootMeanSquare()
 	{
-		return Math.sqrt(square().mean());
+		return Math.sqrt(innerProduct(this)/length());
 	}
 	/**
-	 * 配列の中央値(median)を返します。
-	 * @return 中央値
+	 * 配列の中央値(median)を返します。<br>
+	 * 要素数が偶数の場合は、中央の2つのうち小さい方を返します。<br>
+	 * 配列全体をソートせず、選択アルゴリズムで期待O(n)で求めます。<br>
+	 * @return 中央値。NaNを含む場合はNaN
 	 */
 	public double median()
 	{
-		Vector temp = new Vector(vector);
-		temp.sort();
-		return temp.get( (int)Math.ceil((double)vector.length/2)-1 );
+		double[] temp = selectionCopy();
+		if(temp == null)	return Double.NaN;
+		int rank = (int)Math.ceil((double)temp.length/2)-1;
+		select(temp, 0, temp.length-1, rank);
+		return temp[rank];
+	}
+
+	/**
+	 * 分位数を返します。<br>
+	 * 昇順に並べた配列をx[0]～x[n-1]として、位置(n-1)*pの値を前後の要素から線形補間します。<br>
+	 * 配列全体をソートせず、選択アルゴリズムで期待O(n)で求めます。<br>
+	 * @param p 確率(0～1)。0.5で中央値(偶数個の場合は中央2つの平均)
+	 * @return 分位数。pが範囲外の場合やNaNを含む場合はNaN
+	 */
+	public double quantile(double p)
+	{
+		return quantiles(p)[0];
+	}
+	/**
+	 * 複数の分位数をまとめて返します。<br>
+	 * 必要な順位だけを分割統治で選択するため、分位数ごとにquantile()を呼ぶより高速です。<br>
+	 * @param p 確率(0～1)の配列
+	 * @return pと同じ順の分位数の配列。pが範囲外の要素やNaNを含む配列の場合はNaN
+	 */
+	public double[] quantiles(double... p)
+	{
+		double[] result = new double[p.length];
+		double[] temp = selectionCopy();
+		if(temp == null){
+			Arrays.fill(result, Double.NaN);
+			return result;
+		}
+		int n = temp.length;
+
+		//必要な順位(補間する前後2つ)を集めて、まとめて選択する
+		int[] ranks = new int[p.length*2];
+		int count = 0;
+		for(int i=0; i<p.length; i++){
+			if(!(p[i] >= 0 && p[i] <= 1)){
+				Logging.logger.severe("probability is out of range: " + p[i]);
+				continue;
+			}
+			int lower = (int)Math.floor((n-1)*p[i]);
+			ranks[count++] = lower;
+			ranks[count++] = Math.min(lower+1, n-1);
+		}
+		Arrays.sort(ranks, 0, count);
+		int unique = 0;
+		for(int i=0; i<count; i++)
+			if(unique == 0 || ranks[unique-1] != ranks[i])	ranks[unique++] = ranks[i];
+		select(temp, 0, n-1, ranks, 0, unique-1);
+
+		for(int i=0; i<p.length; i++){
+			if(!(p[i] >= 0 && p[i] <= 1)){
+				result[i] = Double.NaN;
+				continue;
+			}
+			double position = (n-1)*p[i];
+			int lower = (int)Math.floor(position);
+			int upper = Math.min(lower+1, n-1);
+			result[i] = temp[lower] + (position-lower)*(temp[upper]-temp[lower]);
+		}
+		return result;
+	}
+	/**
+	 * パーセンタイルを返します。<br>
+	 * quantile(p/100)と同じです。<br>
+	 * @param p パーセント(0～100)
+	 * @return パーセンタイル値
+	 */
+	public double percentile(double p)
+	{
+		return quantile(p/100);
+	}
+	/**
+	 * 複数のパーセンタイルをまとめて返します。<br>
+	 * 例：vector.percentiles(50, 95, 99)<br>
+	 * @param p パーセント(0～100)の配列
+	 * @return pと同じ順のパーセンタイル値の配列
+	 */
+	public double[] percentiles(double... p)
+	{
+		double[] q = new double[p.length];
+		for(int i=0; i<p.length; i++)
+			q[i] = p[i]/100;
+		return quantiles(q);
+	}
+
+	/**
+	 * 選択アルゴリズム用に配列をコピーします。
+	 * @return コピーした配列。空またはNaNを含む場合はnull
+	 */
+	private double[] selectionCopy()
+	{
+		if(vector.length == 0)	return null;
+		for(int i=0; i<vector.length; i++)
+			if(Double.isNaN(vector[i]))	return null;
+		return vector.clone();
+	}
+
+	/** 選択アルゴリズムで挿入ソートに切り替える要素数	*/	private static final int SELECT_INSERTION = 16;
+
+	/**
+	 * buff[low..high]を並び替え、buff[rank]に昇順でrank番目の値を置きます(introselect)。<br>
+	 * 実行後、rankより前の要素はbuff[rank]以下、後の要素はbuff[rank]以上になります。<br>
+	 * 分割の回数が2log2(n)を超えた場合は範囲をソートして、最悪でもO(n log n)に抑えます。<br>
+	 * @param buff 配列
+	 * @param low 範囲の開始位置
+	 * @param high 範囲の終了位置
+	 * @param rank 選択する順位
+	 */
+	private static void select(double[] buff, int low, int high, int rank)
+	{
+		int limit = 2*(32-Integer.numberOfLeadingZeros(high-low+1));
+		while(high-low > SELECT_INSERTION)
+		{
+			if(limit-- == 0){
+				Arrays.sort(buff, low, high+1);
+				return;
+			}
+			//3つの中央値をピボットにしてHoare分割する
+			int middle = (low+high) >>> 1;
+			if(buff[middle] < buff[low])	swap(buff, middle, low);
+			if(buff[high] < buff[low])		swap(buff, high, low);
+			if(buff[high] < buff[middle])	swap(buff, high, middle);
+			double pivot = buff[middle];
+			int i = low, j = high;
+			while(i <= j){
+				while(buff[i] < pivot) i++;
+				while(buff[j] > pivot) j--;
+				if(i <= j){
+					swap(buff, i, j);
+					i++;
+					j--;
+				}
+			}
+			if(rank <= j)		high = j;
+			else if(rank >= i)	low = i;
+			else				return;
+		}
+		//小さい範囲は挿入ソート
+		for(int i=low+1; i<=high; i++){
+			double key = buff[i];
+			int j = i-1;
+			while(j >= low && buff[j] > key){
+				buff[j+1] = buff[j];
+				j--;
+			}
+			buff[j+1] = key;
+		}
+	}
+	/**
+	 * buff[low..high]について、昇順の順位ranks[from..to]の値をそれぞれの位置に置きます。<br>
+	 * 中央の順位を選択して範囲を分け、左右の順位を再帰的に選択します。<br>
+	 * @param buff 配列
+	 * @param low 範囲の開始位置
+	 * @param high 範囲の終了位置
+	 * @param ranks 昇順に並んだ順位の配列
+	 * @param from 処理する順位の開始位置
+	 * @param to 処理する順位の終了位置
+	 */
+	private static void select(double[] buff, int low, int high, int[] ranks, int from, int to)
+	{
+		if(from > to || low >= high)	return;
+		int middle = (from+to) >>> 1;
+		int rank = ranks[middle];
+		select(buff, low, high, rank);
+		select(buff, low, rank-1, ranks, from, middle-1);
+		select(buff, rank+1, high, ranks, middle+1, to);
+	}
+	private static void swap(double[] buff, int i, int j)
+	{
+		double temp = buff[i];
+		buff[i] = buff[j];
+		buff[j] = temp;
+	}
+
+	/**
+	 * 要素数・平均・分散・最小値・最大値・和を1回の走査で集計して返します。<br>
+	 * 複数の統計量が必要な場合は、個別のメソッドを呼ぶよりこちらを使う方が高速です。<br>
+	 * @return 統計量
+	 */
+	public Statistics statistics()
+	{
+		return new Statistics(this);
 	}
 
 	/**
@@ -570,7 +782,7 @@ public class Vector {
 	 */
 	public double range()
 	{
-		return max()-min();
+		return statistics().range();
 	}
 	/**
 	 * ミッドレンジ(分布の中間の値)を返します。
@@ -578,7 +790,7 @@ public class Vector {
 	 */
 	public double midRange()
 	{
-		return ( max()+min() )/2;
+		return statistics().midRange();
 	}
 
 	/**
@@ -587,7 +799,7 @@ public class Vector {
 	 */
 	public double variance()
 	{
-		return minus(mean()).square().mean();
+		return statistics().variance();
 	}
 	/**
 	 * 標準偏差Rを返します。
@@ -595,7 +807,7 @@ public class Vector {
 	 */
 	public double standardDeviation()
 	{
-		return Math.sqrt(variance());
+		return statistics().standardDeviation();
 	}
 	/**
 	 * 不偏分散s^2を返します。
@@ -603,7 +815,7 @@ public class Vector {
 	 */
 	public double unbiasedVariance()
 	{
-		return minus(mean()).square().sum()/(length()-1);
+		return statistics().unbiasedVariance();
 	}
 
 	/**
@@ -612,7 +824,8 @@ public class Vector {
 	 */
 	public Vector standardize()
 	{
-		return new Vector( minus(mean()).division(Math.sqrt(unbiasedVariance())) );
+		Statistics statistics = statistics();
+		return lazy().minus(statistics.mean()).division(statistics.unbiasedStandardDeviation()).eval();
 	}
 	/**
 	 * 偏差値得点(平均50,標準偏差10)を返します。
@@ -620,7 +833,8 @@ public class Vector {
 	 */
 	public Vector deviationValue()
 	{
-		return new Vector( standardize().multiply(10).plus(50) );
+		Statistics statistics = statistics();
+		return lazy().minus(statistics.mean()).division(statistics.unbiasedStandardDeviation()).multiply(10).plus(50).eval();
 	}
 
 	/**
@@ -679,12 +893,13 @@ public class Vector {
 	* 配列を昇順にソートして書き換えます。<br>
 	* 返り値はインデックス配列です。<br>
 	* 返り値がindexの場合、vector.get(index[x])が元の値になります。<br>
+	* 値が等しい要素は元の順序を保ちます。<br>
 	* @return インデックス配列
 	*/
 	public int[] sort()
 	{
-		int[] index = Cast.doubleToInt(new Vector(0, 1, length()-1).get());
-		quickSortAscend(vector, index, 0, length()-1);
+		int[] index = IndexSort.identity(length());
+		IndexSort.sort(vector, index, false);
 		return index;
 	}
 
@@ -695,19 +910,20 @@ public class Vector {
 	* 配列を昇順・降順を指定してソートして書き換えます。<br>
 	* 返り値はインデックス配列です。<br>
 	* 返り値がindexの場合、vector.get(index[x])が元の値になります。<br>
+	* 値が等しい要素は元の順序を保ちます。<br>
 	* @param direction ソート方向("descend"(降順)もしくは"ascend"(昇順))
 	* @return インデックス配列
 	*/
 	public int[] sort(String direction){
-		int[] index = Cast.doubleToInt(new Vector(0, 1, length()-1).get());
+		int[] index = IndexSort.identity(length());
 		if(direction == SORT_DESCEND)	//降順
 		{
-			quickSortDescend(vector, index, 0, length()-1);
+			IndexSort.sort(vector, index, true);
 			return index;
 		}
 		else if(direction == SORT_ASCEND) //昇順
 		{
-			quickSortAscend(vector, index, 0, length()-1);
+			IndexSort.sort(vector, index, false);
 			return index;
 		}
 		else
@@ -718,53 +934,24 @@ public class Vector {
 	}
 
 	/**
-	* 再帰呼び出しを使い、クイックソートアルゴリズムで配列を降順にソートします。<br>
-	* @param buff ソートしたい配列
-	* @param idx インデックス配列
-	* @param low ソートデータ開始位置
-	* @param high ソートデータ終了位置
+	* 配列を書き換えずに、昇順に並べたときのインデックス配列を返します。<br>
+	* sort()の返り値と同じです。<br>
+	* @return インデックス配列
 	*/
-	private static void quickSortDescend(double[] buff,int[] idx, int low, int high)
+	public int[] argsort()
 	{
-		double p = buff[(low + high) / 2];
-		int i = low, j = high;
-		while(true){
-			while(buff[i] > p) i++;
-			while(buff[j] < p) j--;
-			if(i >= j) break;
-			double temp = buff[i];	int tmp = idx[i];
-			buff[i] = buff[j];		idx[i] = idx[j];
-			buff[j] = temp;			idx[j] = tmp;
-			i++;
-			j--;
-		}
-		if(i - low > 1) quickSortDescend(buff, idx, low, i - 1);
-		if(high - j > 1) quickSortDescend(buff, idx,  j + 1, high);
-	}
-
-	/**
-	* 再帰呼び出しを使い、クイックソートアルゴリズムで配列を昇順にソートします。<br>
-	* @param buff ソートしたい配列
-	* @param idx インデックス配列
-	* @param low ソートデータ開始位置
-	* @param high ソートデータ終了位置
-	*/
-	private static void quickSortAscend(double[] buff,int[] idx, int low, int high)
-	{
-		double p = buff[(low + high) / 2];
-		int i = low, j = high;
-		while(true){
-			while(buff[i] < p) i++;
-			while(buff[j] > p) j--;
-			if(i >= j) break;
-			double temp = buff[i];	int tmp = idx[i];
-			buff[i] = buff[j];		idx[i] = idx[j];
-			buff[j] = temp;			idx[j] = tmp;
-			i++;
-			j--;
-		}
-		if(i - low > 1) quickSortAscend(buff, idx, low, i - 1);
-		if(high - j > 1) quickSortAscend(buff, idx,  j + 1, high);
+		return argsort(SORT_ASCEND);
+	}
+
+	/**
+	* 配列を書き換えずに、昇順・降順を指定して並べたときのインデックス配列を返します。<br>
+	* sort(direction)の返り値と同じです。<br>
+	* @param direction ソート方向("descend"(降順)もしくは"ascend"(昇順))
+	* @return インデックス配列
+	*/
+	public int[] argsort(String direction)
+	{
+		return new Vector(this).sort(direction);
 	}
 
 }
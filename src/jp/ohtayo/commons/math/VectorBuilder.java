@@ -0,0 +1,127 @@
+package jp.ohtayo.commons.math;
+
+import java.util.Arrays;
+
+/**
+ * 値を末尾に追加してVectorを組み立てるクラスです。<br>
+ * 内部配列は容量が足りなくなると1.5倍に拡張するため、n個の追加は合計O(n)で済みます。<br>
+ * Vector.add()は毎回配列全体をコピーするため、ループで値を追加する場合はこちらを使用します。<br>
+ * 例：<br>
+ * 		VectorBuilder builder = new VectorBuilder();<br>
+ * 		for(int i=0; i&lt;n; i++)	builder.add(value[i]);<br>
+ * 		Vector result = builder.toVector();<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+public class VectorBuilder {
+
+	/** 既定の初期容量	*/	private static final int DEFAULT_CAPACITY = 16;
+
+	/** 内部配列		*/	private double[] data;
+	/** 要素数		*/	private int length;
+
+	/**
+	 * 空のビルダーを生成します。
+	 */
+	public VectorBuilder()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+	/**
+	 * 初期容量を指定して空のビルダーを生成します。
+	 * @param capacity 初期容量
+	 */
+	public VectorBuilder(int capacity)
+	{
+		data = new double[Math.max(capacity, 1)];
+	}
+
+	/**
+	 * 少なくともcapacity個の要素を格納できるように内部配列を拡張します。
+	 * @param capacity 必要な容量
+	 */
+	public void ensureCapacity(int capacity)
+	{
+		if(capacity <= data.length)	return;
+		int grown = data.length + (data.length >> 1) + 1;
+		data = Arrays.copyOf(data, Math.max(grown, capacity));
+	}
+
+	/**
+	 * 値を末尾に追加します。
+	 * @param value 値
+	 * @return this
+	 */
+	public VectorBuilder add(double value)
+	{
+		if(length == data.length)	ensureCapacity(length+1);
+		data[length++] = value;
+		return this;
+	}
+	/**
+	 * 配列の値を末尾に追加します。
+	 * @param values 値の配列
+	 * @return this
+	 */
+	public VectorBuilder add(double[] values)
+	{
+		ensureCapacity(length + values.length);
+		System.arraycopy(values, 0, data, length, values.length);
+		length += values.length;
+		return this;
+	}
+	/**
+	 * ベクトルの値を末尾に追加します。
+	 * @param values 値のベクトル
+	 * @return this
+	 */
+	public VectorBuilder add(Vector values)
+	{
+		return add(values.vector);
+	}
+
+	/**
+	 * 追加した要素数を返します。
+	 * @return 要素数
+	 */
+	public int length()
+	{
+		return length;
+	}
+	/**
+	 * 追加した要素を返します。
+	 * @param index 要素番号
+	 * @return 要素の値
+	 */
+	public double get(int index)
+	{
+		if(index >= length)	throw new IndexOutOfBoundsException("index " + index + " for length " + length);
+		return data[index];
+	}
+	/**
+	 * 追加した要素を全て削除します。容量はそのままです。
+	 */
+	public void clear()
+	{
+		length = 0;
+	}
+
+	/**
+	 * 追加した要素をdouble[]にコピーして返します。
+	 * @return 要素の配列
+	 */
+	public double[] toArray()
+	{
+		return Arrays.copyOf(data, length);
+	}
+	/**
+	 * 追加した要素を持つVectorを返します。
+	 * @return ベクトル
+	 */
+	public Vector toVector()
+	{
+		Vector result = new Vector(0);
+		result.vector = toArray();
+		return result;
+	}
+}
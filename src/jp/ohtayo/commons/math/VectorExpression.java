@@ -0,0 +1,371 @@
+package jp.ohtayo.commons.math;
+
+import jp.ohtayo.commons.log.Logging;
+
+/**
+ * 配列の要素ごとの演算を遅延評価する式クラスです。<br>
+ * plus/minus/multiply/division/square/abs/sqrtは計算せずに式を組み立てるだけで、
+ * eval()や集計(sum/mean/max/min)を呼んだ時点で式全体を1つのループにまとめて評価します。<br>
+ * 評価はCHUNK要素ずつ行い、途中結果は式の深さ分の小さな作業配列に置くため、
+ * 演算ごとに配列全体の一時配列を確保しません。<br>
+ * 例：<br>
+ * 		double variance = vector.lazy().minus(vector.mean()).square().mean();<br>
+ * 式は元のVectorを参照するため、評価前に元のVectorを書き換えると結果に反映されます。<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+public abstract class VectorExpression {
+
+	/** 一度に評価する要素数	*/	static final int CHUNK = 1024;
+
+	/** 演算の種類	*/
+	private static final int PLUS = 0, MINUS = 1, MULTIPLY = 2, DIVISION = 3;
+	private static final int SQUARE = 4, ABS = 5, SQRT = 6;
+
+	/** 式の要素数			*/	final int length;
+	/** 評価に必要な作業配列の数	*/	final int depth;
+
+	private VectorExpression(int length, int depth)
+	{
+		this.length = length;
+		this.depth = depth;
+	}
+
+	/**
+	 * 式の[from, from+count)の要素を評価してoutに書き込みます。
+	 * @param from 評価する最初の要素番号
+	 * @param count 評価する要素数(CHUNK以下)
+	 * @param out 結果を書き込む配列
+	 * @param work 作業配列(work[level]以降を使用可)
+	 * @param level 使用可能な作業配列の最初の番号
+	 */
+	abstract void evaluate(int from, int count, double[] out, double[][] work, int level);
+
+	/**
+	 * ベクトルをそのまま値とする式を返します。
+	 * @param target ベクトル
+	 * @return 式
+	 */
+	static VectorExpression of(final Vector target)
+	{
+		return new VectorExpression(target.length(), 0) {
+			@Override
+			void evaluate(int from, int count, double[] out, double[][] work, int level)
+			{
+				System.arraycopy(target.vector, from, out, 0, count);
+			}
+		};
+	}
+
+	/**
+	 * 要素ごとの二項演算の式を返します。<br>
+	 * 右辺はwork[level]に評価し、左辺の結果に合成します。<br>
+	 */
+	private static VectorExpression binary(final int operator, final VectorExpression left, final VectorExpression right)
+	{
+		if(left.length != right.length){
+			Logging.logger.severe("different vector length");
+			return null;
+		}
+		int depth = Math.max(left.depth, right.depth+1);
+		return new VectorExpression(left.length, depth) {
+			@Override
+			void evaluate(int from, int count, double[] out, double[][] work, int level)
+			{
+				left.evaluate(from, count, out, work, level);
+				double[] value = work[level];
+				right.evaluate(from, count, value, work, level+1);
+				switch(operator){
+				case PLUS:		for(int i=0; i<count; i++)	out[i] += value[i];	break;
+				case MINUS:		for(int i=0; i<count; i++)	out[i] -= value[i];	break;
+				case MULTIPLY:	for(int i=0; i<count; i++)	out[i] *= value[i];	break;
+				default:		for(int i=0; i<count; i++)	out[i] /= value[i];	break;
+				}
+			}
+		};
+	}
+
+	/**
+	 * 定数との二項演算の式を返します。
+	 */
+	private static VectorExpression scalar(final int operator, final VectorExpression left, final double value)
+	{
+		return new VectorExpression(left.length, left.depth) {
+			@Override
+			void evaluate(int from, int count, double[] out, double[][] work, int level)
+			{
+				left.evaluate(from, count, out, work, level);
+				switch(operator){
+				case PLUS:		for(int i=0; i<count; i++)	out[i] += value;	break;
+				case MINUS:		for(int i=0; i<count; i++)	out[i] -= value;	break;
+				case MULTIPLY:	for(int i=0; i<count; i++)	out[i] *= value;	break;
+				default:		for(int i=0; i<count; i++)	out[i] /= value;	break;
+				}
+			}
+		};
+	}
+
+	/**
+	 * 要素ごとの単項演算の式を返します。
+	 */
+	private static VectorExpression unary(final int operator, final VectorExpression operand)
+	{
+		return new VectorExpression(operand.length, operand.depth) {
+			@Override
+			void evaluate(int from, int count, double[] out, double[][] work, int level)
+			{
+				operand.evaluate(from, count, out, work, level);
+				switch(operator){
+				case SQUARE:	for(int i=0; i<count; i++)	out[i] *= out[i];			break;
+				case ABS:		for(int i=0; i<count; i++)	out[i] = Math.abs(out[i]);	break;
+				default:		for(int i=0; i<count; i++)	out[i] = Math.sqrt(out[i]);	break;
+				}
+			}
+		};
+	}
+
+	//------------------------------------------------------------------------//
+	// 式の組み立て                                                           //
+	//------------------------------------------------------------------------//
+	/**
+	 * 式の要素数を返します。
+	 * @return 要素数
+	 */
+	public int length()
+	{
+		return length;
+	}
+
+	/**
+	 * 各要素の加算の式を返します。
+	 * @param target 加算する式
+	 * @return 式。長さが異なる場合はnull
+	 */
+	public VectorExpression plus(VectorExpression target)
+	{
+		return binary(PLUS, this, target);
+	}
+	/**
+	 * 各要素の加算の式を返します。
+	 * @param target 加算する配列
+	 * @return 式。長さが異なる場合はnull
+	 */
+	public VectorExpression plus(Vector target)
+	{
+		return binary(PLUS, this, of(target));
+	}
+	/**
+	 * 各要素に定数を加算する式を返します。
+	 * @param target 加算する定数
+	 * @return 式
+	 */
+	public VectorExpression plus(double target)
+	{
+		return scalar(PLUS, this, target);
+	}
+
+	/**
+	 * 各要素の差の式を返します。
+	 * @param target 引く式
+	 * @return 式。長さが異なる場合はnull
+	 */
+	public VectorExpression minus(VectorExpression target)
+	{
+		return binary(MINUS, this, target);
+	}
+	/**
+	 * 各要素の差の式を返します。
+	 * @param target 引く配列
+	 * @return 式。長さが異なる場合はnull
+	 */
+	public VectorExpression minus(Vector target)
+	{
+		return binary(MINUS, this, of(target));
+	}
+	/**
+	 * 各要素から定数を減算する式を返します。
+	 * @param target 引く定数
+	 * @return 式
+	 */
+	public VectorExpression minus(double target)
+	{
+		return scalar(MINUS, this, target);
+	}
+
+	/**
+	 * 各要素の積の式を返します。
+	 * @param target かける式
+	 * @return 式。長さが異なる場合はnull
+	 */
+	public VectorExpression multiply(VectorExpression target)
+	{
+		return binary(MULTIPLY, this, target);
+	}
+	/**
+	 * 各要素の積の式を返します。
+	 * @param target かける配列
+	 * @return 式。長さが異なる場合はnull
+	 */
+	public VectorExpression multiply(Vector target)
+	{
+		return binary(MULTIPLY, this, of(target));
+	}
+	/**
+	 * 各要素を定数倍する式を返します。
+	 * @param target 定数
+	 * @return 式
+	 */
+	public VectorExpression multiply(double target)
+	{
+		return scalar(MULTIPLY, this, target);
+	}
+
+	/**
+	 * 各要素の商の式を返します。
+	 * @param target 割る式
+	 * @return 式。長さが異なる場合はnull
+	 */
+	public VectorExpression division(VectorExpression target)
+	{
+		return binary(DIVISION, this, target);
+	}
+	/**
+	 * 各要素の商の式を返します。
+	 * @param target 割る配列
+	 * @return 式。長さが異なる場合はnull
+	 */
+	public VectorExpression division(Vector target)
+	{
+		return binary(DIVISION, this, of(target));
+	}
+	/**
+	 * 各要素を定数で割る式を返します。
+	 * @param target 定数
+	 * @return 式
+	 */
+	public VectorExpression division(double target)
+	{
+		return scalar(DIVISION, this, target);
+	}
+
+	/**
+	 * 各要素の二乗の式を返します。
+	 * @return 式
+	 */
+	public VectorExpression square()
+	{
+		return unary(SQUARE, this);
+	}
+	/**
+	 * 各要素の絶対値の式を返します。
+	 * @return 式
+	 */
+	public VectorExpression abs()
+	{
+		return unary(ABS, this);
+	}
+	/**
+	 * 各要素の平方根の式を返します。
+	 * @return 式
+	 */
+	public VectorExpression sqrt()
+	{
+		return unary(SQRT, this);
+	}
+
+	//------------------------------------------------------------------------//
+	// 式の評価                                                               //
+	//------------------------------------------------------------------------//
+	/**
+	 * 評価用の作業配列を確保します。
+	 */
+	private double[][] workspace()
+	{
+		return new double[depth][CHUNK];
+	}
+
+	/**
+	 * 式を評価して新しい配列を返します。
+	 * @return 評価結果の配列
+	 */
+	public Vector eval()
+	{
+		Vector result = new Vector(length);
+		double[][] work = workspace();
+		double[] out = new double[CHUNK];
+		for(int from=0; from<length; from+=CHUNK){
+			int count = Math.min(CHUNK, length-from);
+			evaluate(from, count, out, work, 0);
+			System.arraycopy(out, 0, result.vector, from, count);
+		}
+		return result;
+	}
+
+	/**
+	 * 式を評価した値の和を返します。<br>
+	 * CHUNK要素ごとの和をペアワイズ加算で求め、その部分和をさらにペアワイズ加算するため、
+	 * 誤差は評価後の配列のsum()と同じくO(ε log n)に抑えられます。<br>
+	 * 要素数がCHUNK以下の場合は評価後の配列のsum()と同じ値になります。
+	 * それより多い場合は分割位置が異なるため、丸め誤差の範囲で値が異なることがあります。<br>
+	 * @return 和
+	 */
+	public double sum()
+	{
+		double[][] work = workspace();
+		double[] out = new double[CHUNK];
+		double[] partial = new double[(length + CHUNK - 1) / CHUNK];
+		for(int from=0, chunk=0; from<length; from+=CHUNK, chunk++){
+			int count = Math.min(CHUNK, length-from);
+			evaluate(from, count, out, work, 0);
+			partial[chunk] = Reduction.sum(out, 0, count, false);
+		}
+		return Reduction.sum(partial, 0, partial.length, false);
+	}
+
+	/**
+	 * 式を評価した値の算術平均値を返します。
+	 * @return 平均値
+	 */
+	public double mean()
+	{
+		return sum()/length;
+	}
+
+	/**
+	 * 式を評価した値の最大値を返します。
+	 * @return 最大値
+	 */
+	public double max()
+	{
+		double max = Double.NaN;
+		double[][] work = workspace();
+		double[] out = new double[CHUNK];
+		for(int from=0; from<length; from+=CHUNK){
+			int count = Math.min(CHUNK, length-from);
+			evaluate(from, count, out, work, 0);
+			if(from == 0)	max = out[0];
+			for(int i=0; i<count; i++)
+				if(max < out[i])	max = out[i];
+		}
+		return max;
+	}
+
+	/**
+	 * 式を評価した値の最小値を返します。
+	 * @return 最小値
+	 */
+	public double min()
+	{
+		double min = Double.NaN;
+		double[][] work = workspace();
+		double[] out = new double[CHUNK];
+		for(int from=0; from<length; from+=CHUNK){
+			int count = Math.min(CHUNK, length-from);
+			evaluate(from, count, out, work, 0);
+			if(from == 0)	min = out[0];
+			for(int i=0; i<count; i++)
+				if(min > out[i])	min = out[i];
+		}
+		return min;
+	}
+}
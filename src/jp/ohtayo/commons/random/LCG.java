@@ -0,0 +1,31 @@
+package jp.ohtayo.commons.random;
+
+/**
+ * java.util.Random(線形合同法)をRandomGeneratorとして使うためのアダプタです。<br>
+ * java.util.Randomのメソッドがそのままインタフェースを実装します。<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+public class LCG extends java.util.Random implements RandomGenerator {
+
+	/** シリアルバージョンUID	*/	private static final long serialVersionUID = 1L;
+
+	/**
+	 * デフォルトコンストラクタ<br>
+	 * java.util.Randomと同様にシードを初期化します。<br>
+	 */
+	public LCG()
+	{
+		super();
+	}
+
+	/**
+	 * コンストラクタ<br>
+	 * シードを指定して、乱数生成器を初期化します。<br>
+	 * @param seed シード
+	 */
+	public LCG(long seed)
+	{
+		super(seed);
+	}
+}
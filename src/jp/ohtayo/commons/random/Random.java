@@ -1,18 +1,17 @@
 package jp.ohtayo.commons.random;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Method;
-
 import jp.ohtayo.commons.log.Logging;
+import jp.ohtayo.commons.math.Matrix;
+import jp.ohtayo.commons.math.Vector;
 
 /**
  * 乱数を生成するクラスです。<br>
  * 乱数生成手法を選択します。<br>
  * SFMT : SIMD-oriented Fast Mersenne Twister<br>
- * MT : Mersenne twister<br>
  * XOR : Xor shift<br>
  * LCG : Linear congruential generators(java.util.Random クラスの生成手法)<br>
  * 指定例：Random r = new Random(Random.SFMT, seed);<br>
+ * 乱数生成手法はRandomGeneratorとして保持し、各メソッドから直接呼び出します。<br>
  * <br>
  * 乱数生成に加え、ランダム配列・行列生成や配列シャッフルを行うメソッドを提供します。<br>
  *
@@ -20,50 +19,34 @@ import jp.ohtayo.commons.log.Logging;
  */
 public class Random{
 
-	/** 乱数生成手法クラス						*/	private Class<?> cClass;
-	/** 乱数生成手法クラスのインスタンス			*/	private Object object;
-	/** 乱数生成手法クラスのnextDouble メソッド	*/	private Method nextDouble;
-	/** 乱数生成手法クラスのnextFloat メソッド		*/	private Method nextFloat;
-	/** 乱数生成手法クラスのnextInt メソッド		*/	private Method nextInt;
-	/** 乱数生成手法クラスのnextBoolean メソッド	*/	private Method nextBoolean;
-	/** 乱数生成手法クラスのnextIntArg メソッド	*/	private Method nextIntArg;
-	/** 乱数生成手法クラスのnextBytes メソッド		*/	private Method nextBytes;
-	/** 乱数生成手法クラスのsetSeedメソッド		*/	private Method setSeed;
+	/** 乱数生成手法のインスタンス	*/	private final RandomGenerator generator;
 
 	/** SFMT 乱数生成クラス	*/	public static final String SFMT	= "jp.ohtayo.commons.random.SFMT";
 	/** XOR 乱数生成クラス	*/	public static final String XOR	= "jp.ohtayo.commons.random.Xor128";
 	/** LCG 乱数生成クラス	*/	public static final String LCG	= "java.util.Random";
 
+	/** 正規乱数の生成方法：一様乱数12個の和による近似	*/	public static final String NORMAL_APPROXIMATE	= "approximate";
+	/** 正規乱数の生成方法：Ziggurat法				*/	public static final String NORMAL_ZIGGURAT		= "ziggurat";
+
+	/** randn()等で使う正規乱数の生成方法	*/	private String normalMethod = NORMAL_APPROXIMATE;
+
 	/**
 	* デフォルトコンストラクタ<br>
-	* 乱数生成手法にXORを設定し、シードを初期化します。<br>
+	* 乱数生成手法にSFMTを設定し、シードを初期化します。<br>
 	*/
 	public Random()
 	{
-		try{
-			cClass = Class.forName(SFMT);
-			object = cClass.newInstance();
-			getMethods();
-		}catch(Exception e){
-			Logging.logger.severe(e.toString());
-		}
+		generator = new SFMT();
 	}
 
 	/**
 	* コンストラクタ<br>
-	* 乱数生成手法にXORを設定し、シードを指定値に設定します。<br>
+	* 乱数生成手法にSFMTを設定し、シードを指定値に設定します。<br>
 	* @param seed シード値の設定値
 	*/
 	public Random(long seed)
 	{
-		try{
-			cClass = Class.forName(SFMT);
-			Constructor<?> constructor = cClass.getConstructor(long.class);
-			object = constructor.newInstance(seed);
-			getMethods();
-		}catch(Exception e){
-			Logging.logger.severe(e.toString());
-		}
+		generator = new SFMT(seed);
 	}
 
 	/**
@@ -71,19 +54,13 @@ public class Random{
 	* 乱数生成手法を指定された手法に設定し、シードを初期化します。<br>
 	* @param method 乱数生成手法のクラス名。以下の値のどれかを設定します。<br>
 	* Random.SFMT<br>
-	* Random.MT<br>
 	* Random.XOR<br>
 	* Random.LCG<br>
+	* RandomGeneratorを実装したクラスの完全修飾名も指定できます。<br>
 	*/
 	public Random(String method)
 	{
-		try{
-			cClass = Class.forName(method);
-			object = cClass.newInstance();
-			getMethods();
-		}catch(Exception e){
-			Logging.logger.severe(e.toString());
-		}
+		generator = create(method, false, 0);
 	}
 
 	/**
@@ -91,58 +68,68 @@ public class Random{
 	* 乱数生成手法を指定された手法に設定し、シードを指定値に設定します。<br>
 	* @param method 乱数生成手法のクラス名。以下の値のどれかを設定します。<br>
 	* Random.SFMT<br>
-	* Random.MT<br>
 	* Random.XOR<br>
 	* Random.LCG<br>
+	* RandomGeneratorを実装したクラスの完全修飾名も指定できます。<br>
 	* @param seed シード値の設定値
 	*/
 	public Random(String method, long seed)
 	{
-		try{
-			cClass = Class.forName(method);
-			Constructor<?> constructor = cClass.getConstructor(long.class);
-			object = constructor.newInstance(seed);
-			getMethods();
-		}catch(Exception e){
-			Logging.logger.severe(e.toString());
-		}
+		generator = create(method, true, seed);
 	}
 
 	/**
-	* コンストラクタで呼び出されるメソッド取得関数<br>
-	* 乱数生成手法クラスの各メソッドを取得して格納しておきます。<br>
+	* コンストラクタ<br>
+	* 生成済みの乱数生成手法のインスタンスを使用します。<br>
+	* @param generator 乱数生成手法のインスタンス
 	*/
-	private void getMethods()
+	public Random(RandomGenerator generator)
 	{
-		try{
-			nextDouble	= object.getClass().getMethod("nextDouble");
-			nextFloat	= object.getClass().getMethod("nextFloat");
-			nextInt		= object.getClass().getMethod("nextInt");
-			nextBoolean = object.getClass().getMethod("nextBoolean");
-			nextIntArg	= object.getClass().getMethod("nextInt", int.class);
-			nextBytes	= object.getClass().getMethod("nextBytes", byte[].class);
-			setSeed		= object.getClass().getMethod("setSeed", long.class);
-		}catch(Exception e){
-			Logging.logger.severe(e.toString());
+		this.generator = generator;
+	}
+
+	/**
+	* 乱数生成手法のクラス名からインスタンスを生成します。<br>
+	* 既知の手法は直接生成し、それ以外はRandomGeneratorを実装したクラスを生成時に1度だけリフレクションで生成します。<br>
+	* 生成できない場合はSFMTを使用します。<br>
+	*/
+	static RandomGenerator create(String method, boolean seeded, long seed)
+	{
+		if(method == null){
+			Logging.logger.severe("random generator is not specified. use SFMT.");
+			return seeded ? new SFMT(seed) : new SFMT();
+		}
+		switch(method){
+		case SFMT:	return seeded ? new SFMT(seed) : new SFMT();
+		case XOR:	return seeded ? new Xor128(seed) : new Xor128();
+		case LCG:	return seeded ? new LCG(seed) : new LCG();
+		default:
+			try{
+				Class<? extends RandomGenerator> type = Class.forName(method).asSubclass(RandomGenerator.class);
+				return seeded ? type.getConstructor(long.class).newInstance(seed) : type.getConstructor().newInstance();
+			}catch(Exception e){
+				Logging.logger.severe(e.toString() + ". use SFMT.");
+				return seeded ? new SFMT(seed) : new SFMT();
+			}
 		}
 	}
 
+	/**
+	* 乱数生成手法のインスタンスを返します。<br>
+	* @return 乱数生成手法のインスタンス
+	*/
+	public RandomGenerator getGenerator()
+	{
+		return generator;
+	}
+
 	/**
 	* 0～1のdouble 型の一様乱数を生成します。<br>
 	* @return 0～1までの一様乱数
 	*/
 	public double nextDouble()
 	{
-		Object ret = null;
-		try
-		{
-			ret = nextDouble.invoke(object);
-		}
-		catch(Exception e)
-		{
-			Logging.logger.severe(e.toString());
-		}
-		return (Double)ret;
+		return generator.nextDouble();
 	}
 	/**
 	* 0～1のfloat 型の一様乱数を生成します。<br>
@@ -150,16 +137,7 @@ public class Random{
 	*/
 	public float nextFloat()
 	{
-		Object ret = null;
-		try
-		{
-			ret = nextFloat.invoke(object);
-		}
-		catch(Exception e)
-		{
-			Logging.logger.severe(e.toString());
-		}
-		return (Float)ret;
+		return generator.nextFloat();
 	}
 	/**
 	* int 型の一様乱数を生成します。<br>
@@ -167,16 +145,7 @@ public class Random{
 	*/
 	public int nextInt()
 	{
-		Object ret = null;
-		try
-		{
-			ret = nextInt.invoke(object);
-		}
-		catch(Exception e)
-		{
-			Logging.logger.severe(e.toString());
-		}
-		return (Integer)ret;
+		return generator.nextInt();
 	}
 	/**
 	* true / false をランダムに返します。<br>
@@ -184,16 +153,7 @@ public class Random{
 	*/
 	public boolean nextBoolean()
 	{
-		Object ret = null;
-		try
-		{
-			ret = nextBoolean.invoke(object);
-		}
-		catch(Exception e)
-		{
-			Logging.logger.severe(e.toString());
-		}
-		return (Boolean)ret;
+		return generator.nextBoolean();
 	}
 
 	/**
@@ -203,16 +163,7 @@ public class Random{
 	*/
 	public int nextInt(int n)
 	{
-		Object ret = null;
-		try
-		{
-			ret = nextIntArg.invoke(object, n);
-		}
-		catch(Exception e)
-		{
-			Logging.logger.severe(e.toString());
-		}
-		return (Integer)ret;
+		return generator.nextInt(n);
 	}
 
 	/**
@@ -221,14 +172,7 @@ public class Random{
 	*/
 	public void nextBytes(byte[] bytes)
 	{
-		try
-		{
-			nextBytes.invoke(object, bytes);
-		}
-		catch(Exception e)
-		{
-			Logging.logger.severe(e.toString());
-		}
+		generator.nextBytes(bytes);
 	}
 
 	/**
@@ -237,14 +181,44 @@ public class Random{
 	*/
 	public void setSeed(long seed)
 	{
-		try
-		{
-			setSeed.invoke(object, seed);
+		generator.setSeed(seed);
+	}
+
+	/**
+	* 乱数列をjump()で先に進めます。<br>
+	* 乱数生成手法がSFMTの場合のみ使用できます。<br>
+	* @return 成功：0、SFMT以外：-1
+	*/
+	public int jump()
+	{
+		if(!(generator instanceof SFMT)){
+			Logging.logger.severe("jump is supported only by SFMT");
+			return -1;
 		}
-		catch(Exception e)
-		{
-			Logging.logger.severe(e.toString());
+		((SFMT)generator).jump();
+		return 0;
+	}
+
+	/**
+	* 互いに重ならないn個の乱数列に分割します。<br>
+	* 複数のワーカーで同じシミュレーションを再現可能に並列実行するときに使います。
+	* 詳細はSFMT.split()を参照してください。乱数生成手法がSFMTの場合のみ使用できます。<br>
+	* @param n 乱数列の数
+	* @return 分割したRandomの配列。SFMT以外の場合はnull
+	*/
+	public Random[] split(int n)
+	{
+		if(!(generator instanceof SFMT)){
+			Logging.logger.severe("split is supported only by SFMT");
+			return null;
 		}
+		SFMT[] streams = ((SFMT)generator).split(n);
+		Random[] result = new Random[n];
+		for(int k=0; k<n; k++){
+			result[k] = new Random(streams[k]);
+			result[k].normalMethod = normalMethod;
+		}
+		return result;
 	}
 
 	//------------------アプリケーション用関数-------------------//
@@ -282,12 +256,7 @@ public class Random{
 	*/
 	public double[] array(int length)
 	{
-		double[] result = new double[length];
-		for (int i=0; i<length; i++)
-		{
-			result[i] = nextDouble();
-		}
-		return result;
+		return fill(new double[length]);
 	}
 
 	/**
@@ -298,20 +267,58 @@ public class Random{
 	*/
 	public double[][] matrix(int row, int column)
 	{
-		double[][] result = new double[row][column];
+		return fill(new double[row][column]);
+	}
 
-		for (int j=0; j<column; j++)
-		{
-			for (int i=0; i<row; i++)
-			{
-					result[i][j] = nextDouble();
-			}
-		}
-		return result;
+	/**
+	* 配列の全ての要素を0～1の一様乱数で埋めます。<br>
+	* SFMTではSFMT19937.fillArrayでまとめて生成します。<br>
+	* @param array 乱数を格納する配列
+	* @return array
+	*/
+	public double[] fill(double[] array)
+	{
+		generator.fill(array, 0, array.length);
+		return array;
+	}
+
+	/**
+	* 2次元配列の全ての要素を行ごとに0～1の一様乱数で埋めます。
+	* @param array 乱数を格納する2次元配列
+	* @return array
+	*/
+	public double[][] fill(double[][] array)
+	{
+		for(int i=0; i<array.length; i++)
+			generator.fill(array[i], 0, array[i].length);
+		return array;
+	}
+
+	/**
+	* ベクトルの全ての要素を0～1の一様乱数で埋めます。
+	* @param vector 乱数を格納するベクトル
+	* @return vector
+	*/
+	public Vector fill(Vector vector)
+	{
+		fill(vector.get());
+		return vector;
 	}
 
 	/**
-	 * 平均0分散1の正規分布に従った正規乱数を発生させる。
+	* 行列の全ての要素を0～1の一様乱数で埋めます。<br>
+	* 要素が連続している行列は内部配列を1回でまとめて埋め、ストライドを持つビューは行ごとに埋めます。<br>
+	* @param matrix 乱数を格納する行列
+	* @return matrix
+	*/
+	public Matrix fill(Matrix matrix)
+	{
+		return matrix.fill(generator);
+	}
+
+	/**
+	 * 平均0分散1の正規分布に従った正規乱数を発生させる。<br>
+	 * 一様乱数12個の和から6を引く近似で、±6σで打ち切られます。正確な正規乱数はnextGaussian()を使います。<br>
 	 * @return 正規乱数
 	 */
 	public double randomNormalDistribution()
@@ -322,25 +329,92 @@ public class Random{
 	}
 
 	/**
-	* 0～1の一様乱数の配列を生成します。
+	 * 平均0分散1の正規乱数をZiggurat法で生成します。<br>
+	 * 裾まで正確で、randomNormalDistribution()より高速です。<br>
+	 * @return 正規乱数
+	 */
+	public double nextGaussian()
+	{
+		return Ziggurat.normal(generator);
+	}
+
+	/**
+	 * 平均1の指数乱数をZiggurat法で生成します。
+	 * @return 指数乱数
+	 */
+	public double nextExponential()
+	{
+		return Ziggurat.exponential(generator);
+	}
+
+	/**
+	 * 平均1の指数乱数の配列を生成します。
+	 * @param length 配列の長さ
+	 * @return 指数乱数の配列
+	 */
+	public double[] arrayExponential(int length)
+	{
+		double[] result = new double[length];
+		for (int i=0; i<length; i++)
+		{
+			result[i] = nextExponential();
+		}
+		return result;
+	}
+
+	/**
+	 * randn()、arrayNormal()、matrixNormal()で使う正規乱数の生成方法を設定します。
+	 * @param method NORMAL_APPROXIMATE(一様乱数12個の和、既定)またはNORMAL_ZIGGURAT(Ziggurat法)
+	 */
+	public void setNormalMethod(String method)
+	{
+		if(method != NORMAL_APPROXIMATE && method != NORMAL_ZIGGURAT){
+			Logging.logger.severe("unknown normal method: " + method);
+			return;
+		}
+		normalMethod = method;
+	}
+
+	/**
+	 * randn()、arrayNormal()、matrixNormal()で使う正規乱数の生成方法を返します。
+	 * @return NORMAL_APPROXIMATEまたはNORMAL_ZIGGURAT
+	 */
+	public String getNormalMethod()
+	{
+		return normalMethod;
+	}
+
+	/**
+	 * 設定された生成方法で正規乱数を1つ生成します。
+	 */
+	private double normal()
+	{
+		if(normalMethod == NORMAL_ZIGGURAT)	return nextGaussian();
+		return randomNormalDistribution();
+	}
+
+	/**
+	* 平均0分散1の正規乱数の配列を生成します。<br>
+	* 生成方法はsetNormalMethod()で設定します。<br>
 	* @param length 配列の長さ
-	* @return 0～1までの一様乱数の配列
+	* @return 正規乱数の配列
 	*/
 	public double[] arrayNormal(int length)
 	{
 		double[] result = new double[length];
 		for (int i=0; i<length; i++)
 		{
-			result[i] = randomNormalDistribution();
+			result[i] = normal();
 		}
 		return result;
 	}
 
 	/**
-	* 0～1の一様乱数の行列を生成します。
+	* 平均0分散1の正規乱数の行列を生成します。<br>
+	* 生成方法はsetNormalMethod()で設定します。<br>
 	* @param row 行列の行数
 	* @param column 行列の列数
-	* @return 0～1までの一様乱数の行列
+	* @return 正規乱数の行列
 	*/
 	public double[][] matrixNormal(int row, int column)
 	{
@@ -350,33 +424,33 @@ public class Random{
 		{
 			for (int i=0; i<row; i++)
 			{
-					result[i][j] = randomNormalDistribution();
+					result[i][j] = normal();
 			}
 		}
 		return result;
 	}
 
 	/**
-	 * 平均0分散1の正規分布に従った正規乱数を発生させる。
-	 * randomNormalDistribution()のラッパー
+	 * 平均0分散1の正規分布に従った正規乱数を発生させる。<br>
+	 * 生成方法はsetNormalMethod()で設定します。<br>
 	 * @return 正規乱数
 	 */
 	public double randn()
-	{	return randomNormalDistribution();	}
+	{	return normal();	}
 	/**
-	* 0～1の一様乱数の配列を生成します。<br>
-	* array()のラッパーです。<br>
+	* 平均0分散1の正規乱数の配列を生成します。<br>
+	* arrayNormal()のラッパーです。<br>
 	* @param length 配列の長さ
-	* @return 0～1までの一様乱数の配列
+	* @return 正規乱数の配列
 	*/
 	public double[] randn(int length)
 	{ return arrayNormal(length); }
 	/**
-	* 0～1の一様乱数の行列を生成します。<br>
-	* matrix()のラッパーです。<br>
+	* 平均0分散1の正規乱数の行列を生成します。<br>
+	* matrixNormal()のラッパーです。<br>
 	* @param row 行列の行数
 	* @param column 行列の列数
-	* @return 0～1までの一様乱数の行列
+	* @return 正規乱数の行列
 	*/
 	public double[][] randn(int row, int column)
 	{	return matrixNormal(row, column);	}
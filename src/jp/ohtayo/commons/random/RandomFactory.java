@@ -0,0 +1,92 @@
+package jp.ohtayo.commons.random;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * スレッドやワーカーごとに独立した乱数生成器を生成するクラスです。<br>
+ * SFMT、Xor128はメソッドごとに同期化しているため、1つのインスタンスを複数のスレッドで共有するとロックの分だけ遅くなります。<br>
+ * このクラスが生成するSFMT、Xor128は同期化しない版で、スレッドやワーカーごとに1つずつ持たせて使います(共有はできません)。<br>
+ * create(worker)はベースのシードとワーカー番号から決まるシードで生成するため、同じシードなら結果を再現できます。<br>
+ * current()は呼び出したスレッドのインスタンスを返します。シードは初めて呼び出した順に決まるため、再現性が必要な場合はcreate()を使います。<br>
+ * ワーカーごとのシードはSplitMix64で拡散させた値を使います。系列が重ならないことの保証が必要な場合はRandom.split()を使います。<br>
+ * 例：<br>
+ * 		RandomFactory factory = new RandomFactory(Random.SFMT, seed);<br>
+ * 		IntStream.range(0, 64).parallel().forEach(k -&gt; simulate(factory.random(k)));<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+public class RandomFactory {
+
+	/** SplitMix64の増分(黄金比)	*/	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	/** 乱数生成手法のクラス名		*/	private final String method;
+	/** ベースのシード				*/	private final long seed;
+	/** current()で割り当てた番号	*/	private final AtomicLong counter = new AtomicLong();
+	/** スレッドごとのインスタンス	*/	private final ThreadLocal<RandomGenerator> local;
+
+	/**
+	 * デフォルトコンストラクタ<br>
+	 * 乱数生成手法にSFMTを設定し、時刻からベースのシードを決めます。<br>
+	 */
+	public RandomFactory()
+	{
+		this(Random.SFMT, System.nanoTime());
+	}
+
+	/**
+	 * コンストラクタ<br>
+	 * @param method 乱数生成手法のクラス名(Random.SFMT、Random.XOR、Random.LCGなど)
+	 * @param seed ベースのシード
+	 */
+	public RandomFactory(String method, long seed)
+	{
+		this.method = method;
+		this.seed = seed;
+		local = ThreadLocal.withInitial(() -> create(-1 - counter.getAndIncrement()));
+	}
+
+	/**
+	 * ワーカー番号に対応する乱数生成器を生成します。<br>
+	 * 同じファクトリ(手法とシード)と番号からは常に同じ系列が得られます。<br>
+	 * SFMT、Xor128の場合は同期化しない版を生成するため、生成した乱数生成器は1つのスレッドだけで使います。<br>
+	 * @param worker ワーカー番号
+	 * @return 乱数生成器
+	 */
+	public RandomGenerator create(long worker)
+	{
+		long workerSeed = mix(seed + (worker+1)*GOLDEN_GAMMA);
+		if(Random.SFMT.equals(method))	return new UnsynchronizedSFMT(workerSeed);
+		if(Random.XOR.equals(method))	return new UnsynchronizedXor128(workerSeed);
+		return Random.create(method, true, workerSeed);
+	}
+
+	/**
+	 * ワーカー番号に対応するRandomを生成します。
+	 * @param worker ワーカー番号
+	 * @return 乱数生成クラス
+	 */
+	public Random random(long worker)
+	{
+		return new Random(create(worker));
+	}
+
+	/**
+	 * 呼び出したスレッド専用の乱数生成器を返します。<br>
+	 * 同じスレッドからは常に同じインスタンスが返り、他のスレッドとは共有しません。<br>
+	 * @return 乱数生成器
+	 */
+	public RandomGenerator current()
+	{
+		return local.get();
+	}
+
+	/**
+	 * SplitMix64の出力関数でシードを拡散させます。
+	 */
+	static long mix(long z)
+	{
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
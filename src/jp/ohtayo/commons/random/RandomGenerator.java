@@ -0,0 +1,68 @@
+package jp.ohtayo.commons.random;
+
+/**
+ * 乱数生成手法のインタフェースです。<br>
+ * SFMT、Xor128、LCG(java.util.Randomのアダプタ)が実装します。<br>
+ * Randomはこのインタフェースを通して直接呼び出すため、リフレクションや戻り値のボクシングを伴いません。<br>
+ * 関数仕様はjava.util.Randomに合わせています。<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+public interface RandomGenerator {
+
+	/**
+	* 0～1のdouble 型の一様乱数を生成します。<br>
+	* @return 0～1までの一様乱数
+	*/
+	double nextDouble();
+
+	/**
+	* 0～1のfloat 型の一様乱数を生成します。<br>
+	* @return 0～1までの一様乱数
+	*/
+	float nextFloat();
+
+	/**
+	* int 型の一様乱数を生成します。<br>
+	* @return 一様乱数
+	*/
+	int nextInt();
+
+	/**
+	* int 型の0から指定された値の範囲(0は含むが、その指定された値は含まない)の一様乱数を生成します。<br>
+	* @param n 範囲指定値<br>
+	* @return 0から指定された値の範囲の一様乱数<br>
+	*/
+	int nextInt(int n);
+
+	/**
+	* true / false をランダムに返します。<br>
+	* @return true / false
+	*/
+	boolean nextBoolean();
+
+	/**
+	* ランダムバイト配列を生成し、指定されたバイト配列に配置します。
+	* @param bytes ランダムバイト配列を配置する配列
+	*/
+	void nextBytes(byte[] bytes);
+
+	/**
+	* long 型のシードを使って乱数のシードを設定します。
+	* @param seed 乱数のシード
+	*/
+	void setSeed(long seed);
+
+	/**
+	* 配列のfromからlength個の要素を0～1のdouble 型の一様乱数で埋めます。<br>
+	* 既定の実装はnextDouble()を繰り返し呼び出します。まとめて生成できる手法はオーバーライドします。<br>
+	* @param array 乱数を格納する配列
+	* @param from 開始位置
+	* @param length 要素数
+	*/
+	default void fill(double[] array, int from, int length)
+	{
+		for(int i=from; i<from+length; i++)
+			array[i] = nextDouble();
+	}
+}
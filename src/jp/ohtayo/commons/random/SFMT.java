@@ -4,12 +4,14 @@ package jp.ohtayo.commons.random;
  * 乱数生成を生成するクラスです。<br>
  * 乱数生成にSIMD-oriented Fast Mersenne Twisterを利用しています。<br>
  * 関数仕様をjava.util.Randomに合わせています。<br>
+ * 状態を変更するメソッドは同期化しているため、複数のスレッドで1つのインスタンスを共有できます。
+ * スレッドごとに持たせて使う場合は、RandomFactoryで同期化しない版を生成できます。<br>
  *
  * @author ohtayo (ohta.yoshihiro@outlook.jp)
  */
-public class SFMT {
+public class SFMT implements RandomGenerator {
 
-	/** 乱数生成器 */private SFMT19937 sfmt = null;
+	/** 乱数生成器 */SFMT19937 sfmt = null;
 	/** NextBit での残りのビット	*/	int    coin_bits;
 	/** NextBit での値保持			*/	int    coin_save;
 	/** NextByte で使用したバイト数 */	int    byte_pos;
@@ -17,6 +19,10 @@ public class SFMT {
 	/** NextIntEx で前回の範囲		*/	int    range;
 	/** NextIntEx で前回の基準値	*/	int    base;
 	/** NextIntEx で前回のシフト数	*/	int    shift;
+	/** fill で使う32bit乱数のバッファ	*/	private int[] block;
+
+	/** fill で1回にまとめて生成するdoubleの数		*/	static final int FILL_BLOCK = 2048;
+	/** fill でまとめて生成する最小のdoubleの数	*/	static final int FILL_MIN = SFMT19937.N32/2;
 
 	/**
 	 * デフォルトコンストラクタ<br>
@@ -48,11 +54,68 @@ public class SFMT {
 		coin_bits=0;byte_pos=0;range=0;
 	}
 
+	/**
+	 * コンストラクタ<br>
+	 * 乱数生成器を指定して初期化します。<br>
+	 * @param sfmt 乱数生成器
+	 */
+	SFMT(SFMT19937 sfmt){
+		this.sfmt = sfmt;
+		coin_bits=0;byte_pos=0;range=0;
+	}
+
+	/**
+	 * 乱数列を2^(SFMT19937.JUMP_EXPONENT+2)個先まで進めます。<br>
+	 * NextBit、NextByteで保持しているビットは捨てます。<br>
+	 */
+	synchronized public void jump() {
+		sfmt.jump();
+		coin_bits=0;byte_pos=0;range=0;
+	}
+
+	/**
+	 * 互いに重ならないn個の乱数列に分割します。<br>
+	 * k番目の乱数列はこの乱数列を(k+1)回jump()した位置から始まり、この乱数列自身は(n+1)回jump()した位置に進みます。<br>
+	 * 各乱数列が2^(SFMT19937.JUMP_EXPONENT+2)個以上の32bit乱数を使わない限り、乱数列は重なりません。<br>
+	 * 同じシードからは常に同じ乱数列が得られます。<br>
+	 * @param n 乱数列の数
+	 * @return 分割した乱数生成器
+	 */
+	synchronized public SFMT[] split(int n) {
+		SFMT19937[] streams = sfmt.split(n);
+		SFMT[] result = new SFMT[n];
+		for(int k=0; k<n; k++)
+			result[k] = stream(streams[k]);
+		coin_bits=0;byte_pos=0;range=0;
+		return result;
+	}
+
+	/**
+	 * split()で分割した乱数生成器を、このクラスと同じ種類のSFMTで包みます。
+	 * @param sfmt 分割した乱数生成器
+	 * @return 乱数生成クラス
+	 */
+	SFMT stream(SFMT19937 sfmt) {
+		return new SFMT(sfmt);
+	}
+
+	/**
+	 * 32bitの乱数を1つ返します。SFMT19937.next()の同期化を使います。
+	 * @return 32bitの乱数
+	 */
+	int next32() {
+		return sfmt.next();
+	}
+
 	/**
 	* long 型のシードを使って乱数のシードを設定します。
 	* @param seed 乱数のシード
 	*/
     synchronized public void setSeed(long seed) {
+    	setSeedUnlocked(seed);
+    }
+    /** setSeed()の同期化しない実装です。 */
+    void setSeedUnlocked(long seed) {
     	sfmt.setSeed(seed);
 			coin_bits=0;byte_pos=0;range=0;
     }
@@ -71,8 +134,12 @@ public class SFMT {
 	 * @return 0 or 1
 	 */
 	synchronized public int NextBit() {
+		return nextBitUnlocked();
+	}
+	/** NextBit()の同期化しない実装です。 */
+	int nextBitUnlocked() {
 		if (--coin_bits==-1)
-		{ coin_bits=31; return(coin_save=sfmt.next())&1; }
+		{ coin_bits=31; return(coin_save=next32())&1; }
 		else return(coin_save>>>=1)&1;
 	}
 
@@ -92,8 +159,12 @@ public class SFMT {
 	 * @return byte value
 	 */
 	synchronized public int NextByte() {
+		return nextByteUnlocked();
+	}
+	/** NextByte()の同期化しない実装です。 */
+	int nextByteUnlocked() {
 		if (--byte_pos==-1)
-		{ byte_pos=3; return(int)(byte_save=sfmt.next())&255; }
+		{ byte_pos=3; return(int)(byte_save=next32())&255; }
 		else return(int)(byte_save>>>=8)&255;
 	}
 
@@ -115,7 +186,7 @@ public class SFMT {
 	 * @return randomized value [0, 1)
 	 * */
 	public double NextUnif() {
-		double z=sfmt.next()>>>11,y=sfmt.next();
+		double z=next32()>>>11,y=next32();
 		if (y<0) y+=4294967296.0;
 		return(y*2097152.0+z)*(1.0/9007199254740992.0);
 	}
@@ -130,6 +201,35 @@ public class SFMT {
 	}
 	
 
+	/**
+	* 配列のfromからlength個の要素を0～1のdouble 型の一様乱数(53bit精度)で埋めます。<br>
+	* SFMT19937.fillArrayで32bit乱数をまとめて生成し、2つずつ53bitのdoubleに変換します。<br>
+	* まとめて生成できないN32/2個未満の残りはnextDouble()で生成します。<br>
+	* 生成した系列は後続のnextDouble()の系列とつながりますが、nextDouble()を繰り返した結果とは一致しません。<br>
+	* @param array 乱数を格納する配列
+	* @param from 開始位置
+	* @param length 要素数
+	*/
+	@Override
+	synchronized public void fill(double[] array, int from, int length)
+	{
+		if(length >= FILL_MIN && block == null)	block = new int[2*FILL_BLOCK];
+		while(length >= FILL_MIN){
+			int n = Math.min(length, FILL_BLOCK);
+			int words = (2*n + 3) & ~3;	//fillArrayは4の倍数の要素数が必要
+			sfmt.fillArray(block, words);
+			for(int i=0; i<n; i++){
+				long z = block[2*i] >>> 11;
+				long y = block[2*i+1] & 0xffffffffL;
+				array[from+i] = ((y << 21) + z) * (1.0/9007199254740992.0);
+			}
+			from += n;
+			length -= n;
+		}
+		for(int i=from; i<from+length; i++)
+			array[i] = NextUnif();
+	}
+
 	/**
 	* 0～1のfloat 型の一様乱数を生成します。<br>
 	* @return 0～1までの一様乱数
@@ -145,7 +245,7 @@ public class SFMT {
 	*/
 	public int nextInt()
 	{
-		return sfmt.next();
+		return next32();
 	}
 
 	/** 丸め誤差のない０以上 range_ 未満の整数乱数
@@ -153,6 +253,10 @@ public class SFMT {
 	 * @return randomized integer value [0 range_)
 	 */
 	synchronized public int NextIntEx(int range_) {
+		return nextIntExUnlocked(range_);
+	}
+	/** NextIntEx()の同期化しない実装です。 */
+	int nextIntExUnlocked(int range_) {
 		int y_,base_,remain_; int shift_;
 
 		if (range_<=0) return 0;
@@ -161,7 +265,7 @@ public class SFMT {
 			for (shift=0;base<=(1<<30)&&base!=1<<31;shift++) base<<=1;
 		}
 		for (;;) {
-			y_=sfmt.next()>>>1;
+			y_=next32()>>>1;
 			if (y_<base||base==1<<31) return(int)(y_>>>shift);
 			base_=base; shift_=shift; y_-=base_;
 			remain_=(1<<31)-base_;
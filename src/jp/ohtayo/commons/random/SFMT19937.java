@@ -1,4 +1,8 @@
 package jp.ohtayo.commons.random;
+
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * An adapation of <a
  * href="http://www.math.sci.hiroshima-u.ac.jp/~m-mat/MT/SFMT/index.html">
@@ -57,6 +61,12 @@ public class SFMT19937 {
      */
     public final static int MEXP = 19937;
 
+    /**
+     * Base-2 logarithm of the number of 128-bit steps skipped by {@link
+     * #jump()}.
+     */
+    public final static int JUMP_EXPONENT = SFMTJump.DEFAULT_EXPONENT;
+
     /**
      * The SFMT generator has an internal state array of 128-bit integers, and
      * <code>N</code> is its size.
@@ -146,7 +156,7 @@ public class SFMT19937 {
      * A number mixed with the time of day to provide a unique seed to each
      * generator of this type allocated.
      */
-    static long uniquifier = 314159265358979L;
+    static final AtomicLong uniquifier = new AtomicLong(314159265358979L);
 
 // Instance variables //////////////////////////////////////////////////////////
 
@@ -169,7 +179,7 @@ public class SFMT19937 {
      * Constructor that initially uses a seed based on the time of day.
      */
     public SFMT19937 () {
-        this(System.nanoTime() + uniquifier++);
+        this(System.nanoTime() + uniquifier.getAndIncrement());
     }
 
 
@@ -183,6 +193,18 @@ public class SFMT19937 {
         setSeed(seed);
     }
 
+
+    /**
+     * Copy constructor. The new generator produces the same sequence as
+     * <code>other</code> from its current position.
+     *
+     * @param other     generator to copy.
+     */
+    public SFMT19937 (SFMT19937 other) {
+        System.arraycopy(other.sfmt, 0, sfmt, 0, N32);
+        idx = other.idx;
+    }
+
 // Instance methods ////////////////////////////////////////////////////////////
 
     /**
@@ -199,7 +221,7 @@ public class SFMT19937 {
      * @param d         state array.
      * @param dI        index in <code>d</code>.
      */
-    void doRecursion (
+    static void doRecursion (
             int[] r, int rI, int[] a, int aI, int[] b, int bI, int[] c, int cI,
             int[] d, int dI) {
         // 128-bit shift: x = a << SL2 * 8:
@@ -390,11 +412,24 @@ public class SFMT19937 {
      * @return          next number.
      */
     synchronized public int next () {
-        if (idx >= N32) {
+        return nextUnlocked();
+    }
+
+
+    /**
+     * Same as {@link #next} without taking the lock. Used by generators that
+     * are owned by a single thread (see {@link RandomFactory}).
+     *
+     * @return          next number.
+     */
+    int nextUnlocked () {
+        int i = idx;
+        if (i >= N32) {
             genRandAll();
-            idx = 0;
+            i = 0;
         }
-        return sfmt[idx++];
+        idx = i + 1;
+        return sfmt[i];
     }
 
 
@@ -429,6 +464,55 @@ public class SFMT19937 {
     }
 
 
+    /**
+     * Advances this generator by 2<sup>{@link #JUMP_EXPONENT}</sup> 128-bit
+     * steps, that is 2<sup>{@link #JUMP_EXPONENT} + 2</sup> outputs of {@link
+     * #next}, as if {@link #next} had been called that many times. Streams
+     * started this far apart do not overlap unless one of them draws more than
+     * that many numbers. The first call computes the jump polynomial, which
+     * takes a fraction of a second; later calls reuse it.
+     */
+    synchronized public void jump () {
+        SFMTJump.apply(sfmt, SFMTJump.defaultPolynomial());
+    }
+
+
+    /**
+     * Advances this generator by the given number of 128-bit steps, that is
+     * four times as many outputs of {@link #next}.
+     *
+     * @param steps     number of 128-bit steps, zero or greater.
+     * @throws IllegalArgumentException
+     *                  if <code>steps</code> is negative.
+     */
+    synchronized public void jump (BigInteger steps) {
+        if (steps.signum() < 0)
+            throw new IllegalArgumentException("Negative jump " + steps);
+        SFMTJump.apply(sfmt, SFMTJump.polynomial(steps));
+    }
+
+
+    /**
+     * Splits off <code>n</code> non-overlapping streams. Before each stream is
+     * copied, this generator {@link #jump jumps} once. Stream <code>k</code>
+     * therefore starts (k + 1) jumps ahead, and this generator ends up
+     * (n + 1) jumps ahead, after all of them. The same seed always yields
+     * the same streams.
+     *
+     * @param n         number of streams.
+     * @return          the streams.
+     */
+    synchronized public SFMT19937[] split (int n) {
+        SFMT19937[] result = new SFMT19937[n];
+        for (int k = 0; k < n; k++) {
+            jump();
+            result[k] = new SFMT19937(this);
+        }
+        jump();
+        return result;
+    }
+
+
     /**
      * Initializes the internal state array with a 32-bit seed.
      *
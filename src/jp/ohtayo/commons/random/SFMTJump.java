@@ -0,0 +1,254 @@
+package jp.ohtayo.commons.random;
+
+import java.math.BigInteger;
+
+/**
+ * SFMT19937の状態を指定したステップ数だけ先に進める(ジャンプする)クラスです。<br>
+ * Haramoto et al. "Efficient Jump Ahead for F2-Linear Random Number Generators" (2008)
+ * およびSFMT-jumpと同じ方法で、次の手順で計算します。<br>
+ * 1. 128bit単位の状態遷移の最小多項式φ(x)を、出力ビット列からBerlekamp-Massey法で求める。<br>
+ *    次数は状態のビット数と同じ19968で、特性多項式に一致するため全ての状態に対して正確にジャンプできます。<br>
+ * 2. ジャンプ多項式 p(x) = x^J mod φ(x) を2乗と乗算で求める。<br>
+ * 3. 状態sを1ステップずつ進めながら、p(x)の係数が1の位置の状態を足し合わせる(Σ p_i T^i s)。<br>
+ * ステップJは128bit単位(32bit乱数4個)です。φと既定のジャンプ多項式は初回使用時に1度だけ計算して保持します。<br>
+ * 多項式はlong配列で表し、配列のiビット目がx^iの係数です。<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+final class SFMTJump {
+
+	/** 既定のジャンプ幅(128bit単位のステップ数)の2の対数	*/	static final int DEFAULT_EXPONENT = 100;
+
+	/** 最小多項式φ(x)	*/	static final long[] CHARACTERISTIC;
+	/** φ(x)の次数		*/	static final int DEGREE;
+	/** φ(x)をsビット左シフトした多項式(s=0..63)	*/	private static final long[][] SHIFTED;
+
+	static {
+		CHARACTERISTIC = minimalPolynomial();
+		DEGREE = degree(CHARACTERISTIC);
+		SHIFTED = new long[64][];
+		for(int s=0; s<64; s++)
+			SHIFTED[s] = shiftLeft(CHARACTERISTIC, s);
+	}
+
+	/**
+	 * 既定のジャンプ多項式 x^(2^DEFAULT_EXPONENT) mod φ(x) を保持します。
+	 */
+	private static final class Default {
+		/** 既定のジャンプ多項式	*/	static final long[] POLYNOMIAL = polynomial(BigInteger.ONE.shiftLeft(DEFAULT_EXPONENT));
+	}
+
+	private SFMTJump(){}
+
+	/**
+	 * 既定のジャンプ幅(2^DEFAULT_EXPONENTステップ)のジャンプ多項式を返します。
+	 * @return ジャンプ多項式
+	 */
+	static long[] defaultPolynomial()
+	{
+		return Default.POLYNOMIAL;
+	}
+
+	/**
+	 * Jステップのジャンプ多項式 x^J mod φ(x) を求めます。
+	 * @param steps ステップ数J(128bit単位、0以上)
+	 * @return ジャンプ多項式
+	 */
+	static long[] polynomial(BigInteger steps)
+	{
+		long[] result = new long[(DEGREE >>> 6) + 1];
+		result[0] = 1;
+		for(int b=steps.bitLength()-1; b>=0; b--){
+			result = square(result);
+			if(steps.testBit(b))	result = multiplyX(result);
+		}
+		return result;
+	}
+
+	/**
+	 * 状態配列をジャンプ多項式に従って進めます。
+	 * @param state SFMT19937の状態配列(長さN32)。結果で上書きされます
+	 * @param polynomial ジャンプ多項式
+	 */
+	static void apply(int[] state, long[] polynomial)
+	{
+		final int n = SFMT19937.N;
+		int[] current = state.clone();
+		int[] work = new int[SFMT19937.N32];
+		int start = 0;	//currentの中で最も古い128bitの位置
+		int top = degree(polynomial);
+		for(int i=0; i<=top; i++){
+			if((polynomial[i >>> 6] >>> (i & 63) & 1) != 0){
+				for(int k=0, p=4*start; k<4*n; k++, p++){
+					if(p == 4*n)	p = 0;
+					work[k] ^= current[p];
+				}
+			}
+			if(i == top)	break;
+			SFMT19937.doRecursion(current, 4*start, current, 4*start,
+					current, 4*((start+SFMT19937.POS1) % n),
+					current, 4*((start+n-2) % n), current, 4*((start+n-1) % n));
+			start = (start+1) % n;
+		}
+		System.arraycopy(work, 0, state, 0, work.length);
+	}
+
+	//------------------------------------------------------------------------//
+	// 最小多項式                                                             //
+	//------------------------------------------------------------------------//
+	/**
+	 * 128bit単位の状態遷移の最小多項式をBerlekamp-Massey法で求めます。<br>
+	 * 固定シードの生成器について、各128bitの最下位ビットの列を2×(状態のビット数)+余裕の長さだけ使います。<br>
+	 */
+	private static long[] minimalPolynomial()
+	{
+		final int length = 2*SFMT19937.N32*32 + 64;
+		//逆順に並べた出力ビット列 reversed の kビット目 = s[length-1-k]
+		long[] reversed = new long[(length >>> 6) + 2];
+		SFMT19937 generator = new SFMT19937(4357);
+		for(int i=0; i<length; i++){
+			int bit = generator.next() & 1;
+			generator.next();
+			generator.next();
+			generator.next();
+			int k = length-1-i;
+			reversed[k >>> 6] |= (long)bit << (k & 63);
+		}
+
+		int words = (length >>> 6) + 2;
+		long[] c = new long[words];	//接続多項式 C(x) = 1 + c1 x + ... + cL x^L
+		long[] b = new long[words];
+		long[] t = new long[words];
+		c[0] = 1;
+		b[0] = 1;
+		int l = 0, m = 1;
+		for(int n=0; n<length; n++){
+			//d = Σ_{j=0..L} c_j s[n-j] = Σ_j c_j reversed[length-1-n+j]
+			int offset = length-1-n;
+			int w0 = offset >>> 6, s = offset & 63;
+			long d = 0;
+			for(int w=0; w<=(l >>> 6); w++){
+				long r = reversed[w0+w] >>> s;
+				if(s != 0)	r |= reversed[w0+w+1] << (64-s);
+				d ^= c[w] & r;
+			}
+			if((Long.bitCount(d) & 1) == 0){
+				m++;
+			}else if(2*l <= n){
+				System.arraycopy(c, 0, t, 0, words);
+				xorShifted(c, b, m);
+				l = n+1-l;
+				long[] swap = b;
+				b = t;
+				t = swap;
+				m = 1;
+			}else{
+				xorShifted(c, b, m);
+				m++;
+			}
+		}
+		//最小多項式 φ(x) = x^L C(1/x)
+		long[] result = new long[(l >>> 6) + 1];
+		for(int j=0; j<=l; j++)
+			if((c[j >>> 6] >>> (j & 63) & 1) != 0)
+				result[(l-j) >>> 6] |= 1L << ((l-j) & 63);
+		return result;
+	}
+
+	//------------------------------------------------------------------------//
+	// GF(2)上の多項式演算                                                    //
+	//------------------------------------------------------------------------//
+	/**
+	 * target ^= source × x^shift を計算します。targetからはみ出す項は捨てます。
+	 */
+	private static void xorShifted(long[] target, long[] source, int shift)
+	{
+		int w = shift >>> 6, s = shift & 63;
+		for(int i=target.length-1-w; i>=0; i--){
+			long v = source[i] << s;
+			if(s != 0 && i > 0)	v |= source[i-1] >>> (64-s);
+			target[i+w] ^= v;
+		}
+	}
+
+	/**
+	 * 多項式をsビット左シフトした多項式(1語長い配列)を返します。
+	 */
+	private static long[] shiftLeft(long[] a, int s)
+	{
+		long[] result = new long[a.length+1];
+		for(int i=0; i<a.length; i++){
+			result[i] ^= a[i] << s;
+			if(s != 0)	result[i+1] ^= a[i] >>> (64-s);
+		}
+		return result;
+	}
+
+	/**
+	 * 多項式の次数を返します。0多項式は-1です。
+	 */
+	static int degree(long[] a)
+	{
+		for(int i=a.length-1; i>=0; i--)
+			if(a[i] != 0)	return 64*i + 63 - Long.numberOfLeadingZeros(a[i]);
+		return -1;
+	}
+
+	/**
+	 * a mod φ(x) を計算します。aは上書きされ、下位の語に結果が残ります。
+	 */
+	private static long[] reduce(long[] a)
+	{
+		for(int i=degree(a); i>=DEGREE; i--){
+			if((a[i >>> 6] >>> (i & 63) & 1) == 0)	continue;
+			int t = i-DEGREE;
+			long[] shifted = SHIFTED[t & 63];
+			int w = t >>> 6;
+			for(int k=0; k<shifted.length && k+w<a.length; k++)
+				a[k+w] ^= shifted[k];
+		}
+		long[] result = new long[(DEGREE >>> 6) + 1];
+		System.arraycopy(a, 0, result, 0, Math.min(a.length, result.length));
+		return result;
+	}
+
+	/**
+	 * a^2 mod φ(x) を計算します。GF(2)上の2乗は各ビットの間に0を挟むだけです。
+	 */
+	private static long[] square(long[] a)
+	{
+		long[] result = new long[2*a.length + 1];
+		for(int i=0; i<a.length; i++){
+			result[2*i] = spread((int)a[i]);
+			result[2*i+1] = spread((int)(a[i] >>> 32));
+		}
+		return reduce(result);
+	}
+
+	/**
+	 * a × x mod φ(x) を計算します。
+	 */
+	private static long[] multiplyX(long[] a)
+	{
+		long[] result = new long[a.length + 1];
+		for(int i=0; i<a.length; i++){
+			result[i] |= a[i] << 1;
+			result[i+1] |= a[i] >>> 63;
+		}
+		return reduce(result);
+	}
+
+	/**
+	 * 32bitの各ビットを1つおきに並べた64bitを返します。
+	 */
+	private static long spread(int v)
+	{
+		long x = v & 0xffffffffL;
+		x = (x | (x << 16)) & 0x0000ffff0000ffffL;
+		x = (x | (x << 8)) & 0x00ff00ff00ff00ffL;
+		x = (x | (x << 4)) & 0x0f0f0f0f0f0f0f0fL;
+		x = (x | (x << 2)) & 0x3333333333333333L;
+		x = (x | (x << 1)) & 0x5555555555555555L;
+		return x;
+	}
+}
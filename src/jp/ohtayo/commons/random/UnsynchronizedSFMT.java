@@ -0,0 +1,60 @@
+package jp.ohtayo.commons.random;
+
+/**
+ * 同期化しないSFMTです。<br>
+ * 1つのスレッドだけが使う前提で、NextBit、NextByte、NextIntEx、setSeedと32bit乱数の取り出しでロックを取りません。<br>
+ * 複数のスレッドで共有すると状態が壊れるため、RandomFactoryからスレッドやワーカーごとに生成して使います。<br>
+ * 同じシードからはSFMTと同じ乱数列が得られます。<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+final class UnsynchronizedSFMT extends SFMT {
+
+	/**
+	 * コンストラクタ<br>
+	 * シードを指定して、乱数生成器を初期化します。<br>
+	 * @param seed シード
+	 */
+	UnsynchronizedSFMT(long seed) {
+		super(seed);
+	}
+
+	/**
+	 * コンストラクタ<br>
+	 * 乱数生成器を指定して初期化します。<br>
+	 * @param sfmt 乱数生成器
+	 */
+	UnsynchronizedSFMT(SFMT19937 sfmt) {
+		super(sfmt);
+	}
+
+	@Override
+	public void setSeed(long seed) {
+		setSeedUnlocked(seed);
+	}
+
+	@Override
+	public int NextBit() {
+		return nextBitUnlocked();
+	}
+
+	@Override
+	public int NextByte() {
+		return nextByteUnlocked();
+	}
+
+	@Override
+	public int NextIntEx(int range_) {
+		return nextIntExUnlocked(range_);
+	}
+
+	@Override
+	int next32() {
+		return sfmt.nextUnlocked();
+	}
+
+	@Override
+	SFMT stream(SFMT19937 sfmt) {
+		return new UnsynchronizedSFMT(sfmt);
+	}
+}
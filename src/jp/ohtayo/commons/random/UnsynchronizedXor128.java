@@ -0,0 +1,33 @@
+package jp.ohtayo.commons.random;
+
+/**
+ * 同期化しないXor128です。<br>
+ * 1つのスレッドだけが使う前提で、nextLongとsetSeedでロックを取りません。<br>
+ * 複数のスレッドで共有すると状態が壊れるため、RandomFactoryからスレッドやワーカーごとに生成して使います。<br>
+ * 同じシードからはXor128と同じ乱数列が得られます。<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+final class UnsynchronizedXor128 extends Xor128 {
+
+	/**
+	 * コンストラクタ<br>
+	 * シードを指定して、乱数生成器を初期化します。<br>
+	 * @param seed シード
+	 */
+	UnsynchronizedXor128(long seed)
+	{
+		super(seed);
+	}
+
+	@Override
+	public void setSeed(long seed) {
+		setSeedUnlocked(seed);
+	}
+
+	@Override
+	public long nextLong()
+	{
+		return nextLongUnlocked();
+	}
+}
@@ -4,13 +4,15 @@ package jp.ohtayo.commons.random;
  * 乱数生成クラス<br>
  * 乱数生成にXorshiftを利用します。<br>
  * 関数仕様をjava.util.Randomに合わせています。<br>
+ * 状態を変更するメソッドは同期化しているため、複数のスレッドで1つのインスタンスを共有できます。
+ * スレッドごとに持たせて使う場合は、RandomFactoryで同期化しない版を生成できます。<br>
  *
  * @author ohtayo (ohta.yoshihiro@outlook.jp)
  */
-public class Xor128 {
+public class Xor128 implements RandomGenerator {
 
-	/** シフトレジスタ	*/	private static long x=123456789, y=362436069, z=521288629;// w=88675123;
-	/** シード			*/	private static long w;
+	/** シフトレジスタ	*/	private long x=123456789, y=362436069, z=521288629;// w=88675123;
+	/** シード			*/	private long w;
 	
 	/**
 	 * デフォルトコンストラクタ<br>
@@ -51,11 +53,15 @@ public class Xor128 {
 	* @param seed 乱数のシード
 	*/
     synchronized public void setSeed(long seed) {
+    	setSeedUnlocked(seed);
+    }
+    /** setSeed()の同期化しない実装です。 */
+    void setSeedUnlocked(long seed) {
     	w = seed;
 			x=123456789;
 			y=362436069;
 			z=521288629;
-			for(int i=0; i<100; i++)	nextLong();
+			for(int i=0; i<100; i++)	nextLongUnlocked();
 		}
     
     /**
@@ -63,6 +69,11 @@ public class Xor128 {
      * @return 一様乱数
      */
     synchronized public long nextLong()
+	{
+		return nextLongUnlocked();
+	}
+    /** nextLong()の同期化しない実装です。 */
+    long nextLongUnlocked()
 	{
 		long t;
 		t = ( x^(x<<11) );
@@ -0,0 +1,106 @@
+package jp.ohtayo.commons.random;
+
+/**
+ * Ziggurat法で標準正規乱数と指数乱数を生成するクラスです。<br>
+ * Marsaglia and Tsang (2000)の方法に、Doornik (2005)の改良(層の番号と層内の位置に別の乱数を使う)を加えています。<br>
+ * 正規分布は128層、指数分布は256層で、ほとんどの場合は一様乱数2個と乗算1回で1つの乱数が得られます。<br>
+ * 裾は正確に生成するため、±6σで打ち切られることはありません。<br>
+ * 層の座標はクラスの初期化時に計算して保持します。<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+final class Ziggurat {
+
+	/** 正規分布の層数				*/	static final int NORMAL_LAYERS = 128;
+	/** 正規分布の裾の開始点			*/	static final double NORMAL_R = 3.442619855899;
+	/** 正規分布の1層の面積			*/	static final double NORMAL_V = 9.91256303526217e-3;
+	/** 指数分布の層数				*/	static final int EXPONENTIAL_LAYERS = 256;
+	/** 指数分布の裾の開始点			*/	static final double EXPONENTIAL_R = 7.69711747013104972;
+	/** 指数分布の1層の面積			*/	static final double EXPONENTIAL_V = 3.949659822581572e-3;
+
+	/** 正規分布の層の右端のx座標		*/	private static final double[] normalX = new double[NORMAL_LAYERS+1];
+	/** 正規分布の層の比x[i+1]/x[i]	*/	private static final double[] normalRatio = new double[NORMAL_LAYERS];
+	/** 指数分布の層の右端のx座標		*/	private static final double[] exponentialX = new double[EXPONENTIAL_LAYERS+1];
+	/** 指数分布の層の比x[i+1]/x[i]	*/	private static final double[] exponentialRatio = new double[EXPONENTIAL_LAYERS];
+
+	static {
+		double f = Math.exp(-0.5*NORMAL_R*NORMAL_R);
+		normalX[0] = NORMAL_V/f;	//裾を含む最下層は面積Vの長方形として扱う
+		normalX[1] = NORMAL_R;
+		normalX[NORMAL_LAYERS] = 0;
+		for(int i=2; i<NORMAL_LAYERS; i++){
+			normalX[i] = Math.sqrt(-2*Math.log(NORMAL_V/normalX[i-1] + f));
+			f = Math.exp(-0.5*normalX[i]*normalX[i]);
+		}
+		for(int i=0; i<NORMAL_LAYERS; i++)
+			normalRatio[i] = normalX[i+1]/normalX[i];
+
+		f = Math.exp(-EXPONENTIAL_R);
+		exponentialX[0] = EXPONENTIAL_V/f;
+		exponentialX[1] = EXPONENTIAL_R;
+		exponentialX[EXPONENTIAL_LAYERS] = 0;
+		for(int i=2; i<EXPONENTIAL_LAYERS; i++){
+			exponentialX[i] = -Math.log(EXPONENTIAL_V/exponentialX[i-1] + f);
+			f = Math.exp(-exponentialX[i]);
+		}
+		for(int i=0; i<EXPONENTIAL_LAYERS; i++)
+			exponentialRatio[i] = exponentialX[i+1]/exponentialX[i];
+	}
+
+	private Ziggurat(){}
+
+	/**
+	 * 平均0分散1の正規乱数を生成します。
+	 * @param random 一様乱数の生成器
+	 * @return 正規乱数
+	 */
+	static double normal(RandomGenerator random)
+	{
+		for(;;){
+			double u = 2*random.nextDouble() - 1;
+			int i = random.nextInt() & (NORMAL_LAYERS-1);
+			if(Math.abs(u) < normalRatio[i])	return u*normalX[i];	//層の内側の長方形
+			if(i == 0)	return normalTail(random, u < 0);
+			double x = u*normalX[i];
+			double f0 = Math.exp(-0.5*(normalX[i]*normalX[i] - x*x));
+			double f1 = Math.exp(-0.5*(normalX[i+1]*normalX[i+1] - x*x));
+			if(f1 + random.nextDouble()*(f0-f1) < 1.0)	return x;
+		}
+	}
+
+	/**
+	 * |x|&gt;Rの裾をMarsagliaの方法で生成します。
+	 */
+	private static double normalTail(RandomGenerator random, boolean negative)
+	{
+		double x, y;
+		do{
+			x = Math.log(1-random.nextDouble())/NORMAL_R;
+			y = Math.log(1-random.nextDouble());
+		}while(-2*y < x*x);
+		return negative ? x - NORMAL_R : NORMAL_R - x;
+	}
+
+	/**
+	 * 平均1の指数乱数を生成します。
+	 * @param random 一様乱数の生成器
+	 * @return 指数乱数
+	 */
+	static double exponential(RandomGenerator random)
+	{
+		double shift = 0;
+		for(;;){
+			double u = random.nextDouble();
+			int i = random.nextInt() & (EXPONENTIAL_LAYERS-1);
+			if(u < exponentialRatio[i])	return shift + u*exponentialX[i];
+			if(i == 0){
+				shift += EXPONENTIAL_R;	//無記憶性により、裾はRだけずらした指数分布
+				continue;
+			}
+			double x = u*exponentialX[i];
+			double f0 = Math.exp(-(exponentialX[i] - x));
+			double f1 = Math.exp(-(exponentialX[i+1] - x));
+			if(f1 + random.nextDouble()*(f0-f1) < 1.0)	return shift + x;
+		}
+	}
+}
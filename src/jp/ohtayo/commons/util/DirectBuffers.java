@@ -0,0 +1,51 @@
+package jp.ohtayo.commons.util;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * ダイレクトバッファとメモリマップしたバッファを解放するクラスです。<br>
+ * 解放にはsun.misc.Unsafe.invokeCleanerを使い、使えないJavaではGCによる解放に任せます。<br>
+ * 解放したバッファ(とそのビュー)にアクセスするとJavaVMが異常終了するため、解放前に参照を全て捨てます。<br>
+ *
+ * @author ohtayo (ohta.yoshihiro@outlook.jp)
+ */
+public class DirectBuffers {
+
+	/** sun.misc.Unsafeのインスタンス				*/	private static final Object UNSAFE;
+	/** ダイレクトバッファの解放メソッド(invokeCleaner)	*/	private static final Method INVOKE_CLEANER;
+	static {
+		Object unsafe = null;
+		Method invokeCleaner = null;
+		try{
+			Class<?> type = Class.forName("sun.misc.Unsafe");
+			Field field = type.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			unsafe = field.get(null);
+			invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+		}catch(Exception e){
+			unsafe = null;
+			invokeCleaner = null;
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+	}
+
+	/**
+	 * ダイレクトバッファを直ちに解放します。<br>
+	 * allocateDirectやFileChannel.mapが返したバッファそのものを渡します(duplicateやsliceは解放できません)。<br>
+	 * @param buffer 解放するバッファ
+	 * @return 解放できた場合はtrue。解放できない場合はfalseで、GCに任せます
+	 */
+	public static boolean release(ByteBuffer buffer)
+	{
+		if(INVOKE_CLEANER == null || buffer == null || !buffer.isDirect())	return false;
+		try{
+			INVOKE_CLEANER.invoke(UNSAFE, buffer);
+			return true;
+		}catch(Exception e){
+			return false;
+		}
+	}
+}